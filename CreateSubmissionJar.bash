@@ -1 +1,18 @@
-Jar cf OthelloSubmission.jar src/main/java/de/lmu/bio/ifi/OthelloGame.java src/main/java/szte/mi/Move.java src/main/java/szte/mi/Player.java src/main/java/de/lmu/bio/ifi/TranspositionEntry.java src/main/java/de/lmu/bio/ifi/PlayerMove.java src/main/java/de/lmu/bio/ifi/GameStatus.java src/main/java/de/lmu/bio/ifi/Game.java src/main/java/de/lmu/bio/ifi/players/player.txt src/main/java/de/lmu/bio/ifi/players/MonteCarloPlayer.java src/main/java/de/lmu/bio/ifi/players/montecarlo/MonteCarloTreeSearch.java src/main/java/de/lmu/bio/ifi/players/montecarlo/MonteCarloNode.java src/main/java/de/lmu/bio/ifi/OpeningBook.java src/main/java/de/lmu/bio/ifi/data/opening_book.ser  src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/CornerMoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/GreedyMoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MatrixMoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/RandomMoveStrategy.java src/main/java/de/lmu/bio/ifi/BitMasks.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MatrixChanceMoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MatrixEvaluater.java src/main/java/de/lmu/bio/ifi/players/NewMiniMax.java src/main/java/de/lmu/bio/ifi/players/AlphaBetaPlayer.java src/main/java/de/lmu/bio/ifi/players/CombinedAlphaBetaMCTS.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/AlphaBetaStrategy.java
\ No newline at end of file
+jar cf OthelloSubmission.jar \
+  src/main/java/szte/mi/Move.java src/main/java/szte/mi/Player.java \
+  src/main/java/de/lmu/bio/ifi/OthelloGame.java src/main/java/de/lmu/bio/ifi/Position.java src/main/java/de/lmu/bio/ifi/Zobrist.java src/main/java/de/lmu/bio/ifi/BitMasks.java \
+  src/main/java/de/lmu/bio/ifi/TranspositionEntry.java src/main/java/de/lmu/bio/ifi/TranspositionTable.java \
+  src/main/java/de/lmu/bio/ifi/PlayerMove.java src/main/java/de/lmu/bio/ifi/GameStatus.java src/main/java/de/lmu/bio/ifi/Game.java \
+  src/main/java/de/lmu/bio/ifi/OpeningBook.java src/main/java/de/lmu/bio/ifi/data/opening_book.ser src/main/java/de/lmu/bio/ifi/data/pattern_weights.bin \
+  src/main/java/de/lmu/bio/ifi/evaluation/Evaluator.java src/main/java/de/lmu/bio/ifi/evaluation/PatternEvaluator.java \
+  src/main/java/de/lmu/bio/ifi/players/player.txt src/main/java/de/lmu/bio/ifi/players/MonteCarloPlayer.java src/main/java/de/lmu/bio/ifi/players/NewMiniMax.java \
+  src/main/java/de/lmu/bio/ifi/players/AlphaBetaPlayer.java src/main/java/de/lmu/bio/ifi/players/CombinedAlphaBetaMCTS.java \
+  src/main/java/de/lmu/bio/ifi/players/alphabeta/AlphaBetaSearch.java src/main/java/de/lmu/bio/ifi/players/alphabeta/EndgameSolver.java \
+  src/main/java/de/lmu/bio/ifi/players/alphabeta/MoveOrdering.java src/main/java/de/lmu/bio/ifi/players/alphabeta/ParallelSearch.java \
+  src/main/java/de/lmu/bio/ifi/players/montecarlo/MonteCarloTreeSearch.java src/main/java/de/lmu/bio/ifi/players/montecarlo/MonteCarloNodePool.java \
+  src/main/java/de/lmu/bio/ifi/players/montecarlo/PlayoutKernel.java src/main/java/de/lmu/bio/ifi/players/montecarlo/PlayoutPolicy.java \
+  src/main/java/de/lmu/bio/ifi/players/montecarlo/PlayoutEvaluator.java \
+  src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/RandomMoveStrategy.java \
+  src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/CornerMoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/GreedyMoveStrategy.java \
+  src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MatrixMoveStrategy.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MatrixChanceMoveStrategy.java \
+  src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/MatrixEvaluater.java src/main/java/de/lmu/bio/ifi/players/montecarlo/movestrategies/AlphaBetaStrategy.java
@@ -0,0 +1,45 @@
+package de.lmu.bio.ifi.benchmarks;
+
+import de.lmu.bio.ifi.GameStatus;
+import de.lmu.bio.ifi.OthelloGame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed benchmark positions: the first games of othello_dataset.csv, replayed up to a given number of moves.
+ * Positions where the game is over or the side to move has to pass are skipped, so every position has a move to search.
+ */
+public final class BenchmarkPositions {
+    public static final String DATASET = "src/main/java/de/lmu/bio/ifi/data/othello_dataset.csv";
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * @param moves the number of moves to replay from each game.
+     * @param count the maximum number of positions to return.
+     * @return positions after the given number of moves, in dataset order.
+     */
+    public static OthelloGame[] load(int moves, int count) {
+        List<OthelloGame> games = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(DATASET))) {
+            // skip header
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null && games.size() < count) {
+                OthelloGame game = OthelloGame.fromMoveString(line.split(",")[2], moves);
+                if (game.gameStatus() == GameStatus.RUNNING && game.getValidMoves(game.isPlayerOneToMove()) != 0L) {
+                    games.add(game);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Benchmarks have to be run from the project directory", e);
+        }
+        return games.toArray(new OthelloGame[0]);
+    }
+}
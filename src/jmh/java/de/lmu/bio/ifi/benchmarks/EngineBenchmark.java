@@ -0,0 +1,94 @@
+package de.lmu.bio.ifi.benchmarks;
+
+import de.lmu.bio.ifi.GameStatus;
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.Position;
+import de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bitboard primitives every search node and playout step goes through, measured per position on dataset positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    private static final int POSITIONS = 256;
+
+    @Param({"20", "40"})
+    public int moves;
+
+    private OthelloGame[] games;
+
+    @Setup
+    public void setup() {
+        games = BenchmarkPositions.load(moves, POSITIONS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void getValidMoves(Blackhole blackhole) {
+        for (OthelloGame game : games) {
+            blackhole.consume(game.getValidMoves(game.isPlayerOneToMove()));
+        }
+    }
+
+    /**
+     * Flips of every legal move, applied and taken back with makeMove/unmakeMove (the same kernel doFlip uses).
+     */
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void makeUnmakeAllMoves(Blackhole blackhole) {
+        for (OthelloGame game : games) {
+            boolean isPlayerOne = game.isPlayerOneToMove();
+            long possibleMoves = game.getValidMoves(isPlayerOne);
+            while (possibleMoves != 0L) {
+                long move = Long.lowestOneBit(possibleMoves);
+                possibleMoves ^= move;
+                long chipsToFlip = game.makeMove(isPlayerOne, move);
+                blackhole.consume(chipsToFlip);
+                game.unmakeMove(move, chipsToFlip);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void gameStatus(Blackhole blackhole) {
+        for (OthelloGame game : games) {
+            GameStatus gameStatus = game.gameStatus();
+            blackhole.consume(gameStatus);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void copy(Blackhole blackhole) {
+        for (OthelloGame game : games) {
+            blackhole.consume(game.copy());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void toPosition(Blackhole blackhole) {
+        for (OthelloGame game : games) {
+            Position position = game.toPosition();
+            blackhole.consume(position);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void weightedPieceCount(Blackhole blackhole) {
+        for (OthelloGame game : games) {
+            blackhole.consume(MatrixEvaluater.getWeightedPieceCount(game.getPlayerOneBoard(), game.getPlayerTwoBoard()));
+        }
+    }
+}
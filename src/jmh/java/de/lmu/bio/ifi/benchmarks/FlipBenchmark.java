@@ -0,0 +1,120 @@
+package de.lmu.bio.ifi.benchmarks;
+
+import de.lmu.bio.ifi.BitMasks;
+import de.lmu.bio.ifi.GameStatus;
+import de.lmu.bio.ifi.OthelloGame;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flip computation: the ray walk that doFlip used to do against the lookup table in {@link OthelloGame#getFlips}.
+ * Every invocation computes the flips of all legal moves in a fixed set of positions taken from random games.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlipBenchmark {
+    private static final int POSITIONS = 1024;
+    private long[] playerBoards;
+    private long[] opponentBoards;
+    private long[] moves;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        playerBoards = new long[POSITIONS];
+        opponentBoards = new long[POSITIONS];
+        moves = new long[POSITIONS];
+        int count = 0;
+        while (count < POSITIONS) {
+            OthelloGame game = new OthelloGame();
+            boolean playerOne = true;
+            while (game.gameStatus() == GameStatus.RUNNING && count < POSITIONS) {
+                long possibleMoves = game.getValidMoves(playerOne);
+                if (possibleMoves != 0L) {
+                    playerBoards[count] = game.getPlayerBoard(playerOne);
+                    opponentBoards[count] = game.getPlayerBoard(!playerOne);
+                    moves[count] = possibleMoves;
+                    count++;
+                }
+                long move = 0L;
+                if (possibleMoves != 0L) {
+                    int index = random.nextInt(Long.bitCount(possibleMoves));
+                    for (int i = 0; i <= index; i++) {
+                        move = Long.lowestOneBit(possibleMoves);
+                        possibleMoves ^= move;
+                    }
+                }
+                game.forceMakeMove(playerOne, move);
+                playerOne = !playerOne;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long rayWalk() {
+        long result = 0L;
+        for (int i = 0; i < POSITIONS; i++) {
+            long playerBoard = playerBoards[i];
+            long opponentBoard = opponentBoards[i];
+            long possibleMoves = moves[i];
+            while (possibleMoves != 0L) {
+                long move = Long.lowestOneBit(possibleMoves);
+                possibleMoves ^= move;
+                long chipsToFlip = 0L;
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, OthelloGame.BOARD_SIZE, BitMasks.DOWN_MASK);
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -OthelloGame.BOARD_SIZE, BitMasks.UP_MASK);
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, 1, BitMasks.RIGHT_MASK);
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -1, BitMasks.LEFT_MASK);
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, OthelloGame.BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, OthelloGame.BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -(OthelloGame.BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
+                chipsToFlip |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -(OthelloGame.BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
+                result ^= chipsToFlip;
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long lookupTable() {
+        long result = 0L;
+        for (int i = 0; i < POSITIONS; i++) {
+            long playerBoard = playerBoards[i];
+            long opponentBoard = opponentBoards[i];
+            long possibleMoves = moves[i];
+            while (possibleMoves != 0L) {
+                long move = Long.lowestOneBit(possibleMoves);
+                possibleMoves ^= move;
+                result ^= OthelloGame.getFlips(playerBoard, opponentBoard, move);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    @SuppressWarnings("deprecation")
+    public long tempFlipArray() {
+        long result = 0L;
+        for (int i = 0; i < POSITIONS; i++) {
+            long playerBoard = playerBoards[i];
+            long opponentBoard = opponentBoards[i];
+            long possibleMoves = moves[i];
+            while (possibleMoves != 0L) {
+                long move = Long.lowestOneBit(possibleMoves);
+                possibleMoves ^= move;
+                long[] boards = OthelloGame.forceTempMakeMove(true, playerBoard, opponentBoard, move);
+                result ^= boards[0] ^ boards[1];
+            }
+        }
+        return result;
+    }
+}
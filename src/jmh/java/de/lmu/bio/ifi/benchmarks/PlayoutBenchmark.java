@@ -0,0 +1,47 @@
+package de.lmu.bio.ifi.benchmarks;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.Position;
+import de.lmu.bio.ifi.players.montecarlo.MonteCarloTreeSearch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCTS playouts per second from dataset positions, one operation is one playout to the end of the game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+    private static final int POSITIONS = 64;
+    private static final double C = 1.52;
+
+    @Param({"20", "40"})
+    public int moves;
+
+    private Position[] positions;
+    private MonteCarloTreeSearch search;
+    private int next;
+
+    @Setup
+    public void setup() {
+        OthelloGame[] games = BenchmarkPositions.load(moves, POSITIONS);
+        positions = new Position[games.length];
+        for (int i = 0; i < games.length; i++) {
+            positions[i] = games[i].toPosition();
+        }
+        search = new MonteCarloTreeSearch(true, positions[0], new Random(1), C);
+    }
+
+    @Benchmark
+    public int playout() {
+        Position position = positions[next];
+        next = (next + 1) % positions.length;
+        return search.simulateGameUntilEnd(position);
+    }
+}
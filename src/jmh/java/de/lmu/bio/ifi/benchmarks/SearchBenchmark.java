@@ -0,0 +1,56 @@
+package de.lmu.bio.ifi.benchmarks;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.players.AlphaBetaPlayer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed depth AlphaBetaPlayer searches on dataset positions. One operation is one complete search of one position,
+ * the positions are searched round robin, each with an empty transposition table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int POSITIONS = 16;
+
+    @Param({"20", "40"})
+    public int moves;
+
+    @Param({"3", "5"})
+    public int depth;
+
+    private OthelloGame[] games;
+    private AlphaBetaPlayer playerOne;
+    private AlphaBetaPlayer playerTwo;
+    private int next;
+
+    @Setup
+    public void setup() {
+        games = BenchmarkPositions.load(moves, POSITIONS);
+        playerOne = new AlphaBetaPlayer();
+        playerOne.init(0, 0, new Random(1));
+        playerTwo = new AlphaBetaPlayer();
+        playerTwo.init(1, 0, new Random(1));
+    }
+
+    @Setup(Level.Invocation)
+    public void nextPosition() {
+        next = (next + 1) % games.length;
+        playerOne.clearTranspositionTable();
+        playerTwo.clearTranspositionTable();
+    }
+
+    @Benchmark
+    public long alphaBeta() {
+        OthelloGame game = games[next];
+        AlphaBetaPlayer player = game.isPlayerOneToMove() ? playerOne : playerTwo;
+        return player.findBestMove(game, depth);
+    }
+}
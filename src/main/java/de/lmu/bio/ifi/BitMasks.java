@@ -79,4 +79,85 @@ public class BitMasks {
     };
 
     public final static int[] BIT_DIRECTIONS = {-9, -8, -7, -1, 1, 7, 8, 9};
+
+    // Flip lookup: the squares from a square up to the edge of the board in each direction, index square * 8 + direction.
+    // Directions 0-3 point towards higher bit indices (+1, +7, +8, +9), 4-7 towards lower ones (-1, -7, -8, -9).
+    // Square 64, the index of a pass (no bit set), has empty rays so a pass flips nothing.
+    public final static long[] RAYS = createRays();
+
+    private static long[] createRays() {
+        int[][] steps = {{1, 0}, {-1, 1}, {0, 1}, {1, 1}, {-1, 0}, {1, -1}, {0, -1}, {-1, -1}};
+        long[] rays = new long[65 * 8];
+        for (int square = 0; square < 64; square++) {
+            for (int direction = 0; direction < steps.length; direction++) {
+                int x = square % 8 + steps[direction][0];
+                int y = square / 8 + steps[direction][1];
+                while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+                    rays[square * 8 + direction] |= 1L << (x + y * 8);
+                    x += steps[direction][0];
+                    y += steps[direction][1];
+                }
+            }
+        }
+        return rays;
+    }
+
+    // Squares on the a and h files, on the first and last rank, and on any edge of the board
+    public final static long LEFT_AND_RIGHT_EDGES = ~(LEFT_MASK & RIGHT_MASK);
+    public final static long TOP_AND_BOTTOM_EDGES = ~(UP_MASK & DOWN_MASK);
+    public final static long EDGES = LEFT_AND_RIGHT_EDGES | TOP_AND_BOTTOM_EDGES;
+
+    // Stable discs of an edge, index (player << 8) | opponent with one bit per square of the edge. A disc on an edge
+    // can only be flipped along that edge, and the table holds the player's discs that no sequence of moves on the
+    // edge can flip. It is a lower bound (never marks a flippable disc stable), the stability cutoff of the endgame
+    // solver relies on that.
+    public final static byte[] EDGE_STABILITY = createEdgeStability();
+
+    private static byte[] createEdgeStability() {
+        byte[] table = new byte[1 << 16];
+        // Every move adds a disc, so filling the fuller edges first means the positions after a move are known
+        for (int discs = 8; discs >= 0; discs--) {
+            for (int player = 0; player < 256; player++) {
+                for (int opponent = 0; opponent < 256; opponent++) {
+                    if ((player & opponent) == 0 && Integer.bitCount(player | opponent) == discs) {
+                        table[player << 8 | opponent] = (byte) edgeStability(table, player, opponent);
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    private static int edgeStability(byte[] table, int player, int opponent) {
+        int stable = player;
+        // Either side may take any empty square, the move can be legal through a direction that leaves the edge
+        for (int empty = ~(player | opponent) & 0xFF; empty != 0; empty &= empty - 1) {
+            int move = empty & -empty;
+            int flips = edgeFlips(player, opponent, move);
+            stable &= table[(player | move | flips) << 8 | (opponent & ~flips)];
+            flips = edgeFlips(opponent, player, move);
+            stable &= table[(player & ~flips) << 8 | (opponent | move | flips)];
+        }
+        return stable;
+    }
+
+    // The opponent's discs between the move and the next disc of the player on the edge, in both directions
+    private static int edgeFlips(int player, int opponent, int move) {
+        int flips = 0;
+        int run = 0;
+        for (int square = move << 1; (square & opponent) != 0; square <<= 1) {
+            run |= square;
+        }
+        if ((Integer.highestOneBit(run) << 1 & player) != 0) {
+            flips |= run;
+        }
+        run = 0;
+        for (int square = move >>> 1; (square & opponent) != 0; square >>>= 1) {
+            run |= square;
+        }
+        if ((Integer.lowestOneBit(run) >>> 1 & player) != 0) {
+            flips |= run;
+        }
+        return flips;
+    }
 }
@@ -8,7 +8,6 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 public class OthelloGame {
     public final static int BOARD_SIZE = 8;
@@ -16,10 +15,23 @@ public class OthelloGame {
     public final static int EMPTY = 0;
     public final static int PLAYER_ONE = 1;
     public final static int PLAYER_TWO = 2;
+    // Created with https://tearth.dev/bitboard-viewer/
+    public final static long START_PLAYER_ONE_BOARD = 34628173824L;
+    public final static long START_PLAYER_TWO_BOARD = 68853694464L;
+    // 60 moves with at most one pass in front of each of them
+    public final static int MAX_SEARCH_PLY = 128;
     private final ArrayList<PlayerMove> moveHistory;
 
     private long playerOneBoard;
     private long playerTwoBoard;
+    // Zobrist key of the two boards, the side to move is added by getZobristKey()
+    private long zobristKey;
+    // Kept in sync with moveHistory so that the side to move and the pass state can be read in O(1)
+    private boolean playerOneToMove;
+    private int consecutivePasses;
+    // Undo information for makeMove(boolean, long): side to move and pass counter before each move
+    private byte[] undoStack;
+    private int undoStackSize;
 
 
 
@@ -29,9 +41,35 @@ public class OthelloGame {
     public OthelloGame() {
         // Initialize the board, and set the starting chips
         this.moveHistory = new ArrayList<>();
-        this.playerOneBoard = 34628173824L;
-        this.playerTwoBoard = 68853694464L;
-        // Created with https://tearth.dev/bitboard-viewer/
+        this.playerOneBoard = START_PLAYER_ONE_BOARD;
+        this.playerTwoBoard = START_PLAYER_TWO_BOARD;
+        this.playerOneToMove = true;
+        this.zobristKey = Zobrist.hash(playerOneBoard, playerTwoBoard, true);
+    }
+
+    /**
+     * Create a game from a position. The move history of the new game is empty.
+     *
+     * @param position the position to start from.
+     * @return a new game with the boards, side to move and pass state of the position.
+     */
+    public static OthelloGame fromPosition(Position position) {
+        OthelloGame game = new OthelloGame();
+        game.playerOneBoard = position.getPlayerOneBoard();
+        game.playerTwoBoard = position.getPlayerTwoBoard();
+        game.playerOneToMove = position.isPlayerOneToMove();
+        game.consecutivePasses = position.getConsecutivePasses();
+        game.zobristKey = Zobrist.hash(game.playerOneBoard, game.playerTwoBoard, true);
+        return game;
+    }
+
+    /**
+     * Get the current position without the move history. Runs in O(1) no matter how far the game has progressed.
+     *
+     * @return a new position holding the boards, side to move and pass state of this game.
+     */
+    public Position toPosition() {
+        return new Position(playerOneBoard, playerTwoBoard, playerOneToMove, consecutivePasses);
     }
 
     /**
@@ -82,7 +120,7 @@ public class OthelloGame {
         }
         if (x == -1 && y == -1) {
             // Pass move
-            moveHistory.add(new PlayerMove(isPlayerOne, -1, -1));
+            recordMove(new PlayerMove(isPlayerOne, -1, -1));
             return true; // A pass move is always valid
         }
         // Conver the x,y into a long of the moveToMake (only bit that is set to 1 is the move)
@@ -95,39 +133,32 @@ public class OthelloGame {
             return false;
         }
         // Actually make the move
-        if (isPlayerOne) {
-            playerOneBoard |= movetoMake;
-        } else {
-            playerTwoBoard |= movetoMake;
-        }
+        placeDisc(isPlayerOne, movetoMake);
         // Flip the chips
         doFlip(isPlayerOne, movetoMake);
-        moveHistory.add(new PlayerMove(isPlayerOne, x, y));
+        recordMove(new PlayerMove(isPlayerOne, x, y));
         return true;
     }
 
     public boolean forceMakeMove(boolean isPlayerOne, long move) {
         if (move == 0L) {
             // Pass move
-            moveHistory.add(new PlayerMove(isPlayerOne, -1, -1));
+            recordMove(new PlayerMove(isPlayerOne, -1, -1));
             return true; // A pass move is always valid
         }
-        if (isPlayerOne) {
-            playerOneBoard |= move;
-        } else {
-            playerTwoBoard |= move;
-        }
+        placeDisc(isPlayerOne, move);
         doFlip(isPlayerOne, move);
         //  long movetoMake = 1L << (x + y * 8);
         // Reverse the long into x and y
         int x = Long.numberOfTrailingZeros(move) % 8;
         int y = Long.numberOfTrailingZeros(move) / 8;
-        moveHistory.add(new PlayerMove(isPlayerOne, x, y));
+        recordMove(new PlayerMove(isPlayerOne, x, y));
         return true;
     }
 
     /**
      * Method to make a temp move without having to make a copy of the game
+     * Allocates the result array, use {@link #getFlips(long, long, long)} and XOR the flips in hot paths.
      *
      * @param isPlayerOne
      * @param playerBoard
@@ -135,6 +166,7 @@ public class OthelloGame {
      * @param move
      * @return
      */
+    @Deprecated
     public static long[] forceTempMakeMove(boolean isPlayerOne, long playerBoard, long opponentBoard, long move) {
         playerBoard |= move;
         return doTempFlip(isPlayerOne, playerBoard, opponentBoard, move);
@@ -142,6 +174,7 @@ public class OthelloGame {
 
     /**
      * Method to flip the chips without having to make a copy of the game
+     * Allocates the result array, use {@link #getFlips(long, long, long)} and XOR the flips in hot paths.
      *
      * @param isPlayerOne
      * @param playerBoard
@@ -149,17 +182,9 @@ public class OthelloGame {
      * @param move
      * @return
      */
+    @Deprecated
     public static long[] doTempFlip(boolean isPlayerOne, long playerBoard, long opponentBoard, long move) {
-        long chipsToFlip = 0L;
-        // Calculate the chips to flip in each direction
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, BOARD_SIZE, BitMasks.DOWN_MASK);
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -BOARD_SIZE, BitMasks.UP_MASK);
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, 1, BitMasks.RIGHT_MASK);
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -1, BitMasks.LEFT_MASK);
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -(BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
-        chipsToFlip |= getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -(BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
+        long chipsToFlip = getFlips(playerBoard, opponentBoard, move);
 
         // Flip the chips
         playerBoard ^= chipsToFlip; // XOR to flip the player's chips
@@ -167,6 +192,44 @@ public class OthelloGame {
         return new long[]{playerBoard, opponentBoard};
     }
 
+    /**
+     * Get the chips that are flipped when the player places a disc on move, without having to make a copy of the game
+     *
+     * @param playerBoard   the discs of the player making the move
+     * @param opponentBoard the discs of the opponent
+     * @param move          the move, exactly one bit set, or 0 for a pass
+     * @return a long where every disc that gets flipped is set to 1
+     */
+    public static long getFlips(long playerBoard, long opponentBoard, long move) {
+        int offset = Long.numberOfTrailingZeros(move) << 3;
+        // A run of flips ends at the first square that does not hold an opponent's disc
+        long notOpponent = ~opponentBoard;
+        return getFlipsTowardsHigherIndex(playerBoard, notOpponent, BitMasks.RAYS[offset])
+                | getFlipsTowardsHigherIndex(playerBoard, notOpponent, BitMasks.RAYS[offset + 1])
+                | getFlipsTowardsHigherIndex(playerBoard, notOpponent, BitMasks.RAYS[offset + 2])
+                | getFlipsTowardsHigherIndex(playerBoard, notOpponent, BitMasks.RAYS[offset + 3])
+                | getFlipsTowardsLowerIndex(playerBoard, notOpponent, BitMasks.RAYS[offset + 4])
+                | getFlipsTowardsLowerIndex(playerBoard, notOpponent, BitMasks.RAYS[offset + 5])
+                | getFlipsTowardsLowerIndex(playerBoard, notOpponent, BitMasks.RAYS[offset + 6])
+                | getFlipsTowardsLowerIndex(playerBoard, notOpponent, BitMasks.RAYS[offset + 7]);
+    }
+
+    private static long getFlipsTowardsHigherIndex(long playerBoard, long notOpponent, long ray) {
+        // The nearest square along the ray is the lowest set bit
+        long outflank = ray & notOpponent;
+        outflank &= -outflank;
+        long outflankedByPlayer = outflank & playerBoard;
+        // All ones if the run is closed by one of the player's discs, else zero
+        return ray & (outflank - 1) & ((outflankedByPlayer | -outflankedByPlayer) >> 63);
+    }
+
+    private static long getFlipsTowardsLowerIndex(long playerBoard, long notOpponent, long ray) {
+        // The nearest square along the ray is the highest set bit
+        long outflank = Long.highestOneBit(ray & notOpponent);
+        long outflankedByPlayer = outflank & playerBoard;
+        return ray & -(outflank << 1) & ((outflankedByPlayer | -outflankedByPlayer) >> 63);
+    }
+
     /**
      * Method to get the chips to flip without having to make a copy of the game
      *
@@ -200,79 +263,306 @@ public class OthelloGame {
     public void forceMakeMove(boolean isPlayerOne, Move move) {
         if (move.x == -1 && move.y == -1) {
             // Pass move
-            moveHistory.add(new PlayerMove(isPlayerOne, -1, -1));
+            recordMove(new PlayerMove(isPlayerOne, -1, -1));
             return; // A pass move is always valid
         }
         long movetoMake = 1L << (move.x + move.y * 8);
+        placeDisc(isPlayerOne, movetoMake);
+        doFlip(isPlayerOne, movetoMake);
+        recordMove(new PlayerMove(isPlayerOne, move.x, move.y));
+    }
+
+    /**
+     * Make a move without validating it and without touching the move history. Every call has to be undone with
+     * {@link #unmakeMove(long, long)} in reverse order, which makes it possible to search depth-first on a single
+     * game instance.
+     *
+     * @param isPlayerOne true if player 1, else player 2.
+     * @param move        a long with exactly the bit of the move set, or 0 for a pass.
+     * @return the discs that were flipped by the move.
+     */
+    public long makeMove(boolean isPlayerOne, long move) {
+        if (undoStack == null) {
+            undoStack = new byte[MAX_SEARCH_PLY];
+        }
+        undoStack[undoStackSize++] = (byte) (consecutivePasses | (playerOneToMove ? 4 : 0));
+        playerOneToMove = !isPlayerOne;
+        if (move == 0L) {
+            consecutivePasses++;
+            return 0L;
+        }
+        long chipsToFlip;
         if (isPlayerOne) {
-            playerOneBoard |= movetoMake;
+            chipsToFlip = getFlips(playerOneBoard, playerTwoBoard, move);
+            playerOneBoard ^= chipsToFlip | move;
+            playerTwoBoard ^= chipsToFlip;
         } else {
-            playerTwoBoard |= movetoMake;
+            chipsToFlip = getFlips(playerTwoBoard, playerOneBoard, move);
+            playerTwoBoard ^= chipsToFlip | move;
+            playerOneBoard ^= chipsToFlip;
         }
-        doFlip(isPlayerOne, movetoMake);
-        moveHistory.add(new PlayerMove(isPlayerOne, move.x, move.y));
+        zobristKey ^= Zobrist.move(isPlayerOne, move, chipsToFlip);
+        consecutivePasses = 0;
+        return chipsToFlip;
     }
 
-    public int getPlayerTurnNumber() {
-        if (moveHistory.isEmpty()) {
-            return 1;
+    /**
+     * Undo the last move made with {@link #makeMove(boolean, long)}. The position, the side to move and the pass
+     * counter are restored exactly.
+     *
+     * @param move        the move that was made, 0 for a pass.
+     * @param chipsToFlip the discs returned by makeMove.
+     */
+    public void unmakeMove(long move, long chipsToFlip) {
+        boolean isPlayerOne = (playerOneBoard & move) != 0L;
+        if (isPlayerOne) {
+            playerOneBoard ^= chipsToFlip | move;
+            playerTwoBoard ^= chipsToFlip;
         } else {
-            return moveHistory.get(moveHistory.size() - 1).isPlayerOne() ? PLAYER_TWO : PLAYER_ONE;
+            playerTwoBoard ^= chipsToFlip | move;
+            playerOneBoard ^= chipsToFlip;
         }
+        zobristKey ^= Zobrist.move(isPlayerOne, move, chipsToFlip);
+        byte undo = undoStack[--undoStackSize];
+        consecutivePasses = undo & 3;
+        playerOneToMove = (undo & 4) != 0;
+    }
+
+    /**
+     * Append a move to the history and update the side to move and the pass counter.
+     *
+     * @param move the move that was just made, x == -1 for a pass.
+     */
+    private void recordMove(PlayerMove move) {
+        moveHistory.add(move);
+        playerOneToMove = !move.isPlayerOne();
+        consecutivePasses = move.x == -1 ? consecutivePasses + 1 : 0;
+    }
+
+    public int getPlayerTurnNumber() {
+        return playerOneToMove ? PLAYER_ONE : PLAYER_TWO;
+    }
+
+    public boolean isPlayerOneToMove() {
+        return playerOneToMove;
+    }
+
+    public int getConsecutivePasses() {
+        return consecutivePasses;
     }
 
     public long getValidMoves(boolean isPlayerOne) {
-        // Start with 0 valid moves, get the current player's board, and the opponent's board
-        long validMoves = 0L;
         long playerBoard = isPlayerOne ? playerOneBoard : playerTwoBoard;
         long opponentBoard = isPlayerOne ? playerTwoBoard : playerOneBoard;
-        long emptyCells = getEmptyBoard();
-        // For each direction, get the valid moves in that direction, and OR them with the current valid moves (we want to add them)
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, (BOARD_SIZE), BitMasks.DOWN_MASK);
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -BOARD_SIZE, BitMasks.UP_MASK);
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, 1, BitMasks.RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -1, BitMasks.LEFT_MASK);
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -(BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -(BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
-        return validMoves;
+        return getValidMoves(playerBoard, opponentBoard);
+    }
+
+    /**
+     * Get the valid moves of a player without needing a game instance.
+     *
+     * @param playerBoard   the discs of the player to move.
+     * @param opponentBoard the discs of the opponent.
+     * @return a long where every valid move is set to 1.
+     */
+    public static long getValidMoves(long playerBoard, long opponentBoard) {
+        long emptyCells = ~(playerBoard | opponentBoard);
+        // Same directions and masks as getValidMovesInDirection, but every direction is a fixed number of shifts
+        return getValidMovesTowardsLowerIndex(playerBoard, opponentBoard, emptyCells, BOARD_SIZE, BitMasks.DOWN_MASK)
+                | getValidMovesTowardsHigherIndex(playerBoard, opponentBoard, emptyCells, BOARD_SIZE, BitMasks.UP_MASK)
+                | getValidMovesTowardsLowerIndex(playerBoard, opponentBoard, emptyCells, 1, BitMasks.RIGHT_MASK)
+                | getValidMovesTowardsHigherIndex(playerBoard, opponentBoard, emptyCells, 1, BitMasks.LEFT_MASK)
+                | getValidMovesTowardsLowerIndex(playerBoard, opponentBoard, emptyCells, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK)
+                | getValidMovesTowardsLowerIndex(playerBoard, opponentBoard, emptyCells, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK)
+                | getValidMovesTowardsHigherIndex(playerBoard, opponentBoard, emptyCells, BOARD_SIZE - 1, BitMasks.UP_RIGHT_MASK)
+                | getValidMovesTowardsHigherIndex(playerBoard, opponentBoard, emptyCells, BOARD_SIZE + 1, BitMasks.UP_LEFT_MASK);
+    }
+
+    /**
+     * Kogge-Stone occluded fill from the player's discs over the opponent's discs in one direction. The fill covers
+     * runs of up to 7 discs in three steps (1, 2 and 4 squares), so there is no data dependent loop.
+     * The mask removes the squares a one square shift wraps onto, masking the propagator once is enough for the
+     * longer shifts as well.
+     *
+     * @param playerBoard   the discs of the player to move
+     * @param opponentBoard the discs of the opponent
+     * @param emptyCells    the empty squares
+     * @param shift         number of bits one step moves towards the lower indices
+     * @param mask          the squares a one step shift may land on
+     * @return the valid moves in this direction
+     */
+    private static long getValidMovesTowardsLowerIndex(long playerBoard, long opponentBoard, long emptyCells, int shift, long mask) {
+        long propagator = opponentBoard & mask;
+        long flood = playerBoard;
+        flood |= propagator & (flood >>> shift);
+        propagator &= propagator >>> shift;
+        flood |= propagator & (flood >>> (shift << 1));
+        propagator &= propagator >>> (shift << 1);
+        flood |= propagator & (flood >>> (shift << 2));
+        // Only continue from the opponent's discs, a move needs at least one disc to flip
+        return ((flood & opponentBoard) >>> shift) & mask & emptyCells;
+    }
+
+    /**
+     * Mirror of {@link #getValidMovesTowardsLowerIndex(long, long, long, int, long)} for left shifts.
+     */
+    private static long getValidMovesTowardsHigherIndex(long playerBoard, long opponentBoard, long emptyCells, int shift, long mask) {
+        long propagator = opponentBoard & mask;
+        long flood = playerBoard;
+        flood |= propagator & (flood << shift);
+        propagator &= propagator << shift;
+        flood |= propagator & (flood << (shift << 1));
+        propagator &= propagator << (shift << 1);
+        flood |= propagator & (flood << (shift << 2));
+        return ((flood & opponentBoard) << shift) & mask & emptyCells;
+    }
+
+    /**
+     * Get the discs of a player that can never be flipped again, as far as this can be told without searching. The
+     * edges come from {@link BitMasks#EDGE_STABILITY}, a lower bound like the rest. Inside the board a disc is stable
+     * if along each of the four lines through it the line is full, or the disc is next to the edge or to one of the
+     * player's stable discs.
+     *
+     * @param playerBoard   the discs of the player
+     * @param opponentBoard the discs of the opponent
+     * @return a long where every stable disc of the player is set to 1
+     */
+    public static long getStableDiscs(long playerBoard, long opponentBoard) {
+        long stable = getStableEdgeDiscs(playerBoard, opponentBoard);
+        return spreadStability(playerBoard, ~(playerBoard | opponentBoard), stable);
+    }
+
+    /**
+     * A cheaper lower bound of {@link #getStableDiscs(long, long)} without the edge table. The stability only spreads
+     * from the corners and full lines, so a disc on an edge that is not full is stable only if it is connected to a
+     * corner by the player's discs.
+     *
+     * @param playerBoard   the discs of the player
+     * @param opponentBoard the discs of the opponent
+     * @return a long where every disc set to 1 is a stable disc of the player
+     */
+    public static long getStableDiscsLowerBound(long playerBoard, long opponentBoard) {
+        return spreadStability(playerBoard, ~(playerBoard | opponentBoard), 0L);
+    }
+
+    private static long getStableEdgeDiscs(long playerBoard, long opponentBoard) {
+        // Rank 1 and rank 8 are bytes of the board, the a and h files are gathered into a byte by a multiplication
+        long stable = BitMasks.EDGE_STABILITY[(int) (playerBoard & 0xFF) << 8 | (int) (opponentBoard & 0xFF)] & 0xFFL;
+        stable |= (BitMasks.EDGE_STABILITY[(int) (playerBoard >>> 56) << 8 | (int) (opponentBoard >>> 56)] & 0xFFL) << 56;
+        stable |= fileFromByte(BitMasks.EDGE_STABILITY[fileToByte(playerBoard) << 8 | fileToByte(opponentBoard)] & 0xFF);
+        stable |= fileFromByte(BitMasks.EDGE_STABILITY[fileToByte(playerBoard >>> 7) << 8 | fileToByte(opponentBoard >>> 7)] & 0xFF) << 7;
+        return stable;
+    }
+
+    // The a file of the board as a byte, the square of rank n on bit n
+    private static int fileToByte(long board) {
+        return (int) (((board & 0x0101010101010101L) * 0x0102040810204080L) >>> 56);
+    }
+
+    // Inverse of fileToByte, every bit of the byte is moved to its square on the a file
+    private static long fileFromByte(int file) {
+        long diagonal = (file * 0x0101010101010101L) & 0x8040201008040201L;
+        return ((diagonal + 0x7F7F7F7F7F7F7F7FL) >>> 7) & 0x0101010101010101L;
+    }
+
+    /**
+     * Add the discs whose four lines are each full, at the edge or next to a stable disc, until nothing changes.
+     *
+     * @param playerBoard the discs of the player
+     * @param emptyCells  the empty squares
+     * @param stable      discs of the player already known to be stable
+     * @return the stable discs of the player
+     */
+    private static long spreadStability(long playerBoard, long emptyCells, long stable) {
+        // A square next to the edge in a direction counts as stable in that direction, like a full line
+        long horizontal = getFullLines(emptyCells, 1, BitMasks.LEFT_MASK, BitMasks.RIGHT_MASK) | BitMasks.LEFT_AND_RIGHT_EDGES;
+        long vertical = getFullLines(emptyCells, BOARD_SIZE, -1L, -1L) | BitMasks.TOP_AND_BOTTOM_EDGES;
+        long diagonal = getFullLines(emptyCells, BOARD_SIZE + 1, BitMasks.LEFT_MASK, BitMasks.RIGHT_MASK) | BitMasks.EDGES;
+        long antiDiagonal = getFullLines(emptyCells, BOARD_SIZE - 1, BitMasks.RIGHT_MASK, BitMasks.LEFT_MASK) | BitMasks.EDGES;
+        // The spreading starts at the known stable discs or at discs with every line full or at the edge
+        if ((stable | playerBoard & horizontal & vertical & diagonal & antiDiagonal) == 0L) {
+            return 0L;
+        }
+        long previous;
+        do {
+            previous = stable;
+            stable |= playerBoard
+                    & (horizontal | (stable << 1 & BitMasks.LEFT_MASK) | (stable >>> 1 & BitMasks.RIGHT_MASK))
+                    & (vertical | stable << BOARD_SIZE | stable >>> BOARD_SIZE)
+                    & (diagonal | (stable << (BOARD_SIZE + 1) & BitMasks.LEFT_MASK) | (stable >>> (BOARD_SIZE + 1) & BitMasks.RIGHT_MASK))
+                    & (antiDiagonal | (stable << (BOARD_SIZE - 1) & BitMasks.RIGHT_MASK) | (stable >>> (BOARD_SIZE - 1) & BitMasks.LEFT_MASK));
+        } while (stable != previous);
+        return stable;
+    }
+
+    /**
+     * Get the squares whose line in one direction has no empty square. The empty squares are spread along the line
+     * both ways with Kogge-Stone fills, like {@link #getValidMovesTowardsLowerIndex(long, long, long, int, long)}.
+     *
+     * @param emptyCells the empty squares
+     * @param shift      number of bits one step along the line moves
+     * @param higherMask the squares a one step shift towards the higher indices may land on
+     * @param lowerMask  the squares a one step shift towards the lower indices may land on
+     * @return the squares of the full lines
+     */
+    private static long getFullLines(long emptyCells, int shift, long higherMask, long lowerMask) {
+        long propagator = higherMask;
+        long higher = emptyCells;
+        higher |= propagator & (higher << shift);
+        propagator &= propagator << shift;
+        higher |= propagator & (higher << (shift << 1));
+        propagator &= propagator << (shift << 1);
+        higher |= propagator & (higher << (shift << 2));
+        propagator = lowerMask;
+        long lower = emptyCells;
+        lower |= propagator & (lower >>> shift);
+        propagator &= propagator >>> shift;
+        lower |= propagator & (lower >>> (shift << 1));
+        propagator &= propagator >>> (shift << 1);
+        lower |= propagator & (lower >>> (shift << 2));
+        return ~(higher | lower);
     }
 
     public void doFlip(boolean isPlayerOne, long move) {
-        long chipsToFlip = 0L;
         long playerBoard = isPlayerOne ? playerOneBoard : playerTwoBoard;
         long opponentBoard = isPlayerOne ? playerTwoBoard : playerOneBoard;
+        long chipsToFlip = getFlips(playerBoard, opponentBoard, move);
 
-        // Calculate the chips to flip in each direction
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, BOARD_SIZE, BitMasks.DOWN_MASK);
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, -BOARD_SIZE, BitMasks.UP_MASK);
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, 1, BitMasks.RIGHT_MASK);
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, -1, BitMasks.LEFT_MASK);
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, -(BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
-        chipsToFlip |= getChipsToFlipInDirection(playerBoard, opponentBoard, move, -(BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
-
-        // Flip the chips
-        playerBoard ^= chipsToFlip; // XOR to flip the player's chips
-        opponentBoard ^= chipsToFlip; // XOR to flip the opponent's chips
+        // Flip the chips, XOR works for both boards
+        playerOneBoard ^= chipsToFlip;
+        playerTwoBoard ^= chipsToFlip;
+        zobristKey ^= Zobrist.flips(chipsToFlip);
+    }
 
-        // Update the boards
+    /**
+     * Put a disc on an empty square, without flipping anything.
+     *
+     * @param isPlayerOne true if the disc belongs to player one.
+     * @param move        a long with exactly the bit of the square set.
+     */
+    private void placeDisc(boolean isPlayerOne, long move) {
         if (isPlayerOne) {
-            playerOneBoard = playerBoard;
-            playerTwoBoard = opponentBoard;
+            playerOneBoard |= move;
         } else {
-            playerOneBoard = opponentBoard;
-            playerTwoBoard = playerBoard;
+            playerTwoBoard |= move;
         }
+        zobristKey ^= Zobrist.disc(isPlayerOne, move);
+    }
+
+    /**
+     * Get the Zobrist key of the current position (both boards and the side to move). It is updated incrementally by
+     * every move, so reading it is O(1).
+     *
+     * @return the 64 bit Zobrist key, see {@link Zobrist}.
+     */
+    public long getZobristKey() {
+        return playerOneToMove ? zobristKey : zobristKey ^ Zobrist.SIDE_TO_MOVE;
     }
 
     public long getEmptyBoard() {
         return ~(playerOneBoard | playerTwoBoard);
     }
 
-    public long getValidMovesInDirection(long playerBoard, long opponentBoard, long emptyCells, int shift, long mask) {
+    public static long getValidMovesInDirection(long playerBoard, long opponentBoard, long emptyCells, int shift, long mask) {
         long validMoves = 0L;
         // Ternary operator is required because of the way Java handles shifts, and unsigned longs
         // Continue doing shift masks while we don't hit an empty cell, and we hit an opponent's chip
@@ -350,71 +640,17 @@ public class OthelloGame {
         if (playerOneBoard == 0L) return GameStatus.PLAYER_2_WON;
         if (playerTwoBoard == 0L) return GameStatus.PLAYER_1_WON;
         if (getEmptyBoard() == 0L) return determineWinner();
-        if (moveHistory.size() >= 2 && moveHistory.get(moveHistory.size() - 1).x == -1 && moveHistory.get(moveHistory.size() - 2).x == -1)
-            return determineWinner();
+        if (consecutivePasses >= 2) return determineWinner();
         if (!doesValidMoveExist()) return determineWinner();
         return GameStatus.RUNNING;
     }
 
     public boolean doesValidMoveExist() {
-        long validMoves = 0L;
-        long emptyCells = getEmptyBoard();
-
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, (BOARD_SIZE), BitMasks.DOWN_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -BOARD_SIZE, BitMasks.UP_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, 1, BitMasks.RIGHT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -1, BitMasks.LEFT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -(BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -(BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, BOARD_SIZE, BitMasks.DOWN_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -BOARD_SIZE, BitMasks.UP_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, 1, BitMasks.RIGHT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -1, BitMasks.LEFT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -(BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
-        if (validMoves != 0L) return true;
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -(BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
-        return validMoves != 0L;
+        return getValidMoves(playerOneBoard, playerTwoBoard) != 0L || getValidMoves(playerTwoBoard, playerOneBoard) != 0L;
     }
 
     public long getValidMoves() {
-        long validMoves = 0L;
-        long emptyCells = getEmptyBoard();
-
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, (BOARD_SIZE), BitMasks.DOWN_MASK);
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -BOARD_SIZE, BitMasks.UP_MASK);
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, 1, BitMasks.RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -1, BitMasks.LEFT_MASK);
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -(BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerOneBoard, playerTwoBoard, emptyCells, -(BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, BOARD_SIZE, BitMasks.DOWN_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -BOARD_SIZE, BitMasks.UP_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, 1, BitMasks.RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -1, BitMasks.LEFT_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -(BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
-        validMoves |= getValidMovesInDirection(playerTwoBoard, playerOneBoard, emptyCells, -(BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
-        return validMoves;
+        return getValidMoves(playerOneBoard, playerTwoBoard) | getValidMoves(playerTwoBoard, playerOneBoard);
     }
 
     // Translation layer
@@ -562,6 +798,7 @@ public class OthelloGame {
             playerTwoBoard |= 1L << indexToSet;
             playerOneBoard &= ~(1L << indexToSet);
         }
+        zobristKey = Zobrist.hash(playerOneBoard, playerTwoBoard, true);
     }
 
     public List<String> parseValidMoves(long validMoves) {
@@ -604,7 +841,7 @@ public class OthelloGame {
      * @param move the move to add to the history.
      */
     public void addMoveToHistory(PlayerMove move) {
-        moveHistory.add(move);
+        recordMove(move);
     }
 
     /**
@@ -627,11 +864,7 @@ public class OthelloGame {
     }
 
     public String getPlayerTurn() {
-        if (moveHistory.isEmpty()) {
-            return "Player 1";
-        } else {
-            return moveHistory.get(moveHistory.size() - 1).isPlayerOne() ? "Player 2" : "Player 1";
-        }
+        return playerOneToMove ? "Player 1" : "Player 2";
     }
 
     public OthelloGame copy() {
@@ -639,12 +872,15 @@ public class OthelloGame {
         copy.playerOneBoard = playerOneBoard;
         copy.playerTwoBoard = playerTwoBoard;
         copy.moveHistory.addAll(moveHistory);
+        copy.playerOneToMove = playerOneToMove;
+        copy.consecutivePasses = consecutivePasses;
+        copy.zobristKey = zobristKey;
         return copy;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(playerOneBoard, playerTwoBoard, moveHistory.get(moveHistory.size() - 1).isPlayerOne());
+        return Long.hashCode(getZobristKey());
     }
 
     /**
@@ -713,9 +949,10 @@ public class OthelloGame {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         OthelloGame othergame = (OthelloGame) o;
-        return  playerOneBoard == othergame.playerOneBoard &&
+        return playerOneBoard == othergame.playerOneBoard &&
                 playerTwoBoard == othergame.playerTwoBoard &&
-                moveHistory.get(moveHistory.size() - 1).isPlayerOne() == othergame.moveHistory.get(othergame.moveHistory.size() - 1).isPlayerOne(); }
+                playerOneToMove == othergame.playerOneToMove;
+    }
 
     public static String moveHistoryToString(ArrayList<PlayerMove> moveHistory) {
         StringBuilder output = new StringBuilder();
@@ -732,6 +969,25 @@ public class OthelloGame {
         return output.toString();
     }
 
+    /**
+     * Replay a game in the format of othello_dataset.csv, e.g. "f5d6c3". Passes are not part of that format, a pass is
+     * made whenever the side to move has no valid move.
+     *
+     * @param moves the moves, two characters each.
+     * @param count the number of moves to replay, passes not counted.
+     * @return the game after count moves.
+     */
+    public static OthelloGame fromMoveString(String moves, int count) {
+        OthelloGame game = new OthelloGame();
+        for (int i = 0; i < count * 2 && i < moves.length(); i += 2) {
+            if (game.getValidMoves(game.playerOneToMove) == 0L) {
+                game.forceMakeMove(game.playerOneToMove, 0L);
+            }
+            game.forceMakeMove(game.playerOneToMove, convertMove(moves.substring(i, i + 2)));
+        }
+        return game;
+    }
+
     public static Move convertMove(String moveStr) {
         char letter = moveStr.toLowerCase().charAt(0);
         int number = Character.getNumericValue(moveStr.charAt(1));
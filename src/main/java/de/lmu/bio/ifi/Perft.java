@@ -0,0 +1,55 @@
+package de.lmu.bio.ifi;
+
+/**
+ * Perft: count the leaf positions of the full game tree to a fixed depth. Used to validate and benchmark move
+ * generation and make/unmake.
+ * A pass counts as a ply of its own when the side to move has no move but the opponent has. A position where neither
+ * side can move is a finished game and counts as a single leaf, no matter how much depth is left.
+ */
+public final class Perft {
+    private Perft() {
+    }
+
+    /**
+     * @param game  the position to count from, it is restored before returning.
+     * @param depth the number of plies to search.
+     * @return the number of leaf positions at the given depth.
+     */
+    public static long perft(OthelloGame game, int depth) {
+        if (depth <= 0) {
+            return 1L;
+        }
+        boolean isPlayerOne = game.isPlayerOneToMove();
+        long possibleMoves = game.getValidMoves(isPlayerOne);
+        if (possibleMoves == 0L) {
+            if (game.getValidMoves(!isPlayerOne) == 0L) {
+                return 1L;
+            }
+            game.makeMove(isPlayerOne, 0L);
+            long nodes = perft(game, depth - 1);
+            game.unmakeMove(0L, 0L);
+            return nodes;
+        }
+        // bulk count, the moves themselves are the leaves
+        if (depth == 1) {
+            return Long.bitCount(possibleMoves);
+        }
+        long nodes = 0L;
+        while (possibleMoves != 0L) {
+            long move = Long.lowestOneBit(possibleMoves);
+            possibleMoves ^= move;
+            long chipsToFlip = game.makeMove(isPlayerOne, move);
+            nodes += perft(game, depth - 1);
+            game.unmakeMove(move, chipsToFlip);
+        }
+        return nodes;
+    }
+
+    /**
+     * @param depth the number of plies to search from the starting position.
+     * @return the number of leaf positions at the given depth.
+     */
+    public static long perft(int depth) {
+        return perft(new OthelloGame(), depth);
+    }
+}
@@ -0,0 +1,166 @@
+package de.lmu.bio.ifi;
+
+import java.util.Objects;
+
+/**
+ * Lightweight, reusable snapshot of an Othello position: the two bitboards, the side to move and the number of
+ * consecutive passes. It has no move history, so copying a position and playing a move on it is O(1) and allocates
+ * nothing. Search and playout code keeps its own instances and overwrites them with {@link #set(Position)}.
+ */
+public final class Position {
+    private long playerOneBoard;
+    private long playerTwoBoard;
+    private boolean playerOneToMove;
+    private int consecutivePasses;
+
+    /**
+     * Create the starting position, player one to move.
+     */
+    public Position() {
+        this(OthelloGame.START_PLAYER_ONE_BOARD, OthelloGame.START_PLAYER_TWO_BOARD, true, 0);
+    }
+
+    public Position(long playerOneBoard, long playerTwoBoard, boolean playerOneToMove, int consecutivePasses) {
+        set(playerOneBoard, playerTwoBoard, playerOneToMove, consecutivePasses);
+    }
+
+    public Position(Position other) {
+        set(other);
+    }
+
+    /**
+     * Overwrite this position with the state of another one.
+     *
+     * @param other the position to copy.
+     * @return this position.
+     */
+    public Position set(Position other) {
+        return set(other.playerOneBoard, other.playerTwoBoard, other.playerOneToMove, other.consecutivePasses);
+    }
+
+    public Position set(long playerOneBoard, long playerTwoBoard, boolean playerOneToMove, int consecutivePasses) {
+        this.playerOneBoard = playerOneBoard;
+        this.playerTwoBoard = playerTwoBoard;
+        this.playerOneToMove = playerOneToMove;
+        this.consecutivePasses = consecutivePasses;
+        return this;
+    }
+
+    /**
+     * Play a move for the side to move. The move is not validated.
+     *
+     * @param move a long with exactly the bit of the move set, or 0 for a pass.
+     */
+    public void play(long move) {
+        if (move == 0L) {
+            consecutivePasses++;
+        } else {
+            long playerBoard = playerOneToMove ? playerOneBoard : playerTwoBoard;
+            long opponentBoard = playerOneToMove ? playerTwoBoard : playerOneBoard;
+            long chipsToFlip = OthelloGame.getFlips(playerBoard, opponentBoard, move);
+            playerBoard ^= chipsToFlip | move;
+            opponentBoard ^= chipsToFlip;
+            if (playerOneToMove) {
+                playerOneBoard = playerBoard;
+                playerTwoBoard = opponentBoard;
+            } else {
+                playerOneBoard = opponentBoard;
+                playerTwoBoard = playerBoard;
+            }
+            consecutivePasses = 0;
+        }
+        playerOneToMove = !playerOneToMove;
+    }
+
+    /**
+     * @return the valid moves of the side to move.
+     */
+    public long getValidMoves() {
+        return getValidMoves(playerOneToMove);
+    }
+
+    public long getValidMoves(boolean isPlayerOne) {
+        return isPlayerOne ? OthelloGame.getValidMoves(playerOneBoard, playerTwoBoard) : OthelloGame.getValidMoves(playerTwoBoard, playerOneBoard);
+    }
+
+    /**
+     * Same rules as {@link OthelloGame#gameStatus()}, but the pass state is read from the counter instead of the
+     * move history.
+     *
+     * @return the current game status.
+     */
+    public GameStatus gameStatus() {
+        if (playerOneBoard == 0L) return GameStatus.PLAYER_2_WON;
+        if (playerTwoBoard == 0L) return GameStatus.PLAYER_1_WON;
+        if (getEmptyBoard() == 0L || consecutivePasses >= 2) return determineWinner();
+        if (OthelloGame.getValidMoves(playerOneBoard, playerTwoBoard) == 0L && OthelloGame.getValidMoves(playerTwoBoard, playerOneBoard) == 0L) {
+            return determineWinner();
+        }
+        return GameStatus.RUNNING;
+    }
+
+    public GameStatus determineWinner() {
+        int playerOneChips = Long.bitCount(playerOneBoard);
+        int playerTwoChips = Long.bitCount(playerTwoBoard);
+        if (playerOneChips > playerTwoChips) {
+            return GameStatus.PLAYER_1_WON;
+        } else if (playerTwoChips > playerOneChips) {
+            return GameStatus.PLAYER_2_WON;
+        } else {
+            return GameStatus.DRAW;
+        }
+    }
+
+    public long getPlayerOneBoard() {
+        return playerOneBoard;
+    }
+
+    public long getPlayerTwoBoard() {
+        return playerTwoBoard;
+    }
+
+    public long getPlayerBoard(boolean isPlayerOne) {
+        return isPlayerOne ? playerOneBoard : playerTwoBoard;
+    }
+
+    public long getEmptyBoard() {
+        return ~(playerOneBoard | playerTwoBoard);
+    }
+
+    public boolean isPlayerOneToMove() {
+        return playerOneToMove;
+    }
+
+    public int getConsecutivePasses() {
+        return consecutivePasses;
+    }
+
+    public int getAmountOfChipsPlaced() {
+        return Long.bitCount(playerOneBoard) + Long.bitCount(playerTwoBoard);
+    }
+
+    public int getRemainingMoves() {
+        return 64 - getAmountOfChipsPlaced();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Position position = (Position) o;
+        return playerOneBoard == position.playerOneBoard &&
+                playerTwoBoard == position.playerTwoBoard &&
+                playerOneToMove == position.playerOneToMove &&
+                consecutivePasses == position.consecutivePasses;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(playerOneBoard, playerTwoBoard, playerOneToMove, consecutivePasses);
+    }
+
+    @Override
+    public String toString() {
+        return OthelloGame.fromPosition(this).toString();
+    }
+}
@@ -0,0 +1,127 @@
+package de.lmu.bio.ifi;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table for the alpha-beta searches, keyed by {@link OthelloGame#getZobristKey()}.
+ * <p>
+ * Every entry is two longs in one preallocated array: the key XOR the data, and the data (score, depth, bound,
+ * best move and search age packed into one long). A probe only accepts an entry if the two longs XOR back to the
+ * key, so threads can read and write without locks: an entry that was torn by a concurrent write fails the check and
+ * is treated as a miss.
+ * <p>
+ * The entries are grouped into buckets of two. The first slot is depth-preferred, it is only replaced by a search
+ * that is at least as deep or by a newer search. The second slot is always replaced.
+ */
+public class TranspositionTable {
+    public final static int BOUND_EXACT = 1;
+    // The score is at least the stored score (fail high)
+    public final static int BOUND_LOWER = 2;
+    // The score is at most the stored score (fail low)
+    public final static int BOUND_UPPER = 3;
+    // Stored instead of a square when the entry has no best move
+    public final static int NO_MOVE = 64;
+
+    private final static int DEPTH_SHIFT = 32;
+    private final static int BOUND_SHIFT = 40;
+    private final static int MOVE_SHIFT = 42;
+    private final static int AGE_SHIFT = 49;
+
+    private final long[] table;
+    private final int bucketMask;
+    private int age;
+
+    /**
+     * @param sizeInMegabytes the memory to use, rounded down to a power of two number of entries.
+     */
+    public TranspositionTable(int sizeInMegabytes) {
+        // 16 bytes per entry, 32 per bucket
+        long buckets = Long.highestOneBit(Math.max(1L, ((long) sizeInMegabytes << 20) / 32));
+        buckets = Math.min(buckets, 1L << 26);
+        this.table = new long[(int) buckets * 4];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Start a new search. Entries of older searches are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * Look up a position.
+     *
+     * @param key the Zobrist key of the position.
+     * @return the packed entry, or 0 if the position is not in the table. Use the static getters to unpack it.
+     */
+    public long probe(long key) {
+        int index = ((int) key & bucketMask) << 2;
+        long data = table[index + 1];
+        if ((table[index] ^ data) == key && data != 0L) {
+            return data;
+        }
+        data = table[index + 3];
+        if ((table[index + 2] ^ data) == key && data != 0L) {
+            return data;
+        }
+        return 0L;
+    }
+
+    /**
+     * Store a search result.
+     *
+     * @param key   the Zobrist key of the position.
+     * @param depth the remaining depth the score was searched with, 0 to 255.
+     * @param bound one of {@link #BOUND_EXACT}, {@link #BOUND_LOWER} and {@link #BOUND_UPPER}.
+     * @param score the score.
+     * @param move  the best move as a long with exactly one bit set, 0 if there is none.
+     */
+    public void store(long key, int depth, int bound, int score, long move) {
+        int square = move == 0L ? NO_MOVE : Long.numberOfTrailingZeros(move);
+        long data = (score & 0xFFFFFFFFL)
+                | ((long) depth << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) square << MOVE_SHIFT)
+                | ((long) age << AGE_SHIFT);
+        int index = ((int) key & bucketMask) << 2;
+        long deepData = table[index + 1];
+        boolean sameKey = (table[index] ^ deepData) == key;
+        if (sameKey || getDepth(deepData) <= depth || getAge(deepData) != age) {
+            table[index] = key ^ data;
+            table[index + 1] = data;
+        } else {
+            table[index + 2] = key ^ data;
+            table[index + 3] = data;
+        }
+    }
+
+    public static int getScore(long data) {
+        return (int) data;
+    }
+
+    public static int getDepth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int getBound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * @param data a packed entry.
+     * @return the best move as a long with exactly one bit set, 0 if the entry has none.
+     */
+    public static long getMove(long data) {
+        int square = (int) (data >>> MOVE_SHIFT) & 0x7F;
+        return square == NO_MOVE ? 0L : 1L << square;
+    }
+
+    private static int getAge(long data) {
+        return (int) (data >>> AGE_SHIFT) & 0xFF;
+    }
+}
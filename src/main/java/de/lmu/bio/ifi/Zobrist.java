@@ -0,0 +1,87 @@
+package de.lmu.bio.ifi;
+
+import java.util.Random;
+
+/**
+ * Zobrist keys for Othello positions. A key is the XOR of one random number per occupied square and colour, plus
+ * {@link #SIDE_TO_MOVE} when player two is to move. Since a flip changes the colour of a square, it changes the key by
+ * {@link #FLIP}[square], so a move can be applied to a key without looking at the rest of the board.
+ */
+public final class Zobrist {
+    public final static long[] PLAYER_ONE = new long[64];
+    public final static long[] PLAYER_TWO = new long[64];
+    // PLAYER_ONE[i] ^ PLAYER_TWO[i]
+    public final static long[] FLIP = new long[64];
+    public final static long SIDE_TO_MOVE;
+
+    static {
+        // Fixed seed so keys are the same in every run
+        Random random = new Random(0x5DEECE66DL);
+        for (int i = 0; i < 64; i++) {
+            PLAYER_ONE[i] = random.nextLong();
+            PLAYER_TWO[i] = random.nextLong();
+            FLIP[i] = PLAYER_ONE[i] ^ PLAYER_TWO[i];
+        }
+        SIDE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Compute the key of a position from scratch.
+     *
+     * @param playerOneBoard  the discs of player one.
+     * @param playerTwoBoard  the discs of player two.
+     * @param playerOneToMove true if player one is to move.
+     * @return the Zobrist key of the position.
+     */
+    public static long hash(long playerOneBoard, long playerTwoBoard, boolean playerOneToMove) {
+        long key = playerOneToMove ? 0L : SIDE_TO_MOVE;
+        while (playerOneBoard != 0L) {
+            key ^= PLAYER_ONE[Long.numberOfTrailingZeros(playerOneBoard)];
+            playerOneBoard &= playerOneBoard - 1;
+        }
+        while (playerTwoBoard != 0L) {
+            key ^= PLAYER_TWO[Long.numberOfTrailingZeros(playerTwoBoard)];
+            playerTwoBoard &= playerTwoBoard - 1;
+        }
+        return key;
+    }
+
+    /**
+     * @param chipsToFlip the discs that change colour.
+     * @return the key difference of flipping these discs.
+     */
+    public static long flips(long chipsToFlip) {
+        long key = 0L;
+        while (chipsToFlip != 0L) {
+            key ^= FLIP[Long.numberOfTrailingZeros(chipsToFlip)];
+            chipsToFlip &= chipsToFlip - 1;
+        }
+        return key;
+    }
+
+    /**
+     * @param isPlayerOne true if the disc belongs to player one.
+     * @param move        a long with exactly the bit of the disc set.
+     * @return the key difference of placing or removing the disc.
+     */
+    public static long disc(boolean isPlayerOne, long move) {
+        int square = Long.numberOfTrailingZeros(move);
+        return isPlayerOne ? PLAYER_ONE[square] : PLAYER_TWO[square];
+    }
+
+    /**
+     * Key difference of a complete move, the same value applies the move and takes it back. The side to move is not
+     * included.
+     *
+     * @param isPlayerOne true if player one made the move.
+     * @param move        a long with exactly the bit of the move set, 0 for a pass.
+     * @param chipsToFlip the discs flipped by the move.
+     * @return the key difference of the move.
+     */
+    public static long move(boolean isPlayerOne, long move, long chipsToFlip) {
+        return move == 0L ? 0L : disc(isPlayerOne, move) ^ flips(chipsToFlip);
+    }
+}
@@ -0,0 +1,240 @@
+package de.lmu.bio.ifi.evaluation;
+
+import de.lmu.bio.ifi.BitMasks;
+import de.lmu.bio.ifi.OthelloGame;
+
+import java.util.Arrays;
+
+/**
+ * Weighted sum of hand written features and the trained patterns of {@link PatternEvaluator}, the heuristic of the
+ * alpha-beta players. The weights are a table indexed by game phase and feature, for example
+ * {@code weights[phase][Evaluator.MOBILITY]}. The phase of a position is looked up by its number of empty squares, and
+ * for every phase the features with a weight are found once when the evaluator is created, so evaluating computes
+ * only those, in one pass over the bitboards. The features that count discs on squares (matrix, discs and corners)
+ * are added up per square when the evaluator is created, and squares with the same weight are counted together with
+ * one mask.
+ * <p>
+ * Every feature is the difference between the player the score is for and the opponent, so a positive score is good
+ * for that player. Finished games are not scored here, the callers score them by their result.
+ */
+public class Evaluator {
+    // Weighted position of the discs, see BitMasks.WEIGHT_MATRIX
+    public static final int MATRIX = 0;
+    // Moves of the side to move, for the player the score is for
+    public static final int MOBILITY = 1;
+    // Discs that can not be flipped anymore, see OthelloGame.getStableDiscs
+    public static final int STABILITY = 2;
+    // Discs
+    public static final int DISCS = 3;
+    // Discs next to an empty square, subtracted
+    public static final int FRONTIER = 4;
+    // Whether the player gets the last move if nobody passes
+    public static final int PARITY = 5;
+    // Corners
+    public static final int CORNER = 6;
+    // Discs next to a taken corner, for the owner of the corner
+    public static final int CORNER_CLOSENESS = 7;
+    // Moves of the side to move minus the moves it keeps after each of them, weighted with 0.4 per move
+    public static final int MOBILITY_LOOKAHEAD = 8;
+    // Score of the PatternEvaluator for the side to move, in 1 / PatternEvaluator.DISC_SCALE discs
+    public static final int PATTERN = 9;
+    public static final int FEATURES = 10;
+
+    private final int[][] weights;
+    private final PatternEvaluator patternEvaluator;
+    private final int[] features;
+    // Per phase the groups of squares with the same weight for matrix, discs and corners together, and their weights
+    private final long[][] squareMasks;
+    private final int[][] squareWeights;
+    private final int[] phaseOfEmpties = new int[65];
+
+    /**
+     * @param weights   the weights of each phase, each with {@link #FEATURES} entries. The table is copied.
+     * @param phaseEnds the phase boundaries in remaining moves per player, (empty squares / 2) + 1. A position is in
+     *                  phase 0 while its remaining moves are above phaseEnds[0], then in phase 1 while they are above
+     *                  phaseEnds[1] and so on. There is one more phase than boundaries.
+     */
+    public Evaluator(int[][] weights, int... phaseEnds) {
+        this(weights, null, phaseEnds);
+    }
+
+    /**
+     * @param weights          the weights of each phase, each with {@link #FEATURES} entries. The table is copied.
+     * @param patternEvaluator the pattern weights for the {@link #PATTERN} feature, null if no phase weights it.
+     * @param phaseEnds        the phase boundaries, see {@link #Evaluator(int[][], int...)}.
+     */
+    public Evaluator(int[][] weights, PatternEvaluator patternEvaluator, int... phaseEnds) {
+        this.patternEvaluator = patternEvaluator;
+        if (weights.length != phaseEnds.length + 1) {
+            throw new IllegalArgumentException("Expected " + (phaseEnds.length + 1) + " phases, got " + weights.length);
+        }
+        this.weights = new int[weights.length][];
+        this.features = new int[weights.length];
+        this.squareMasks = new long[weights.length][];
+        this.squareWeights = new int[weights.length][];
+        for (int phase = 0; phase < weights.length; phase++) {
+            if (weights[phase].length != FEATURES) {
+                throw new IllegalArgumentException("Expected " + FEATURES + " weights in phase " + phase + ", got " + weights[phase].length);
+            }
+            if (weights[phase][PATTERN] != 0 && patternEvaluator == null) {
+                throw new IllegalArgumentException("Phase " + phase + " weights patterns, but there is no pattern evaluator");
+            }
+            this.weights[phase] = weights[phase].clone();
+            for (int feature = 0; feature < FEATURES; feature++) {
+                if (weights[phase][feature] != 0) {
+                    features[phase] |= 1 << feature;
+                }
+            }
+            groupSquares(phase);
+        }
+        for (int empties = 0; empties <= 64; empties++) {
+            int remainingMoves = empties / 2 + 1;
+            int phase = 0;
+            while (phase < phaseEnds.length && remainingMoves <= phaseEnds[phase]) {
+                phase++;
+            }
+            phaseOfEmpties[empties] = phase;
+        }
+    }
+
+    private void groupSquares(int phase) {
+        int[] phaseWeights = weights[phase];
+        int[] squareWeight = new int[64];
+        for (int square = 0; square < 64; square++) {
+            squareWeight[square] = phaseWeights[DISCS];
+            if ((BitMasks.ALL_CORNER_POSITIONS & 1L << square) != 0) {
+                squareWeight[square] += phaseWeights[CORNER];
+            }
+        }
+        for (int i = 0; i < BitMasks.WEIGHT_MATRIX.length; i++) {
+            for (long squares = BitMasks.WEIGHT_MATRIX[i]; squares != 0L; squares &= squares - 1) {
+                squareWeight[Long.numberOfTrailingZeros(squares)] += BitMasks.WEIGHT_MATRIX_SCORES[i] * phaseWeights[MATRIX];
+            }
+        }
+        long[] masks = new long[64];
+        int[] groupWeights = new int[64];
+        int groups = 0;
+        for (int square = 0; square < 64; square++) {
+            if (squareWeight[square] == 0) {
+                continue;
+            }
+            int group = 0;
+            while (group < groups && groupWeights[group] != squareWeight[square]) {
+                group++;
+            }
+            if (group == groups) {
+                groupWeights[groups++] = squareWeight[square];
+            }
+            masks[group] |= 1L << square;
+        }
+        squareMasks[phase] = Arrays.copyOf(masks, groups);
+        squareWeights[phase] = Arrays.copyOf(groupWeights, groups);
+    }
+
+    /**
+     * @return a weight row with all weights 0, to be filled by feature.
+     */
+    public static int[] emptyWeights() {
+        return new int[FEATURES];
+    }
+
+    /**
+     * Score a running game.
+     *
+     * @param isPlayerOne the player the score is for.
+     * @return the score from the point of view of isPlayerOne.
+     */
+    public int evaluate(OthelloGame game, boolean isPlayerOne) {
+        return evaluate(game.getPlayerOneBoard(), game.getPlayerTwoBoard(), game.isPlayerOneToMove(), isPlayerOne);
+    }
+
+    /**
+     * Score a position given by its bitboards.
+     *
+     * @param playerOneToMove whether player one is the side to move.
+     * @param isPlayerOne     the player the score is for.
+     * @return the score from the point of view of isPlayerOne.
+     */
+    public int evaluate(long playerOneBoard, long playerTwoBoard, boolean playerOneToMove, boolean isPlayerOne) {
+        long myPlayerBoard = isPlayerOne ? playerOneBoard : playerTwoBoard;
+        long opponentBoard = isPlayerOne ? playerTwoBoard : playerOneBoard;
+        long occupied = playerOneBoard | playerTwoBoard;
+        int discs = Long.bitCount(occupied);
+        int phase = phaseOfEmpties[64 - discs];
+        int[] phaseWeights = weights[phase];
+        int phaseFeatures = features[phase];
+        int totalScore = 0;
+
+        long[] masks = squareMasks[phase];
+        int[] maskWeights = squareWeights[phase];
+        for (int i = 0; i < masks.length; i++) {
+            totalScore += (Long.bitCount(myPlayerBoard & masks[i]) - Long.bitCount(opponentBoard & masks[i])) * maskWeights[i];
+        }
+        if ((phaseFeatures & (1 << MOBILITY | 1 << MOBILITY_LOOKAHEAD)) != 0) {
+            long moverBoard = playerOneToMove ? playerOneBoard : playerTwoBoard;
+            long waitingBoard = playerOneToMove ? playerTwoBoard : playerOneBoard;
+            long possibleMoves = OthelloGame.getValidMoves(moverBoard, waitingBoard);
+            int mobility = Long.bitCount(possibleMoves);
+            totalScore += (isPlayerOne ? mobility : -mobility) * phaseWeights[MOBILITY];
+            if ((phaseFeatures & 1 << MOBILITY_LOOKAHEAD) != 0) {
+                int lookahead = mobility;
+                while (possibleMoves != 0L) {
+                    long move = Long.lowestOneBit(possibleMoves);
+                    possibleMoves ^= move;
+                    long chipsToFlip = OthelloGame.getFlips(moverBoard, waitingBoard, move);
+                    lookahead -= Long.bitCount(OthelloGame.getValidMoves(moverBoard ^ chipsToFlip ^ move, waitingBoard ^ chipsToFlip));
+                }
+                totalScore += (isPlayerOne ? lookahead : -lookahead) * phaseWeights[MOBILITY_LOOKAHEAD] * 2 / 5;
+            }
+        }
+        if ((phaseFeatures & 1 << PATTERN) != 0) {
+            // The patterns are trained for the side to move
+            int patternScore = playerOneToMove ? patternEvaluator.evaluate(playerOneBoard, playerTwoBoard) : patternEvaluator.evaluate(playerTwoBoard, playerOneBoard);
+            totalScore += (playerOneToMove == isPlayerOne ? patternScore : -patternScore) * phaseWeights[PATTERN];
+        }
+        if ((phaseFeatures & 1 << STABILITY) != 0) {
+            totalScore += stability(myPlayerBoard, opponentBoard) * phaseWeights[STABILITY];
+        }
+        if ((phaseFeatures & 1 << FRONTIER) != 0) {
+            long emptyNeighbors = neighbors(~occupied);
+            totalScore -= (Long.bitCount(myPlayerBoard & emptyNeighbors) - Long.bitCount(opponentBoard & emptyNeighbors)) * phaseWeights[FRONTIER];
+        }
+        // Player one gets the last move when an even number of discs is on the board
+        totalScore += ((discs & 1) == 0 == isPlayerOne ? 1 : -1) * phaseWeights[PARITY];
+        if ((phaseFeatures & 1 << CORNER_CLOSENESS) != 0) {
+            totalScore += cornerCloseness(myPlayerBoard, opponentBoard) * phaseWeights[CORNER_CLOSENESS];
+        }
+        return totalScore;
+    }
+
+    private static int stability(long myPlayerBoard, long opponentBoard) {
+        return Long.bitCount(OthelloGame.getStableDiscs(myPlayerBoard, opponentBoard))
+                - Long.bitCount(OthelloGame.getStableDiscs(opponentBoard, myPlayerBoard));
+    }
+
+    private static int cornerCloseness(long myPlayerBoard, long opponentBoard) {
+        int cornerClosenessScore = 0;
+        for (int i = 0; i < BitMasks.CORNERS.length; i++) {
+            long corner = BitMasks.CORNERS[i];
+            if (((myPlayerBoard | opponentBoard) & corner) == 0) {
+                continue;
+            }
+            int closeDiscs = Long.bitCount((myPlayerBoard | opponentBoard) & BitMasks.CORNERS_CLOSE_POSITIONS[i]);
+            if ((myPlayerBoard & corner) != 0) {
+                cornerClosenessScore += closeDiscs;
+            } else {
+                cornerClosenessScore -= closeDiscs;
+            }
+        }
+        return cornerClosenessScore;
+    }
+
+    // The shifts the players used before the evaluator, kept so the scores do not change. The masks of the east and
+    // west shifts are swapped, so those wrap around the board edge instead of stopping at it.
+    private static long neighbors(long bitboard) {
+        return (bitboard & BitMasks.UP_MASK) >>> 8 | (bitboard & BitMasks.DOWN_MASK) << 8
+                | (bitboard & BitMasks.RIGHT_MASK) >>> 1 | (bitboard & BitMasks.LEFT_MASK) << 1
+                | (bitboard & BitMasks.RIGHT_MASK & BitMasks.UP_MASK) >>> 9 | (bitboard & BitMasks.LEFT_MASK & BitMasks.UP_MASK) >>> 7
+                | (bitboard & BitMasks.RIGHT_MASK & BitMasks.DOWN_MASK) << 7 | (bitboard & BitMasks.LEFT_MASK & BitMasks.DOWN_MASK) << 9;
+    }
+}
@@ -0,0 +1,381 @@
+package de.lmu.bio.ifi.evaluation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pattern evaluation in the style of Logistello and Edax. The board is cut into patterns, groups of squares whose
+ * contents are read as a base 3 number (0 empty, 1 own disc, 2 opponent disc), and every pattern has a table with a
+ * weight for each of its configurations. The score of a position is the sum of the weights of all pattern instances.
+ * <p>
+ * The patterns are the edge with both X squares, the 2x5 and 3x3 corner blocks and the diagonals of length 4 to 8.
+ * Every pattern is defined once on the top left part of the board and its instances are read from the board turned
+ * into the other orientations, so all instances share one table. The squares of an instance are gathered with shifts
+ * and a multiplication and turned into the base 3 index with {@link #TERNARY}, so evaluating is a fixed sequence of
+ * bit operations and table reads without branches.
+ * <p>
+ * Each game phase, by the number of empty squares, has its own set of tables. Trained weights predict the final disc
+ * difference in units of 1 / {@link #DISC_SCALE} disc and are stored in a binary weight file, see
+ * {@link #load(Path)}. The players load the trained weights with {@link #loadDefault()}.
+ */
+public class PatternEvaluator {
+    public static final int PHASES = 6;
+    public static final int DISC_SCALE = 32;
+    // Written by de.lmu.bio.ifi.training.PatternTrainer into the sources, which are on the classpath as WEIGHTS_RESOURCE
+    public static final Path DEFAULT_WEIGHTS = Paths.get("src/main/java/de/lmu/bio/ifi/data/pattern_weights.bin");
+    public static final String WEIGHTS_RESOURCE = "/de/lmu/bio/ifi/data/pattern_weights.bin";
+    // System property with the path of a weight file to use instead of WEIGHTS_RESOURCE
+    public static final String WEIGHTS_PROPERTY = "othello.patternWeights";
+    // Start of a weight file, followed by the number of phases and of weights per phase and then the weights as shorts
+    private static final int WEIGHT_FILE_MAGIC = 0x50415457;
+    // Empty squares per phase
+    private static final int PHASE_LENGTH = 10;
+
+    public static final int EDGE_2X = 0;
+    public static final int CORNER_3X3 = 1;
+    public static final int CORNER_2X5 = 2;
+    public static final int DIAGONAL_8 = 3;
+    public static final int DIAGONAL_7 = 4;
+    public static final int DIAGONAL_6 = 5;
+    public static final int DIAGONAL_5 = 6;
+    public static final int DIAGONAL_4 = 7;
+    public static final int PATTERNS = 8;
+
+    // Squares of each pattern as {x, y} pairs, in the order of their base 3 digits
+    private static final int[][] PATTERN_SQUARES = {
+            {0, 0, 1, 0, 2, 0, 3, 0, 4, 0, 5, 0, 6, 0, 7, 0, 1, 1, 6, 1},
+            {0, 0, 1, 0, 2, 0, 0, 1, 1, 1, 2, 1, 0, 2, 1, 2, 2, 2},
+            {0, 0, 1, 0, 2, 0, 3, 0, 4, 0, 0, 1, 1, 1, 2, 1, 3, 1, 4, 1},
+            {0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7},
+            {0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7},
+            {0, 2, 1, 3, 2, 4, 3, 5, 4, 6, 5, 7},
+            {0, 3, 1, 4, 2, 5, 3, 6, 4, 7},
+            {0, 4, 1, 5, 2, 6, 3, 7}
+    };
+    // Orientations the instances of each pattern are read in, see orient()
+    private static final int[][] PATTERN_ORIENTATIONS = {
+            {0, 2, 4, 6},
+            {0, 1, 2, 3},
+            {0, 1, 2, 3, 4, 5, 6, 7},
+            {0, 1},
+            {0, 1, 2, 4},
+            {0, 1, 2, 4},
+            {0, 1, 2, 4},
+            {0, 1, 2, 4}
+    };
+    // Start of the table of each pattern in the weights of a phase
+    public static final int[] PATTERN_OFFSETS = new int[PATTERNS];
+    public static final int WEIGHTS_PER_PHASE;
+    public static final int INSTANCES;
+    // Pattern and squares of every instance, in the order of computeIndices()
+    public static final int[] INSTANCE_PATTERNS;
+    public static final int[][] INSTANCE_SQUARES;
+
+    // The base 3 number with the digits of the bits of the index, for up to 10 bits
+    private static final int[] TERNARY = new int[1 << 10];
+    private static final int[] PHASE_OF_DISCS = new int[65];
+
+    // Masks of the diagonals of the patterns on the board in orientation 0
+    private static final long DIAGONAL_8_MASK = 0x8040201008040201L;
+    private static final long DIAGONAL_7_MASK = 0x4020100804020100L;
+    private static final long DIAGONAL_6_MASK = 0x2010080402010000L;
+    private static final long DIAGONAL_5_MASK = 0x1008040201000000L;
+    private static final long DIAGONAL_4_MASK = 0x0804020100000000L;
+    // Moves the square of every file of a diagonal into the top byte, at the bit of its file
+    private static final long GATHER_FILES = 0x0101010101010101L;
+
+    static {
+        int offset = 0;
+        int instances = 0;
+        for (int pattern = 0; pattern < PATTERNS; pattern++) {
+            PATTERN_OFFSETS[pattern] = offset;
+            offset += pow3(PATTERN_SQUARES[pattern].length / 2);
+            instances += PATTERN_ORIENTATIONS[pattern].length;
+        }
+        WEIGHTS_PER_PHASE = offset;
+        INSTANCES = instances;
+        INSTANCE_PATTERNS = new int[INSTANCES];
+        INSTANCE_SQUARES = new int[INSTANCES][];
+        int instance = 0;
+        for (int pattern = 0; pattern < PATTERNS; pattern++) {
+            for (int orientation : PATTERN_ORIENTATIONS[pattern]) {
+                int[] squares = new int[PATTERN_SQUARES[pattern].length / 2];
+                for (int i = 0; i < squares.length; i++) {
+                    squares[i] = orient(PATTERN_SQUARES[pattern][2 * i], PATTERN_SQUARES[pattern][2 * i + 1], orientation);
+                }
+                INSTANCE_PATTERNS[instance] = pattern;
+                INSTANCE_SQUARES[instance++] = squares;
+            }
+        }
+        for (int bits = 0; bits < TERNARY.length; bits++) {
+            for (int digit = 9; digit >= 0; digit--) {
+                TERNARY[bits] = TERNARY[bits] * 3 + (bits >>> digit & 1);
+            }
+        }
+        for (int discs = 0; discs <= 64; discs++) {
+            PHASE_OF_DISCS[discs] = Math.min(PHASES - 1, (64 - discs) / PHASE_LENGTH);
+        }
+    }
+
+    private final int[][] weights;
+
+    /**
+     * @param weights the tables of all patterns per phase, laid out as described by {@link #PATTERN_OFFSETS}.
+     */
+    public PatternEvaluator(int[][] weights) {
+        if (weights.length != PHASES) {
+            throw new IllegalArgumentException("Expected weights for " + PHASES + " phases, got " + weights.length);
+        }
+        for (int[] phaseWeights : weights) {
+            if (phaseWeights.length != WEIGHTS_PER_PHASE) {
+                throw new IllegalArgumentException("Expected " + WEIGHTS_PER_PHASE + " weights per phase, got " + phaseWeights.length);
+            }
+        }
+        this.weights = weights;
+    }
+
+    /**
+     * Memory map a weight file and read the weights.
+     *
+     * @param file a file written by {@link #write(int[][], Path)}.
+     * @return an evaluator with the weights of the file.
+     * @throws IOException if the file cannot be read or does not fit the patterns of this class.
+     */
+    public static PatternEvaluator load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    /**
+     * Load the weights the players use: the file named by the system property {@link #WEIGHTS_PROPERTY} if it is
+     * set, otherwise {@link #WEIGHTS_RESOURCE} from the classpath. The resource is memory mapped if it is a file, and
+     * read into memory if it is inside a jar.
+     *
+     * @return an evaluator with the weights.
+     * @throws IOException if the weights cannot be found or read.
+     */
+    public static PatternEvaluator loadDefault() throws IOException {
+        String file = System.getProperty(WEIGHTS_PROPERTY);
+        if (file != null) {
+            return load(Paths.get(file));
+        }
+        URL resource = PatternEvaluator.class.getResource(WEIGHTS_RESOURCE);
+        if (resource == null) {
+            throw new IOException("Weight file not on the classpath: " + WEIGHTS_RESOURCE);
+        }
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return load(Paths.get(resource.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException("Cannot open the weight file " + resource, e);
+            }
+        }
+        try (InputStream input = resource.openStream()) {
+            return read(ByteBuffer.wrap(input.readAllBytes()), resource.toString());
+        }
+    }
+
+    private static PatternEvaluator read(ByteBuffer buffer, String source) throws IOException {
+        if (buffer.remaining() != weightFileSize() || buffer.getInt() != WEIGHT_FILE_MAGIC || buffer.getInt() != PHASES || buffer.getInt() != WEIGHTS_PER_PHASE) {
+            throw new IOException("Not a weight file for these patterns: " + source);
+        }
+        ShortBuffer shorts = buffer.asShortBuffer();
+        int[][] weights = new int[PHASES][WEIGHTS_PER_PHASE];
+        for (int[] phaseWeights : weights) {
+            for (int i = 0; i < WEIGHTS_PER_PHASE; i++) {
+                phaseWeights[i] = shorts.get();
+            }
+        }
+        return new PatternEvaluator(weights);
+    }
+
+    /**
+     * Write weights to a weight file, every weight has to fit into a short.
+     *
+     * @param weights the tables of all patterns per phase.
+     * @param file    the file to create or overwrite.
+     */
+    public static void write(int[][] weights, Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(weightFileSize());
+        buffer.putInt(WEIGHT_FILE_MAGIC).putInt(PHASES).putInt(WEIGHTS_PER_PHASE);
+        for (int[] phaseWeights : weights) {
+            for (int weight : phaseWeights) {
+                if (weight != (short) weight) {
+                    throw new IllegalArgumentException("Weight does not fit into a short: " + weight);
+                }
+                buffer.putShort((short) weight);
+            }
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static int weightFileSize() {
+        return 3 * Integer.BYTES + PHASES * WEIGHTS_PER_PHASE * Short.BYTES;
+    }
+
+    private static int pow3(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 3;
+        }
+        return result;
+    }
+
+    /**
+     * Square that (x, y) of the board in an orientation is on the board itself. Orientations 1 to 3 mirror the files,
+     * the ranks or both, 4 to 7 do the same to the board with files and ranks swapped.
+     */
+    private static int orient(int x, int y, int orientation) {
+        if ((orientation & 1) != 0) {
+            x = 7 - x;
+        }
+        if ((orientation & 2) != 0) {
+            y = 7 - y;
+        }
+        return orientation >= 4 ? y + 8 * x : x + 8 * y;
+    }
+
+    /**
+     * @return the phase of a position with the number of discs, its index into the weights.
+     */
+    public static int getPhase(int discs) {
+        return PHASE_OF_DISCS[discs];
+    }
+
+    /**
+     * Compute the weight index of every pattern instance square by square, in the order of
+     * {@link #INSTANCE_SQUARES}. Slower than {@link #evaluate(long, long)}, for training and tests.
+     *
+     * @param indices receives {@link #INSTANCES} indices into the weights of a phase.
+     */
+    public static void computeIndices(long player, long opponent, int[] indices) {
+        for (int instance = 0; instance < INSTANCES; instance++) {
+            int[] squares = INSTANCE_SQUARES[instance];
+            int index = 0;
+            for (int digit = squares.length - 1; digit >= 0; digit--) {
+                int state = (int) (player >>> squares[digit] & 1L) + 2 * (int) (opponent >>> squares[digit] & 1L);
+                index = index * 3 + state;
+            }
+            indices[instance] = PATTERN_OFFSETS[INSTANCE_PATTERNS[instance]] + index;
+        }
+    }
+
+    /**
+     * @param player   discs of the player the score is for.
+     * @param opponent discs of the opponent.
+     * @return the sum of the weights of all pattern instances in the phase of the position.
+     */
+    public int evaluate(long player, long opponent) {
+        int[] w = weights[PHASE_OF_DISCS[Long.bitCount(player | opponent)]];
+        // The board in all eight orientations, see orient()
+        long p1 = mirrorFiles(player);
+        long o1 = mirrorFiles(opponent);
+        long p2 = Long.reverseBytes(player);
+        long o2 = Long.reverseBytes(opponent);
+        long p3 = Long.reverseBytes(p1);
+        long o3 = Long.reverseBytes(o1);
+        long p4 = swapFilesAndRanks(player);
+        long o4 = swapFilesAndRanks(opponent);
+        long p5 = mirrorFiles(p4);
+        long o5 = mirrorFiles(o4);
+        long p6 = Long.reverseBytes(p4);
+        long o6 = Long.reverseBytes(o4);
+        long p7 = Long.reverseBytes(p5);
+        long o7 = Long.reverseBytes(o5);
+
+        int edge = PATTERN_OFFSETS[EDGE_2X];
+        int score = w[edge + index(edge2X(player), edge2X(opponent))]
+                + w[edge + index(edge2X(p2), edge2X(o2))]
+                + w[edge + index(edge2X(p4), edge2X(o4))]
+                + w[edge + index(edge2X(p6), edge2X(o6))];
+        int corner3x3 = PATTERN_OFFSETS[CORNER_3X3];
+        score += w[corner3x3 + index(corner3x3(player), corner3x3(opponent))]
+                + w[corner3x3 + index(corner3x3(p1), corner3x3(o1))]
+                + w[corner3x3 + index(corner3x3(p2), corner3x3(o2))]
+                + w[corner3x3 + index(corner3x3(p3), corner3x3(o3))];
+        int corner2x5 = PATTERN_OFFSETS[CORNER_2X5];
+        score += w[corner2x5 + index(corner2x5(player), corner2x5(opponent))]
+                + w[corner2x5 + index(corner2x5(p1), corner2x5(o1))]
+                + w[corner2x5 + index(corner2x5(p2), corner2x5(o2))]
+                + w[corner2x5 + index(corner2x5(p3), corner2x5(o3))]
+                + w[corner2x5 + index(corner2x5(p4), corner2x5(o4))]
+                + w[corner2x5 + index(corner2x5(p5), corner2x5(o5))]
+                + w[corner2x5 + index(corner2x5(p6), corner2x5(o6))]
+                + w[corner2x5 + index(corner2x5(p7), corner2x5(o7))];
+        int diagonal8 = PATTERN_OFFSETS[DIAGONAL_8];
+        score += w[diagonal8 + index(diagonal(player, DIAGONAL_8_MASK), diagonal(opponent, DIAGONAL_8_MASK))]
+                + w[diagonal8 + index(diagonal(p1, DIAGONAL_8_MASK), diagonal(o1, DIAGONAL_8_MASK))];
+        score += diagonals(w, PATTERN_OFFSETS[DIAGONAL_7], DIAGONAL_7_MASK, player, opponent, p1, o1, p2, o2, p4, o4);
+        score += diagonals(w, PATTERN_OFFSETS[DIAGONAL_6], DIAGONAL_6_MASK, player, opponent, p1, o1, p2, o2, p4, o4);
+        score += diagonals(w, PATTERN_OFFSETS[DIAGONAL_5], DIAGONAL_5_MASK, player, opponent, p1, o1, p2, o2, p4, o4);
+        score += diagonals(w, PATTERN_OFFSETS[DIAGONAL_4], DIAGONAL_4_MASK, player, opponent, p1, o1, p2, o2, p4, o4);
+        return score;
+    }
+
+    // The four instances of a short diagonal, in orientations 0, 1, 2 and 4
+    private static int diagonals(int[] w, int offset, long mask, long p0, long o0, long p1, long o1, long p2, long o2, long p4, long o4) {
+        return w[offset + index(diagonal(p0, mask), diagonal(o0, mask))]
+                + w[offset + index(diagonal(p1, mask), diagonal(o1, mask))]
+                + w[offset + index(diagonal(p2, mask), diagonal(o2, mask))]
+                + w[offset + index(diagonal(p4, mask), diagonal(o4, mask))];
+    }
+
+    private static int index(int playerBits, int opponentBits) {
+        return TERNARY[playerBits] + 2 * TERNARY[opponentBits];
+    }
+
+    // First rank and the squares b2 and g2 as bits 8 and 9
+    private static int edge2X(long board) {
+        return (int) (board & 0xFFL | board >>> 1 & 0x100L | board >>> 5 & 0x200L);
+    }
+
+    // a1-c1, a2-c2 and a3-c3 as bits 0-8
+    private static int corner3x3(long board) {
+        return (int) (board & 0x7L | board >>> 5 & 0x38L | board >>> 10 & 0x1C0L);
+    }
+
+    // a1-e1 and a2-e2 as bits 0-9
+    private static int corner2x5(long board) {
+        return (int) (board & 0x1FL | board >>> 3 & 0x3E0L);
+    }
+
+    // The diagonal has one square per file, the product moves each of them to the top byte at the bit of its file
+    private static int diagonal(long board, long mask) {
+        return (int) ((board & mask) * GATHER_FILES >>> 56);
+    }
+
+    /**
+     * @return the board with the files in reverse order, a1 becomes h1.
+     */
+    public static long mirrorFiles(long board) {
+        board = board >>> 1 & 0x5555555555555555L | (board & 0x5555555555555555L) << 1;
+        board = board >>> 2 & 0x3333333333333333L | (board & 0x3333333333333333L) << 2;
+        return board >>> 4 & 0x0F0F0F0F0F0F0F0FL | (board & 0x0F0F0F0F0F0F0F0FL) << 4;
+    }
+
+    /**
+     * @return the board mirrored at the a1-h8 diagonal, a square (x, y) becomes (y, x).
+     */
+    public static long swapFilesAndRanks(long board) {
+        long swap = 0x0F0F0F0F00000000L & (board ^ board << 28);
+        board ^= swap ^ swap >>> 28;
+        swap = 0x3333000033330000L & (board ^ board << 14);
+        board ^= swap ^ swap >>> 14;
+        swap = 0x5500550055005500L & (board ^ board << 7);
+        return board ^ swap ^ swap >>> 7;
+    }
+}
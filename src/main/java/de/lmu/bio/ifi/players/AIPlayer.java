@@ -280,19 +280,8 @@ public class AIPlayer implements Player {
          }
          return true;
      }*/
-    private boolean isStableDisc(OthelloGame game, int x, int y, int playerDisc) {
-        long mask = 1L << (y * OthelloGame.BOARD_SIZE + x);
-        long opponentBoard = playerDisc == OthelloGame.PLAYER_ONE ? game.getPlayerTwoBoard() : game.getPlayerOneBoard();
-        long emptyBoard = game.getEmptyBoard();
-
-        for (int direction : BitMasks.BIT_DIRECTIONS) {
-            long shiftedMask = direction > 0 ? mask >>> direction : mask << -direction;
-            if ((shiftedMask & opponentBoard) != 0 || (shiftedMask & emptyBoard) != 0) {
-                return false;
-            }
-        }
-
-        return true;
+    private boolean isStableDisc(long stableDiscs, int x, int y) {
+        return (stableDiscs & 1L << (y * OthelloGame.BOARD_SIZE + x)) != 0;
     }
 
 
@@ -398,6 +387,8 @@ public class AIPlayer implements Player {
         } else {
             parityScore--;
         }
+        long myStableDiscs = OthelloGame.getStableDiscs(game.getPlayerBoard(isPlayerOne), game.getPlayerBoard(!isPlayerOne));
+        long opponentStableDiscs = OthelloGame.getStableDiscs(game.getPlayerBoard(!isPlayerOne), game.getPlayerBoard(isPlayerOne));
         // Score with weight matrix
         for (int y = 0; y < OthelloGame.BOARD_SIZE; y++) {
             for (int x = 0; x < OthelloGame.BOARD_SIZE; x++) {
@@ -408,7 +399,7 @@ public class AIPlayer implements Player {
                         frontierDiscs++;
                     }
                     // Calculate stability
-                    if (isStableDisc(game, x, y, myPlayerDisc)) {
+                    if (isStableDisc(myStableDiscs, x, y)) {
                         stableCount++;
                     }
                 } else if (disc == opponentDisc) {
@@ -417,7 +408,7 @@ public class AIPlayer implements Player {
                         frontierDiscs--;
                     }
                     // Calculate stability
-                    if (isStableDisc(game, x, y, opponentDisc)) {
+                    if (isStableDisc(opponentStableDiscs, x, y)) {
                         stableCount--;
                     }
                 }
@@ -1,11 +1,14 @@
 package de.lmu.bio.ifi.players;
 
 import de.lmu.bio.ifi.*;
-import de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater;
+import de.lmu.bio.ifi.evaluation.Evaluator;
+import de.lmu.bio.ifi.evaluation.PatternEvaluator;
+import de.lmu.bio.ifi.players.alphabeta.EndgameSolver;
+import de.lmu.bio.ifi.players.alphabeta.ParallelSearch;
 import szte.mi.Move;
 import szte.mi.Player;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.List;
 import java.util.Random;
 
@@ -14,16 +17,31 @@ public class AlphaBetaPlayer implements Player {
     private static final int TIME_TO_SUBTRACT_EACH_MOVE = 15;
     private static final int FIRST_PHASE_END_MOVE = 40;
     private static final int SECOND_PHASE_END_MOVE = 9;
-    private HashMap<String, Integer> FIRST_PHASE_WEIGHTS;
-    private HashMap<String, Integer> SECOND_PHASE_WEIGHTS;
-    private HashMap<String, Integer> THIRD_PHASE_WEIGHTS;
+    private static final int TRANSPOSITION_TABLE_SIZE_MB = 16;
+    // Number of empties from which on the game is solved exactly
+    private static final int ENDGAME_EMPTIES = 20;
+    private static final int THREADS = 1;
+    private Evaluator evaluator;
     private OthelloGame mainGame;
     private boolean isPlayerOne;
     private OpeningBook openingBook;
     private boolean stillInOpeningBook = true;
+    private TranspositionTable transpositionTable;
+    private ParallelSearch search;
+    private EndgameSolver endgameSolver;
+    private int endgameEmpties = ENDGAME_EMPTIES;
+    private boolean usePatterns;
+    private final int threads;
+
+    public AlphaBetaPlayer() {
+        this(THREADS);
+    }
 
-    private static int calcDiscScore(long myPlayerBoard, long opponentBoard) {
-        return Long.bitCount(myPlayerBoard) - Long.bitCount(opponentBoard);
+    /**
+     * @param threads the number of search threads, more than one searches with Lazy SMP.
+     */
+    public AlphaBetaPlayer(int threads) {
+        this.threads = threads;
     }
 
     /**
@@ -42,36 +60,44 @@ public class AlphaBetaPlayer implements Player {
         this.mainGame = new OthelloGame();
         this.isPlayerOne = (order == 0);
         this.openingBook = new OpeningBook();
-        FIRST_PHASE_WEIGHTS = new HashMap<>();
-        FIRST_PHASE_WEIGHTS.put("MATRIX", 1);
-        FIRST_PHASE_WEIGHTS.put("MOBILITY", 1);
-        FIRST_PHASE_WEIGHTS.put("STABILITY", 0);
-        FIRST_PHASE_WEIGHTS.put("DISCS", 0);
-        FIRST_PHASE_WEIGHTS.put("FRONTIER", 3);
-        FIRST_PHASE_WEIGHTS.put("CORNER", 50);
-        FIRST_PHASE_WEIGHTS.put("PARITY", isPlayerOne ? 1 : 4);
-        FIRST_PHASE_WEIGHTS.put("CORNER_CLOSENESS", 20);
-
-        SECOND_PHASE_WEIGHTS = new HashMap<>();
-        SECOND_PHASE_WEIGHTS.put("MATRIX", 1);
-        SECOND_PHASE_WEIGHTS.put("MOBILITY", 1);
-        SECOND_PHASE_WEIGHTS.put("STABILITY", 0);
-        SECOND_PHASE_WEIGHTS.put("DISCS", 0);
-        SECOND_PHASE_WEIGHTS.put("FRONTIER", 2);
-        SECOND_PHASE_WEIGHTS.put("CORNER", 50);
-        SECOND_PHASE_WEIGHTS.put("PARITY", isPlayerOne ? 1 : 4);
-        SECOND_PHASE_WEIGHTS.put("CORNER_CLOSENESS", 20);
-
-        THIRD_PHASE_WEIGHTS = new HashMap<>();
-        THIRD_PHASE_WEIGHTS.put("MATRIX", 0);
-        THIRD_PHASE_WEIGHTS.put("MOBILITY", 0);
-        THIRD_PHASE_WEIGHTS.put("STABILITY", 0);
-        THIRD_PHASE_WEIGHTS.put("DISCS", 5);
-        THIRD_PHASE_WEIGHTS.put("FRONTIER", 0);
-        THIRD_PHASE_WEIGHTS.put("CORNER", 5);
-        THIRD_PHASE_WEIGHTS.put("PARITY", isPlayerOne ? 1 : 4);
-        THIRD_PHASE_WEIGHTS.put("CORNER_CLOSENESS", 3);
+        this.transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_SIZE_MB);
+        int[] firstPhaseWeights = Evaluator.emptyWeights();
+        firstPhaseWeights[Evaluator.MATRIX] = 1;
+        firstPhaseWeights[Evaluator.MOBILITY_LOOKAHEAD] = 1;
+        firstPhaseWeights[Evaluator.FRONTIER] = 3;
+        firstPhaseWeights[Evaluator.CORNER] = 50;
+        firstPhaseWeights[Evaluator.PARITY] = isPlayerOne ? 1 : 4;
+        firstPhaseWeights[Evaluator.CORNER_CLOSENESS] = 20;
+
+        int[] secondPhaseWeights = Evaluator.emptyWeights();
+        secondPhaseWeights[Evaluator.MATRIX] = 1;
+        secondPhaseWeights[Evaluator.MOBILITY_LOOKAHEAD] = 1;
+        secondPhaseWeights[Evaluator.FRONTIER] = 2;
+        secondPhaseWeights[Evaluator.CORNER] = 50;
+        secondPhaseWeights[Evaluator.PARITY] = isPlayerOne ? 1 : 4;
+        secondPhaseWeights[Evaluator.CORNER_CLOSENESS] = 20;
+
+        int[] thirdPhaseWeights = Evaluator.emptyWeights();
+        thirdPhaseWeights[Evaluator.DISCS] = 5;
+        thirdPhaseWeights[Evaluator.CORNER] = 5;
+        thirdPhaseWeights[Evaluator.PARITY] = isPlayerOne ? 1 : 4;
+        thirdPhaseWeights[Evaluator.CORNER_CLOSENESS] = 3;
+        this.evaluator = createEvaluator(firstPhaseWeights, secondPhaseWeights, thirdPhaseWeights);
+        if (usePatterns) {
+            try {
+                int[] patternWeights = Evaluator.emptyWeights();
+                patternWeights[Evaluator.PATTERN] = 1;
+                this.evaluator = new Evaluator(new int[][]{patternWeights, patternWeights, patternWeights}, PatternEvaluator.loadDefault(), FIRST_PHASE_END_MOVE, SECOND_PHASE_END_MOVE);
+            } catch (IOException e) {
+                System.out.println("Pattern weights not loaded, playing with the hand written features: " + e.getMessage());
+            }
+        }
 
+        if (search != null) {
+            search.shutdown();
+        }
+        this.search = new ParallelSearch(threads, isPlayerOne, evaluator, transpositionTable);
+        this.endgameSolver = new EndgameSolver();
 
     }
 
@@ -122,75 +148,83 @@ public class AlphaBetaPlayer implements Player {
         }
 
 
-        long bestMove = findBestMoveIterative(mainGame, possibleMoves, t - (System.currentTimeMillis() - startTime), isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS);
+        long time = t - (System.currentTimeMillis() - startTime);
+        int remainingMovesToMake = (mainGame.getRemainingMoves() / 2) + 1;
+        long timeForMove = (time / remainingMovesToMake) - TIME_TO_SUBTRACT_EACH_MOVE;
+        if (mainGame.getRemainingMoves() <= endgameEmpties) {
+            // Half of the time, so the heuristic search still has time if the solve does not finish
+            long solvedMove = endgameSolver.solve(mainGame, timeForMove / 2);
+            if (endgameSolver.isSolved()) {
+                System.out.printf("Endgame solved: %d, %d nodes in %d ms (%.0f nodes/s)%n", endgameSolver.getScore(), endgameSolver.getNodes(), endgameSolver.getSolveTime(), endgameSolver.getNodesPerSecond());
+                mainGame.forceMakeMove(isPlayerOne, solvedMove);
+                return OthelloGame.longToMove(solvedMove);
+            }
+            // Not solved in time, fall back to the heuristic search and only try again with fewer empties
+            System.out.println("Endgame not solved after " + endgameSolver.getNodes() + " nodes");
+            endgameEmpties = mainGame.getRemainingMoves() - 1;
+            timeForMove = Math.max(1, timeForMove - endgameSolver.getSolveTime());
+        }
+        long bestMove = search.searchForTime(mainGame, timeForMove);
+        System.out.println("Depth: " + search.getMainSearch().getCompletedDepth());
+        System.out.println("Best score: " + search.getMainSearch().getBestScore());
+        System.out.printf("Nodes: %d, first move cutoffs: %.1f%%%n", search.getNodes(), search.getMainSearch().getMoveOrdering().getFirstMoveCutoffRate() * 100);
         mainGame.forceMakeMove(isPlayerOne, bestMove);
 //        System.out.println(mainGame);
         return OthelloGame.longToMove(bestMove);
     }
 
-    private static long findBestMoveIterative(OthelloGame game, long possibleMoves, long time, boolean isPlayerOne, HashMap<String, Integer> FIRST_PHASE_WEIGHTS, HashMap<String, Integer> SECOND_PHASE_WEIGHTS, HashMap<String, Integer> THIRD_PHASE_WEIGHTS) {
-        long bestMove = 0L;
-        int bestScore = Integer.MIN_VALUE;
-        int alpha = Integer.MIN_VALUE;
-        int beta = Integer.MAX_VALUE;
-        long moves = possibleMoves;
-        int remainingMovesTotal = game.getRemainingMoves();
-        int remainingMovesToMake = (remainingMovesTotal / 2) + 1;
-        long timeForMove = (time / remainingMovesToMake) - TIME_TO_SUBTRACT_EACH_MOVE;
-        long endTime = System.currentTimeMillis() + timeForMove;
-        int depth = 0;
-        while (endTime > System.currentTimeMillis() && depth <= remainingMovesTotal) {
-            moves = possibleMoves;
-            while (moves != 0) {
-                long testMove = Long.lowestOneBit(moves);
-                moves ^= testMove;
-                if (testMove != 0L) {
-                    OthelloGame tempGame = game.copy();
-                    tempGame.forceMakeMove(isPlayerOne, testMove);
-                    GameStatus gameStatus = tempGame.gameStatus();
-                    int score = gameStatus == GameStatus.RUNNING ? minValue(tempGame, depth, alpha, beta, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS) : scoreGame(tempGame, gameStatus, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS);
-                    if (score > bestScore) {
-                        bestScore = score;
-                        bestMove = testMove;
-                        alpha = Math.max(alpha, bestScore); // Update alpha here
-                    }
-                }
-            }
-            depth++;
-        }
-        System.out.println("Depth: " + depth);
-        System.out.println("Best score: " + bestScore);
+    /**
+     * Search the game to a fixed depth with this player's weights, without opening book or time control.
+     * This player has to be the side to move.
+     *
+     * @param game  the game to search, it is restored before returning.
+     * @param depth the search depth below the root moves.
+     * @return the best move found.
+     */
+    public long findBestMove(OthelloGame game, int depth) {
+        return search.searchToDepth(game, depth + 1);
+    }
 
-        if (bestMove == 0L) {
-            // If no move was found, make a random move
-            System.out.println("No move found, making random move");
-            int numberOfPossibleMoves = Long.bitCount(possibleMoves);
-            int randomMoveIndex = new Random().nextInt(numberOfPossibleMoves);
-            for (int i = 0; i <= randomMoveIndex; i++) {
-                bestMove = Long.lowestOneBit(possibleMoves);
-                possibleMoves ^= bestMove; // unset the current lowest set bit
-            }
-        }
+    /**
+     * Choose the evaluation for the next game. The evaluator is built in {@link #init(int, long, Random)}, so calling
+     * this between the moves of a game has no effect until the player is initialized again.
+     *
+     * @param usePatterns whether to evaluate with the trained weights of {@link PatternEvaluator} alone instead of the
+     *                    hand written features.
+     */
+    public void setUsePatterns(boolean usePatterns) {
+        this.usePatterns = usePatterns;
+    }
 
-        return bestMove;
+    /**
+     * @param endgameEmpties the number of empties from which on the game is solved exactly, 0 turns the solver off.
+     */
+    public void setEndgameEmpties(int endgameEmpties) {
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * Forget all positions searched so far, so the next search starts from an empty transposition table.
+     */
+    public void clearTranspositionTable() {
+        transpositionTable.clear();
     }
 
-    public static long findBestMove(OthelloGame game, long possibleMoves, long time, boolean isPlayerOne, HashMap<String, Integer> FIRST_PHASE_WEIGHTS, HashMap<String, Integer> SECOND_PHASE_WEIGHTS, HashMap<String, Integer> THIRD_PHASE_WEIGHTS, int depth) {
+    public static long findBestMove(OthelloGame game, long possibleMoves, long time, boolean isPlayerOne, Evaluator evaluator, int depth) {
         long bestMove = 0L;
         int bestScore = Integer.MIN_VALUE;
         int alpha = Integer.MIN_VALUE;
         int beta = Integer.MAX_VALUE;
         long moves = possibleMoves;
-        int remainingMovesToMake = (game.getRemainingMoves() / 2) + 1;
 
         while (moves != 0) {
             long testMove = Long.lowestOneBit(moves);
             moves ^= testMove;
             if (testMove != 0L) {
-                OthelloGame tempGame = game.copy();
-                tempGame.forceMakeMove(isPlayerOne, testMove);
-                GameStatus gameStatus = tempGame.gameStatus();
-                int score = gameStatus == GameStatus.RUNNING ? minValue(tempGame, depth, alpha, beta, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS) : scoreGame(tempGame, gameStatus, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS);
+                long chipsToFlip = game.makeMove(isPlayerOne, testMove);
+                GameStatus gameStatus = game.gameStatus();
+                int score = gameStatus == GameStatus.RUNNING ? minValue(game, depth, alpha, beta, isPlayerOne, evaluator) : scoreGame(game, gameStatus, isPlayerOne, evaluator);
+                game.unmakeMove(testMove, chipsToFlip);
                 if (score > bestScore) {
                     bestScore = score;
                     bestMove = testMove;
@@ -215,16 +249,16 @@ public class AlphaBetaPlayer implements Player {
 
     }
 
-    private static int minValue(OthelloGame game, int depth, int alpha, int beta, boolean isPlayerOne, HashMap<String, Integer> FIRST_PHASE_WEIGHTS, HashMap<String, Integer> SECOND_PHASE_WEIGHTS, HashMap<String, Integer> THIRD_PHASE_WEIGHTS) {
+    private static int minValue(OthelloGame game, int depth, int alpha, int beta, boolean isPlayerOne, Evaluator evaluator) {
         GameStatus gameStatus = game.gameStatus();
         if (depth == 0 || gameStatus != GameStatus.RUNNING) {
-            return scoreGame(game, gameStatus, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS);
+            return scoreGame(game, gameStatus, isPlayerOne, evaluator);
         }
         long possibleMoves = game.getValidMoves(!isPlayerOne);
         if (Long.bitCount(possibleMoves) <= 1) {
-            OthelloGame tempGame = game.copy();
-            tempGame.forceMakeMove(!isPlayerOne, possibleMoves);
-            beta = Math.min(beta, maxValue(tempGame, depth - 1, alpha, beta, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS));
+            long chipsToFlip = game.makeMove(!isPlayerOne, possibleMoves);
+            beta = Math.min(beta, maxValue(game, depth - 1, alpha, beta, isPlayerOne, evaluator));
+            game.unmakeMove(possibleMoves, chipsToFlip);
             if (beta <= alpha) {
                 return alpha;
             }
@@ -234,9 +268,9 @@ public class AlphaBetaPlayer implements Player {
                 long testMove = Long.lowestOneBit(moves);
                 moves ^= testMove;
                 if (testMove != 0L) {
-                    OthelloGame tempGame = game.copy();
-                    tempGame.forceMakeMove(!isPlayerOne, testMove);
-                    beta = Math.min(beta, maxValue(tempGame, depth - 1, alpha, beta, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS));
+                    long chipsToFlip = game.makeMove(!isPlayerOne, testMove);
+                    beta = Math.min(beta, maxValue(game, depth - 1, alpha, beta, isPlayerOne, evaluator));
+                    game.unmakeMove(testMove, chipsToFlip);
                     if (beta <= alpha) {
                         return alpha;
                     }
@@ -246,16 +280,16 @@ public class AlphaBetaPlayer implements Player {
         return beta;
     }
 
-    private static int maxValue(OthelloGame game, int depth, int alpha, int beta, boolean isPlayerOne, HashMap<String, Integer> FIRST_PHASE_WEIGHTS, HashMap<String, Integer> SECOND_PHASE_WEIGHTS, HashMap<String, Integer> THIRD_PHASE_WEIGHTS) {
+    private static int maxValue(OthelloGame game, int depth, int alpha, int beta, boolean isPlayerOne, Evaluator evaluator) {
         GameStatus gameStatus = game.gameStatus();
         if (depth == 0 || gameStatus != GameStatus.RUNNING) {
-            return scoreGame(game, gameStatus, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS);
+            return scoreGame(game, gameStatus, isPlayerOne, evaluator);
         }
         long possibleMoves = game.getValidMoves(isPlayerOne);
         if (Long.bitCount(possibleMoves) <= 1) {
-            OthelloGame tempGame = game.copy();
-            tempGame.forceMakeMove(isPlayerOne, possibleMoves);
-            alpha = Math.max(alpha, minValue(tempGame, depth - 1, alpha, beta, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS));
+            long chipsToFlip = game.makeMove(isPlayerOne, possibleMoves);
+            alpha = Math.max(alpha, minValue(game, depth - 1, alpha, beta, isPlayerOne, evaluator));
+            game.unmakeMove(possibleMoves, chipsToFlip);
             if (alpha >= beta) {
                 return beta;
             }
@@ -265,9 +299,9 @@ public class AlphaBetaPlayer implements Player {
                 long testMove = Long.lowestOneBit(moves);
                 moves ^= testMove;
                 if (testMove != 0L) {
-                    OthelloGame tempGame = game.copy();
-                    tempGame.forceMakeMove(isPlayerOne, testMove);
-                    alpha = Math.max(alpha, minValue(tempGame, depth - 1, alpha, beta, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS));
+                    long chipsToFlip = game.makeMove(isPlayerOne, testMove);
+                    alpha = Math.max(alpha, minValue(game, depth - 1, alpha, beta, isPlayerOne, evaluator));
+                    game.unmakeMove(testMove, chipsToFlip);
                     if (alpha >= beta) {
                         return beta;
                     }
@@ -277,7 +311,28 @@ public class AlphaBetaPlayer implements Player {
         return alpha;
     }
 
-    private static int scoreGame(OthelloGame game, GameStatus gameStatus, boolean isPlayerOne, HashMap<String, Integer> FIRST_PHASE_WEIGHTS, HashMap<String, Integer> SECOND_PHASE_WEIGHTS, HashMap<String, Integer> THIRD_PHASE_WEIGHTS) {
+    /**
+     * Create an evaluator with the phases of this player, the first phase lasts until 40 moves per player remain,
+     * which never happens in a game, and the third phase starts with 9 remaining moves per player.
+     *
+     * @param firstPhaseWeights  the weights of the first phase, see {@link Evaluator#emptyWeights()}.
+     * @param secondPhaseWeights the weights of the second phase.
+     * @param thirdPhaseWeights  the weights of the third phase.
+     */
+    public static Evaluator createEvaluator(int[] firstPhaseWeights, int[] secondPhaseWeights, int[] thirdPhaseWeights) {
+        return new Evaluator(new int[][]{firstPhaseWeights, secondPhaseWeights, thirdPhaseWeights}, FIRST_PHASE_END_MOVE, SECOND_PHASE_END_MOVE);
+    }
+
+    /**
+     * Score a position with the weights of the current game phase.
+     *
+     * @param game        the position to score.
+     * @param gameStatus  the status of the game, finished games score Integer.MAX_VALUE, Integer.MIN_VALUE or 0.
+     * @param isPlayerOne the player the score is for.
+     * @param evaluator   the weights of the player.
+     * @return the score from the point of view of isPlayerOne.
+     */
+    public static int scoreGame(OthelloGame game, GameStatus gameStatus, boolean isPlayerOne, Evaluator evaluator) {
         if (gameStatus == GameStatus.PLAYER_1_WON) {
             return isPlayerOne ? Integer.MAX_VALUE : Integer.MIN_VALUE;
         } else if (gameStatus == GameStatus.PLAYER_2_WON) {
@@ -285,215 +340,7 @@ public class AlphaBetaPlayer implements Player {
         } else if (gameStatus == GameStatus.DRAW) {
             return 0;
         }
-        int myPlayerDisc = isPlayerOne ? OthelloGame.PLAYER_ONE : OthelloGame.PLAYER_TWO;
-        int opponentDisc = isPlayerOne ? OthelloGame.PLAYER_TWO : OthelloGame.PLAYER_ONE;
-        long myPlayerBoard = isPlayerOne ? game.getPlayerOneBoard() : game.getPlayerTwoBoard();
-        long opponentBoard = isPlayerOne ? game.getPlayerTwoBoard() : game.getPlayerOneBoard();
-        int remainingMoves = game.getRemainingMoves() / 2 + 1;
-        int totalScore = 0;
-
-
-        int matrixWeight, mobilityWeight, stabilityWeight, discsWeight, frontierWeight, cornerWeight, parityWeight, cornerClosenessWeight;
-        if (remainingMoves > FIRST_PHASE_END_MOVE) {
-            matrixWeight = FIRST_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = FIRST_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = FIRST_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = FIRST_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = FIRST_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = FIRST_PHASE_WEIGHTS.get("PARITY");
-            cornerWeight = FIRST_PHASE_WEIGHTS.get("CORNER");
-            cornerClosenessWeight = FIRST_PHASE_WEIGHTS.get("CORNER_CLOSENESS");
-        } else if (remainingMoves > SECOND_PHASE_END_MOVE) {
-            matrixWeight = SECOND_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = SECOND_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = SECOND_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = SECOND_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = SECOND_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = SECOND_PHASE_WEIGHTS.get("PARITY");
-            cornerWeight = SECOND_PHASE_WEIGHTS.get("CORNER");
-            cornerClosenessWeight = SECOND_PHASE_WEIGHTS.get("CORNER_CLOSENESS");
-        } else {
-            matrixWeight = THIRD_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = THIRD_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = THIRD_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = THIRD_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = THIRD_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = THIRD_PHASE_WEIGHTS.get("PARITY");
-            cornerWeight = THIRD_PHASE_WEIGHTS.get("CORNER");
-            cornerClosenessWeight = THIRD_PHASE_WEIGHTS.get("CORNER_CLOSENESS");
-        }
-        if (matrixWeight != 0) {
-            int matrixScore = MatrixEvaluater.getWeightedPieceCount(myPlayerBoard, opponentBoard) * matrixWeight;
-            totalScore += matrixScore;
-//            System.out.println("Matrix Score: " + matrixScore);
-        }
-
-        if (mobilityWeight != 0) {
-            int mobilityScore = (int) (calcMobilityScore(game, isPlayerOne) * mobilityWeight * 0.4);
-            totalScore += mobilityScore;
-//            System.out.println("Mobility Score: " + mobilityScore);
-        }
-
-        if (stabilityWeight != 0) {
-            //TODO
-            int stabilityScore = calcStabilityScore(game, isPlayerOne) * stabilityWeight;
-            totalScore += stabilityScore;
-//            System.out.println("Stability Score: " + stabilityScore);
-        }
-
-        if (discsWeight != 0) {
-            int discScore = calcDiscScore(myPlayerBoard, opponentBoard) * discsWeight;
-            totalScore += discScore;
-//            System.out.println("Disc Score: " + discScore);
-        }
-
-        if (frontierWeight != 0) {
-            int frontierScore = calcFrontierDiscs(game, isPlayerOne) * frontierWeight;
-            totalScore -= frontierScore;
-//            System.out.println("Frontier Score: " + frontierScore);
-        }
-
-        if (parityWeight != 0) {
-            int parityScore = calcParityScore(game, isPlayerOne) * parityWeight;
-            totalScore += parityScore;
-//            System.out.println("Parity Score: " + parityScore);
-        }
-
-        if (cornerWeight != 0) {
-            int cornerScore = calcCornerScore(game, isPlayerOne) * cornerWeight;
-            totalScore += cornerScore;
-//            System.out.println("Corner Score: " + cornerScore);
-        }
-
-        if (cornerClosenessWeight != 0) {
-            int closenessScore = calcCornerClosenessScore(game, isPlayerOne) * cornerClosenessWeight;
-            totalScore += closenessScore;
-//            System.out.println("Corner Closeness Score: " + closenessScore);
-        }
-
-
-        return totalScore;
-    }
-
-    private static int calcCornerScore(OthelloGame game, boolean isPlayerOne) {
-        long playerOneBoard = game.getPlayerOneBoard();
-        long playerTwoBoard = game.getPlayerTwoBoard();
-        long corners = BitMasks.ALL_CORNER_POSITIONS;
-        long playerOneCorners = playerOneBoard & corners;
-        long playerTwoCorners = playerTwoBoard & corners;
-        int cornerScore = Long.bitCount(playerOneCorners) - Long.bitCount(playerTwoCorners);
-
-        return isPlayerOne ? cornerScore : -cornerScore;
-    }
-
-    private static int calcParityScore(OthelloGame game, boolean isPlayerOne) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-
-        int totalMoves = Long.bitCount(playerOneDiscs) + Long.bitCount(playerTwoDiscs);
-        boolean lastMoveIsPlayerOne = totalMoves % 2 == 0;
-        return (lastMoveIsPlayerOne == isPlayerOne) ? 1 : -1;
-    }
-
-    private static int calcStabilityScore(OthelloGame game, boolean isPlayerOne) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-
-
-        return 0;
-    }
-
-    private static int calcMobilityScore(OthelloGame game, boolean isPlayerOne) {
-        // Works
-        int playerTurnNumber = game.getPlayerTurnNumber();
-        boolean isPlayerOneTurn = playerTurnNumber == 1;
-        long possibleMoves = game.getValidMoves(isPlayerOneTurn);
-        int mobilityScore = Long.bitCount(possibleMoves);
-        long moves = possibleMoves;
-        while (moves != 0) {
-            long testMove = Long.lowestOneBit(moves);
-            moves ^= testMove;
-            if (testMove != 0L) {
-                OthelloGame tempGame = game.copy();
-                tempGame.forceMakeMove(isPlayerOneTurn, testMove);
-                mobilityScore -= Long.bitCount(tempGame.getValidMoves(isPlayerOneTurn));
-            }
-        }
-        return isPlayerOne ? mobilityScore : -mobilityScore;
-    }
-
-    private static int calcFrontierDiscs(OthelloGame game, boolean isPlayerOne) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-        long empty = ~(playerOneDiscs | playerTwoDiscs);
-
-        long emptyNeighbors = shiftNorth(empty) | shiftSouth(empty) | shiftEast(empty) | shiftWest(empty) |
-                shiftNorthEast(empty) | shiftNorthWest(empty) | shiftSouthEast(empty) | shiftSouthWest(empty);
-
-        long frontierPlayerOne = playerOneDiscs & emptyNeighbors;
-        long frontierPlayerTwo = playerTwoDiscs & emptyNeighbors;
-
-        int frontierScore = Long.bitCount(frontierPlayerOne) - Long.bitCount(frontierPlayerTwo);
-        return isPlayerOne ? frontierScore : -frontierScore;
-    }
-
-    private static int calcCornerClosenessScore(OthelloGame game, boolean isPlayerOne) {
-        long playerOneBoard = game.getPlayerOneBoard();
-        long playerTwoBoard = game.getPlayerTwoBoard();
-        long[] corners = BitMasks.CORNERS; // An array of bitmasks for each corner
-        long[] cornerCloseness = BitMasks.CORNERS_CLOSE_POSITIONS; // An array of bitmasks for positions close to each corner
-
-        int cornerClosenessScore = 0;
-        for (int i = 0; i < corners.length; i++) {
-            long playerOneCorners = playerOneBoard & corners[i];
-            long playerTwoCorners = playerTwoBoard & corners[i];
-            long playerOneCornerCloseness = playerOneBoard & cornerCloseness[i];
-            long playerTwoCornerCloseness = playerTwoBoard & cornerCloseness[i];
-
-            if (playerOneCorners != 0) {
-                cornerClosenessScore += Long.bitCount(playerOneCornerCloseness);
-                cornerClosenessScore += Long.bitCount(playerTwoCornerCloseness);
-            }
-            if (playerTwoCorners != 0) {
-                cornerClosenessScore -= Long.bitCount(playerTwoCornerCloseness);
-                cornerClosenessScore -= Long.bitCount(playerOneCornerCloseness);
-            }
-        }
-
-        return isPlayerOne ? cornerClosenessScore : -cornerClosenessScore;
-    }
-
-
-    private static long shiftNorth(long bitboard) {
-        return (bitboard & BitMasks.UP_MASK) >>> 8;
-    }
-
-    private static long shiftSouth(long bitboard) {
-        return (bitboard & BitMasks.DOWN_MASK) << 8;
-    }
-
-    private static long shiftEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK) >>> 1;
-    }
-
-    private static long shiftWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK) << 1;
-    }
-
-    private static long shiftNorthEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK & BitMasks.UP_MASK) >>> 9;
-    }
-
-    private static long shiftNorthWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK & BitMasks.UP_MASK) >>> 7;
-    }
-
-    private static long shiftSouthEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK & BitMasks.DOWN_MASK) << 7;
-    }
-
-    private static long shiftSouthWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK & BitMasks.DOWN_MASK) << 9;
+        return evaluator.evaluate(game, isPlayerOne);
     }
 
 }
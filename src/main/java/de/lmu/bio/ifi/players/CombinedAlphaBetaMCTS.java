@@ -1,13 +1,11 @@
 package de.lmu.bio.ifi.players;
 
 import de.lmu.bio.ifi.*;
-import de.lmu.bio.ifi.players.montecarlo.MonteCarloNode;
+import de.lmu.bio.ifi.evaluation.Evaluator;
 import de.lmu.bio.ifi.players.montecarlo.MonteCarloTreeSearch;
-import de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater;
 import szte.mi.Move;
 import szte.mi.Player;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -31,9 +29,7 @@ public class CombinedAlphaBetaMCTS implements Player {
     private static final int TIME_TO_SUBTRACT_EACH_MOVE = 15;
     private static final int FIRST_PHASE_END_MOVE = 40;
     private static final int SECOND_PHASE_END_MOVE = 9;
-    private Map<String, Integer> FIRST_PHASE_WEIGHTS;
-    private Map<String, Integer> SECOND_PHASE_WEIGHTS;
-    private Map<String, Integer> THIRD_PHASE_WEIGHTS;
+    private Evaluator evaluator;
 
 
     /**
@@ -52,36 +48,27 @@ public class CombinedAlphaBetaMCTS implements Player {
         assert order == 0 || order == 1;
         this.mainGame = new OthelloGame();
         this.isPlayerOne = (order == 0);
-        MonteCarloNode root = new MonteCarloNode(mainGame, C);
-        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, root, rnd, C);
-        this.monteCarloTreeSearch.expandNode(root);
+        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, mainGame.toPosition(), rnd, C);
         this.openingBook = new OpeningBook();
-        FIRST_PHASE_WEIGHTS = new HashMap<>();
-        FIRST_PHASE_WEIGHTS.put("MATRIX", 1);
-        FIRST_PHASE_WEIGHTS.put("MOBILITY", 3);
-        FIRST_PHASE_WEIGHTS.put("STABILITY", 0);
-        FIRST_PHASE_WEIGHTS.put("DISCS", 0);
-        FIRST_PHASE_WEIGHTS.put("FRONTIER", 3);
-        FIRST_PHASE_WEIGHTS.put("CORNER", 50);
-        FIRST_PHASE_WEIGHTS.put("PARITY", isPlayerOne ? 1 : 4);
-
-        SECOND_PHASE_WEIGHTS = new HashMap<>();
-        SECOND_PHASE_WEIGHTS.put("MATRIX", 1);
-        SECOND_PHASE_WEIGHTS.put("MOBILITY", 2);
-        SECOND_PHASE_WEIGHTS.put("STABILITY", 0);
-        SECOND_PHASE_WEIGHTS.put("DISCS", 0);
-        SECOND_PHASE_WEIGHTS.put("FRONTIER", 3);
-        SECOND_PHASE_WEIGHTS.put("CORNER", 50);
-        SECOND_PHASE_WEIGHTS.put("PARITY", isPlayerOne ? 1 : 4);
-
-        THIRD_PHASE_WEIGHTS = new HashMap<>();
-        THIRD_PHASE_WEIGHTS.put("MATRIX", 0);
-        THIRD_PHASE_WEIGHTS.put("MOBILITY", 0);
-        THIRD_PHASE_WEIGHTS.put("STABILITY", 0);
-        THIRD_PHASE_WEIGHTS.put("DISCS", 5);
-        THIRD_PHASE_WEIGHTS.put("FRONTIER", 0);
-        THIRD_PHASE_WEIGHTS.put("CORNER", 5);
-        THIRD_PHASE_WEIGHTS.put("PARITY", isPlayerOne ? 1 : 4);
+        int[] firstPhaseWeights = Evaluator.emptyWeights();
+        firstPhaseWeights[Evaluator.MATRIX] = 1;
+        firstPhaseWeights[Evaluator.MOBILITY] = 3;
+        firstPhaseWeights[Evaluator.FRONTIER] = 3;
+        firstPhaseWeights[Evaluator.CORNER] = 50;
+        firstPhaseWeights[Evaluator.PARITY] = isPlayerOne ? 1 : 4;
+
+        int[] secondPhaseWeights = Evaluator.emptyWeights();
+        secondPhaseWeights[Evaluator.MATRIX] = 1;
+        secondPhaseWeights[Evaluator.MOBILITY] = 2;
+        secondPhaseWeights[Evaluator.FRONTIER] = 3;
+        secondPhaseWeights[Evaluator.CORNER] = 50;
+        secondPhaseWeights[Evaluator.PARITY] = isPlayerOne ? 1 : 4;
+
+        int[] thirdPhaseWeights = Evaluator.emptyWeights();
+        thirdPhaseWeights[Evaluator.DISCS] = 5;
+        thirdPhaseWeights[Evaluator.CORNER] = 5;
+        thirdPhaseWeights[Evaluator.PARITY] = isPlayerOne ? 1 : 4;
+        this.evaluator = new Evaluator(new int[][]{firstPhaseWeights, secondPhaseWeights, thirdPhaseWeights}, FIRST_PHASE_END_MOVE, SECOND_PHASE_END_MOVE);
     }
 
 
@@ -109,13 +96,13 @@ public class CombinedAlphaBetaMCTS implements Player {
         if (prevMoveLong != 0L) {
             mainGame.forceMakeMove(!isPlayerOne, prevMoveLong);
             if (remainingMoves > TRANSITIONM_MOVE) {
-                monteCarloTreeSearch.makeMove(prevMoveLong);
+                advanceTree(prevMoveLong);
             }
         } else {
             if (!mainGame.getMoveHistory().isEmpty()) {
                 mainGame.forceMakeMove(!isPlayerOne, prevMoveLong);
                 if (remainingMoves > TRANSITIONM_MOVE) {
-                    monteCarloTreeSearch.makeMove(0L);
+                    advanceTree(0L);
                 }
             }
         }
@@ -124,13 +111,13 @@ public class CombinedAlphaBetaMCTS implements Player {
         if (possibleMoves == 0L) {
             mainGame.forceMakeMove(isPlayerOne, possibleMoves);
             if (remainingMoves > TRANSITIONM_MOVE) {
-                monteCarloTreeSearch.makeMove(possibleMoves);
+                advanceTree(possibleMoves);
             }
             return null;
         } else if (Long.bitCount(possibleMoves) == 1) {
             mainGame.forceMakeMove(isPlayerOne, possibleMoves);
             if (remainingMoves > TRANSITIONM_MOVE) {
-                monteCarloTreeSearch.makeMove(possibleMoves);
+                advanceTree(possibleMoves);
             }
             return OthelloGame.longToMove(possibleMoves);
         }
@@ -141,7 +128,7 @@ public class CombinedAlphaBetaMCTS implements Player {
                 long move = playerMove.toLong();
                 if (move != 0L) {
                     mainGame.forceMakeMove(isPlayerOne, move);
-                    monteCarloTreeSearch.makeMove(move);
+                    advanceTree(move);
                     return playerMove;
                 }
             }
@@ -165,23 +152,25 @@ public class CombinedAlphaBetaMCTS implements Player {
             bestMove = findBestMove(mainGame, possibleMoves, timeToCalculateThisMove);
 
         }
+        mainGame.forceMakeMove(isPlayerOne, bestMove);
         if (remainingMoves > TRANSITIONM_MOVE) {
-            monteCarloTreeSearch.makeMove(bestMove);
+            advanceTree(bestMove);
         }
-
-        mainGame.forceMakeMove(isPlayerOne, bestMove);
         return OthelloGame.longToMove(bestMove);
     }
 
+    // Keep the tree in step with the game, mainGame must already contain the move
+    private void advanceTree(long move) {
+        if (!monteCarloTreeSearch.makeMove(move)) {
+            monteCarloTreeSearch.setRootPosition(mainGame.toPosition());
+        }
+    }
+
 
     public MonteCarloTreeSearch getMonteCarloTreeSearch() {
         return monteCarloTreeSearch;
     }
 
-    private static int calcDiscScore(long myPlayerBoard, long opponentBoard) {
-        return Long.bitCount(myPlayerBoard) - Long.bitCount(opponentBoard);
-    }
-
     private long findBestMove(OthelloGame game, long possibleMoves, long time) {
         long bestMove = 0L;
         int bestScore = Integer.MIN_VALUE;
@@ -298,145 +287,7 @@ public class CombinedAlphaBetaMCTS implements Player {
         } else if (gameStatus == GameStatus.DRAW) {
             return 0;
         }
-        int myPlayerDisc = isPlayerOne ? OthelloGame.PLAYER_ONE : OthelloGame.PLAYER_TWO;
-        int opponentDisc = isPlayerOne ? OthelloGame.PLAYER_TWO : OthelloGame.PLAYER_ONE;
-        long myPlayerBoard = isPlayerOne ? game.getPlayerOneBoard() : game.getPlayerTwoBoard();
-        long opponentBoard = isPlayerOne ? game.getPlayerTwoBoard() : game.getPlayerOneBoard();
-        int remainingMoves = game.getRemainingMoves() / 2 + 1;
-        int totalScore = 0;
-
-
-        int matrixWeight, mobilityWeight, stabilityWeight, discsWeight, frontierWeight, cornerWeight, parityWeight;
-        if (remainingMoves > FIRST_PHASE_END_MOVE) {
-            matrixWeight = FIRST_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = FIRST_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = FIRST_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = FIRST_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = FIRST_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = FIRST_PHASE_WEIGHTS.get("PARITY");
-            cornerWeight = FIRST_PHASE_WEIGHTS.get("CORNER");
-        } else if (remainingMoves > SECOND_PHASE_END_MOVE) {
-            matrixWeight = SECOND_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = SECOND_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = SECOND_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = SECOND_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = SECOND_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = SECOND_PHASE_WEIGHTS.get("PARITY");
-            cornerWeight = SECOND_PHASE_WEIGHTS.get("CORNER");
-        } else {
-            matrixWeight = THIRD_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = THIRD_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = THIRD_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = THIRD_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = THIRD_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = THIRD_PHASE_WEIGHTS.get("PARITY");
-            cornerWeight = THIRD_PHASE_WEIGHTS.get("CORNER");
-        }
-        if (matrixWeight != 0) {
-            // Works
-            totalScore += MatrixEvaluater.getWeightedPieceCount(myPlayerBoard, opponentBoard) * matrixWeight;
-        }
-        if (mobilityWeight != 0) {
-            totalScore += calcMobilityScore(game) * mobilityWeight;
-        }
-        if (stabilityWeight != 0) {
-            //TODO
-            totalScore += calcStabilityScore(game) * stabilityWeight;
-        }
-        if (discsWeight != 0) {
-            totalScore += calcDiscScore(myPlayerBoard, opponentBoard) * discsWeight;
-        }
-        if (frontierWeight != 0) {
-            totalScore -= calcFrontierDiscs(game) * frontierWeight;
-        }
-        if (parityWeight != 0) {
-            totalScore += calcParityScore(game) * parityWeight;
-        }
-        if (cornerWeight != 0) {
-            totalScore += calcCornerScore(game) * cornerWeight;
-        }
-
-        return totalScore;
-    }
-
-    private int calcCornerScore(OthelloGame game) {
-        long playerOneBoard = game.getPlayerOneBoard();
-        long playerTwoBoard = game.getPlayerTwoBoard();
-        long corners = BitMasks.ALL_CORNER_POSITIONS;
-        long playerOneCorners = playerOneBoard & corners;
-        long playerTwoCorners = playerTwoBoard & corners;
-        int cornerScore = Long.bitCount(playerOneCorners) - Long.bitCount(playerTwoCorners);
-        return isPlayerOne ? cornerScore : -cornerScore;
-    }
-
-    private int calcParityScore(OthelloGame game) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-
-        int totalMoves = Long.bitCount(playerOneDiscs) + Long.bitCount(playerTwoDiscs);
-        boolean lastMoveIsPlayerOne = totalMoves % 2 == 0;
-        return (lastMoveIsPlayerOne == isPlayerOne) ? 1 : -1;
-    }
-
-    private int calcStabilityScore(OthelloGame game) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-
-
-        return 0;
-    }
-
-    private int calcMobilityScore(OthelloGame game) {
-        // Works
-        int moves = game.getPlayerTurnNumber() == 1 ? Long.bitCount(game.getValidMoves(true)) : Long.bitCount(game.getValidMoves(false));
-        return isPlayerOne ? moves : -moves;
-    }
-
-    private int calcFrontierDiscs(OthelloGame game) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-        long empty = ~(playerOneDiscs | playerTwoDiscs);
-
-        long emptyNeighbors = shiftNorth(empty) | shiftSouth(empty) | shiftEast(empty) | shiftWest(empty) |
-                shiftNorthEast(empty) | shiftNorthWest(empty) | shiftSouthEast(empty) | shiftSouthWest(empty);
-
-        long frontierPlayerOne = playerOneDiscs & emptyNeighbors;
-        long frontierPlayerTwo = playerTwoDiscs & emptyNeighbors;
-
-        int frontierScore = Long.bitCount(frontierPlayerOne) - Long.bitCount(frontierPlayerTwo);
-        return isPlayerOne ? frontierScore : -frontierScore;
-    }
-
-    private long shiftNorth(long bitboard) {
-        return (bitboard & BitMasks.UP_MASK) >>> 8;
-    }
-
-    private long shiftSouth(long bitboard) {
-        return (bitboard & BitMasks.DOWN_MASK) << 8;
-    }
-
-    private long shiftEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK) >>> 1;
-    }
-
-    private long shiftWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK) << 1;
-    }
-
-    private long shiftNorthEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK & BitMasks.UP_MASK) >>> 9;
-    }
-
-    private long shiftNorthWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK & BitMasks.UP_MASK) >>> 7;
-    }
-
-    private long shiftSouthEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK & BitMasks.DOWN_MASK) << 7;
-    }
-
-    private long shiftSouthWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK & BitMasks.DOWN_MASK) << 9;
+        return evaluator.evaluate(game, isPlayerOne);
     }
 
 }
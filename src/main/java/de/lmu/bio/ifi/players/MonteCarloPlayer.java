@@ -3,7 +3,6 @@ package de.lmu.bio.ifi.players;
 import de.lmu.bio.ifi.OpeningBook;
 import de.lmu.bio.ifi.OthelloGame;
 import de.lmu.bio.ifi.PlayerMove;
-import de.lmu.bio.ifi.players.montecarlo.MonteCarloNode;
 import de.lmu.bio.ifi.players.montecarlo.MonteCarloTreeSearch;
 import szte.mi.Move;
 import szte.mi.Player;
@@ -16,6 +15,7 @@ public class MonteCarloPlayer implements Player {
 
 
     private static double REDUCTION_FACTOR = 1;
+    private static final int THREADS = 1;
     private final double C = 1.52;
     private OthelloGame mainGame;
     private boolean isPlayerOne;
@@ -26,7 +26,21 @@ public class MonteCarloPlayer implements Player {
     private static final Map<Integer, Double> REDUCTION_FACTORS = Map.of(40, 1.5,
             20, 1.5,
             0, 1.0);
+    private final MonteCarloTreeSearch.ParallelMode parallelMode;
+    private final int threads;
 
+    public MonteCarloPlayer() {
+        this(MonteCarloTreeSearch.ParallelMode.NONE, THREADS);
+    }
+
+    /**
+     * @param parallelMode root or tree parallel search if more than one thread is used.
+     * @param threads      the number of search threads.
+     */
+    public MonteCarloPlayer(MonteCarloTreeSearch.ParallelMode parallelMode, int threads) {
+        this.parallelMode = parallelMode;
+        this.threads = threads;
+    }
 
     /**
      * Performs initialization depending on the parameters.
@@ -42,21 +56,25 @@ public class MonteCarloPlayer implements Player {
     @Override
     public void init(int order, long t, Random rnd) {
         assert order == 0 || order == 1;
+        if (this.monteCarloTreeSearch != null) {
+            this.monteCarloTreeSearch.shutdown();
+        }
         this.mainGame = new OthelloGame();
         this.isPlayerOne = (order == 0);
-        MonteCarloNode root = new MonteCarloNode(mainGame, C);
-        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, root, rnd, C);
-        this.monteCarloTreeSearch.expandNode(root);
+        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, mainGame.toPosition(), rnd, C);
+        this.monteCarloTreeSearch.setParallelism(parallelMode, threads);
         this.openingBook = new OpeningBook();
     }
 
     public void init(int order, long t, Random rnd, boolean useOpeningBook) {
         assert order == 0 || order == 1;
+        if (this.monteCarloTreeSearch != null) {
+            this.monteCarloTreeSearch.shutdown();
+        }
         this.mainGame = new OthelloGame();
         this.isPlayerOne = (order == 0);
-        MonteCarloNode root = new MonteCarloNode(mainGame, C);
-        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, root, rnd, C);
-        this.monteCarloTreeSearch.expandNode(root);
+        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, mainGame.toPosition(), rnd, C);
+        this.monteCarloTreeSearch.setParallelism(parallelMode, threads);
         this.stillInOpeningBook = useOpeningBook;
     }
 
@@ -78,22 +96,22 @@ public class MonteCarloPlayer implements Player {
         long prevMoveLong = OthelloGame.moveToLong(prevMove);
         if (prevMoveLong != 0L) {
             mainGame.forceMakeMove(!isPlayerOne, prevMoveLong);
-            monteCarloTreeSearch.makeMove(prevMoveLong);
+            advanceTree(prevMoveLong);
         } else {
             if (!mainGame.getMoveHistory().isEmpty()) {
                 mainGame.forceMakeMove(!isPlayerOne, prevMoveLong);
-                monteCarloTreeSearch.makeMove(0L);
+                advanceTree(0L);
             }
         }
 
         long possibleMoves = mainGame.getValidMoves(isPlayerOne);
         if (possibleMoves == 0L) {
             mainGame.forceMakeMove(isPlayerOne, possibleMoves);
-            monteCarloTreeSearch.makeMove(possibleMoves);
+            advanceTree(possibleMoves);
             return null;
         } else if (Long.bitCount(possibleMoves) == 1) {
             mainGame.forceMakeMove(isPlayerOne, possibleMoves);
-            monteCarloTreeSearch.makeMove(possibleMoves);
+            advanceTree(possibleMoves);
             return OthelloGame.longToMove(possibleMoves);
         }
         if (stillInOpeningBook) {
@@ -103,7 +121,7 @@ public class MonteCarloPlayer implements Player {
                 long move = playerMove.toLong();
                 if (move != 0L) {
                     mainGame.forceMakeMove(isPlayerOne, move);
-                    monteCarloTreeSearch.makeMove(move);
+                    advanceTree(move);
                     return playerMove;
                 }
             }
@@ -126,19 +144,28 @@ public class MonteCarloPlayer implements Player {
         long timeToCalculateThisMove = (long) (((t - elapsedTime) / remainingMoves) * REDUCTION_FACTOR);
 
         bestMove = monteCarloTreeSearch.findNextMove(timeToCalculateThisMove);
-        monteCarloTreeSearch.makeMove(bestMove);
         mainGame.forceMakeMove(isPlayerOne, bestMove);
+        advanceTree(bestMove);
         return OthelloGame.longToMove(bestMove);
     }
 
+    // Keep the tree in step with the game, mainGame must already contain the move
+    private void advanceTree(long move) {
+        if (!monteCarloTreeSearch.makeMove(move)) {
+            monteCarloTreeSearch.setRootPosition(mainGame.toPosition());
+        }
+    }
+
 
     public void init(int order, long t, Random rnd, double Ctotest) {
         assert order == 0 || order == 1;
+        if (this.monteCarloTreeSearch != null) {
+            this.monteCarloTreeSearch.shutdown();
+        }
         this.mainGame = new OthelloGame();
         this.isPlayerOne = (order == 0);
-        MonteCarloNode root = new MonteCarloNode(mainGame, Ctotest);
-        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, root, rnd, Ctotest);
-        this.monteCarloTreeSearch.expandNode(root);
+        this.monteCarloTreeSearch = new MonteCarloTreeSearch(isPlayerOne, mainGame.toPosition(), rnd, Ctotest);
+        this.monteCarloTreeSearch.setParallelism(parallelMode, threads);
         this.openingBook = new OpeningBook();
     }
 
@@ -119,18 +119,18 @@ public class NegaMaxPlayer implements Player {
 
         while (System.currentTimeMillis() - startTime < maxTime && depth <= estimatedMovesLeft) {
             for (Move move : moves) {
-                OthelloGame clonedGame = mainGame.copy();
-                if (clonedGame.gameStatus() == GameStatus.RUNNING) {
-                    clonedGame.makeMove(isPlayerOne, move.x, move.y);
-                    int score = -negamax(clonedGame, depth - 1, !isPlayerOne, startTime, maxTime);
-                    if (score > maxScore) {
-                        maxScore = score;
-                        bestMove = move;
-                    }
+                long moveLong = OthelloGame.moveToLong(move);
+                long chipsToFlip = mainGame.makeMove(isPlayerOne, moveLong);
+                int score = -negamax(mainGame, depth - 1, !isPlayerOne, startTime, maxTime);
+                GameStatus gameStatus = mainGame.gameStatus();
+                mainGame.unmakeMove(moveLong, chipsToFlip);
+                if (score > maxScore) {
+                    maxScore = score;
+                    bestMove = move;
                 }
-                if (clonedGame.gameStatus() == GameStatus.PLAYER_1_WON && isPlayerOne) {
+                if (gameStatus == GameStatus.PLAYER_1_WON && isPlayerOne) {
                     return move;
-                } else if (clonedGame.gameStatus() == GameStatus.PLAYER_2_WON && !isPlayerOne) {
+                } else if (gameStatus == GameStatus.PLAYER_2_WON && !isPlayerOne) {
                     return move;
                 }
             }
@@ -152,17 +152,19 @@ public class NegaMaxPlayer implements Player {
         }
 
         int maxScore = Integer.MIN_VALUE;
-        List<Move> moves = game.parseValidMovesToMoveList(game.getValidMoves(isPlayerOne));
-        if (moves == null || moves.isEmpty()) {
-            OthelloGame clonedGame = game.copy();
-            clonedGame.makeMove(isPlayerOne, -1, -1);
-            int score = -negamax(clonedGame, depth - 1, !isPlayerOne, startTime, maxTime);
+        long possibleMoves = game.getValidMoves(isPlayerOne);
+        if (possibleMoves == 0L) {
+            game.makeMove(isPlayerOne, 0L);
+            int score = -negamax(game, depth - 1, !isPlayerOne, startTime, maxTime);
+            game.unmakeMove(0L, 0L);
             maxScore = Math.max(maxScore, score);
         }
-        for (Move move : moves) {
-            OthelloGame clonedGame = game.copy();
-            clonedGame.makeMove(isPlayerOne, move.x, move.y);
-            int score = -negamax(clonedGame, depth - 1, !isPlayerOne, startTime, maxTime);
+        while (possibleMoves != 0L) {
+            long move = Long.lowestOneBit(possibleMoves);
+            possibleMoves ^= move;
+            long chipsToFlip = game.makeMove(isPlayerOne, move);
+            int score = -negamax(game, depth - 1, !isPlayerOne, startTime, maxTime);
+            game.unmakeMove(move, chipsToFlip);
             maxScore = Math.max(maxScore, score);
         }
 
@@ -261,39 +263,7 @@ public class NegaMaxPlayer implements Player {
     }
 
     private int countStableCoins(OthelloGame game, boolean isPlayerOne) {
-        int stableCoins = 0;
-        long playerCoins = game.getPlayerBoard(isPlayerOne);
-        long opponentCoins = game.getPlayerBoard(!isPlayerOne);
-
-        // Iterate over all discs
-        for (int i = 0; i < 64; i++) {
-            long disc = 1L << i;
-
-            // Skip if the disc is not present or belongs to the opponent
-            if ((playerCoins & disc) == 0) continue;
-
-            // Check if the disc is stable
-            boolean stable = isDiscStable(disc, playerCoins, opponentCoins);
-
-            if (stable) stableCoins++;
-        }
-
-        return stableCoins;
-    }
-
-    private boolean isDiscStable(long disc, long playerCoins, long opponentCoins) {
-        // Directions towards the nearest corners
-
-        for (int direction : BitMasks.BIT_DIRECTIONS) {
-            for (long d = disc; (d & 0x8080808080808080L) == 0; d <<= direction) {
-                // If we encounter an opponent's disc, the disc is not stable
-                if ((d & opponentCoins) != 0) return false;
-                // If we encounter an empty square, break the loop
-                if ((d & (playerCoins | opponentCoins)) == 0) break;
-            }
-        }
-
-        return true;
+        return Long.bitCount(OthelloGame.getStableDiscs(game.getPlayerBoard(isPlayerOne), game.getPlayerBoard(!isPlayerOne)));
     }
 
 }
\ No newline at end of file
@@ -1,50 +1,41 @@
 package de.lmu.bio.ifi.players;
 
 import de.lmu.bio.ifi.*;
-import de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater;
+import de.lmu.bio.ifi.evaluation.Evaluator;
 import szte.mi.Move;
 import szte.mi.Player;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 @Deprecated
 public class NewMiniMax implements Player {
-    private final Map<String, Integer> FIRST_PHASE_WEIGHTS = Map.of(
-            "MATRIX", 2,
-            "MOBILITY", 3,
-            "STABILITY", 1,
-            "DISCS", 0,
-            "FRONTIER", 3,
-            "PARITY", 10
-
-    );
-    private final Map<String, Integer> SECOND_PHASE_WEIGHTS = Map.of(
-            "MATRIX", 1,
-            "MOBILITY", 3,
-            "STABILITY", 2,
-            "DISCS", 0,
-            "FRONTIER", 3,
-            "PARITY", 10
-
-    );
-    private final Map<String, Integer> THIRD_PHASE_WEIGHTS = Map.of(
-            "MATRIX", 0,
-            "MOBILITY", 0,
-            "STABILITY", 0,
-            "DISCS", 5,
-            "FRONTIER", 0,
-            "PARITY", 0
-
-    );
+    private static final int FIRST_PHASE_END_MOVE = 40;
+    private static final int SECOND_PHASE_END_MOVE = 9;
+    private final Evaluator evaluator = createEvaluator();
     private OthelloGame mainGame;
     private boolean isPlayerOne;
     private OpeningBook openingBook;
     private boolean stillInOpeningBook = true;
 
-    private static int calcDiscScore(long myPlayerBoard, long opponentBoard) {
-        return Long.bitCount(myPlayerBoard) - Long.bitCount(opponentBoard);
+    private static Evaluator createEvaluator() {
+        int[] firstPhaseWeights = Evaluator.emptyWeights();
+        firstPhaseWeights[Evaluator.MATRIX] = 2;
+        firstPhaseWeights[Evaluator.MOBILITY] = 3;
+        firstPhaseWeights[Evaluator.STABILITY] = 1;
+        firstPhaseWeights[Evaluator.FRONTIER] = 3;
+        firstPhaseWeights[Evaluator.PARITY] = 10;
+
+        int[] secondPhaseWeights = Evaluator.emptyWeights();
+        secondPhaseWeights[Evaluator.MATRIX] = 1;
+        secondPhaseWeights[Evaluator.MOBILITY] = 3;
+        secondPhaseWeights[Evaluator.STABILITY] = 2;
+        secondPhaseWeights[Evaluator.FRONTIER] = 3;
+        secondPhaseWeights[Evaluator.PARITY] = 10;
+
+        int[] thirdPhaseWeights = Evaluator.emptyWeights();
+        thirdPhaseWeights[Evaluator.DISCS] = 5;
+        return new Evaluator(new int[][]{firstPhaseWeights, secondPhaseWeights, thirdPhaseWeights}, FIRST_PHASE_END_MOVE, SECOND_PHASE_END_MOVE);
     }
 
     /**
@@ -273,132 +264,7 @@ public class NewMiniMax implements Player {
         } else if (status == GameStatus.DRAW) {
             return 0;
         }
-        int myPlayerDisc = isPlayerOne ? OthelloGame.PLAYER_ONE : OthelloGame.PLAYER_TWO;
-        int opponentDisc = isPlayerOne ? OthelloGame.PLAYER_TWO : OthelloGame.PLAYER_ONE;
-        long myPlayerBoard = isPlayerOne ? game.getPlayerOneBoard() : game.getPlayerTwoBoard();
-        long opponentBoard = isPlayerOne ? game.getPlayerTwoBoard() : game.getPlayerOneBoard();
-        int remainingMoves = game.getRemainingMoves() / 2 + 1;
-        int totalScore = 0;
-
-
-        int matrixWeight, mobilityWeight, stabilityWeight, discsWeight, frontierWeight, parityWeight;
-        if (remainingMoves > 40) {
-            matrixWeight = FIRST_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = FIRST_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = FIRST_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = FIRST_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = FIRST_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = FIRST_PHASE_WEIGHTS.get("PARITY");
-        } else if (remainingMoves > 9) {
-            matrixWeight = SECOND_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = SECOND_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = SECOND_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = SECOND_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = SECOND_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = SECOND_PHASE_WEIGHTS.get("PARITY");
-        } else {
-            matrixWeight = THIRD_PHASE_WEIGHTS.get("MATRIX");
-            mobilityWeight = THIRD_PHASE_WEIGHTS.get("MOBILITY");
-            stabilityWeight = THIRD_PHASE_WEIGHTS.get("STABILITY");
-            discsWeight = THIRD_PHASE_WEIGHTS.get("DISCS");
-            frontierWeight = THIRD_PHASE_WEIGHTS.get("FRONTIER");
-            parityWeight = THIRD_PHASE_WEIGHTS.get("PARITY");
-        }
-        if (matrixWeight != 0) {
-            // Works
-            totalScore += MatrixEvaluater.getWeightedPieceCount(myPlayerBoard, opponentBoard) * matrixWeight;
-        }
-        if (mobilityWeight != 0) {
-            totalScore += calcMobilityScore(game) * mobilityWeight;
-        }
-        if (stabilityWeight != 0) {
-            //TODO
-            totalScore += calcStabilityScore(game) * stabilityWeight;
-        }
-        if (discsWeight != 0) {
-            totalScore += calcDiscScore(myPlayerBoard, opponentBoard) * discsWeight;
-        }
-        if (frontierWeight != 0) {
-            totalScore -= calcFrontierDiscs(game) * frontierWeight;
-        }
-        if (parityWeight != 0) {
-            totalScore += calcParityScore(game) * parityWeight;
-        }
-
-        return totalScore;
-    }
-
-    private int calcParityScore(OthelloGame game) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-
-        int totalMoves = Long.bitCount(playerOneDiscs) + Long.bitCount(playerTwoDiscs);
-        boolean lastMoveIsPlayerOne = totalMoves % 2 == 0;
-        return (lastMoveIsPlayerOne == isPlayerOne) ? 1 : -1;
-    }
-
-
-    private int calcStabilityScore(OthelloGame game) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-
-        return 0;
-    }
-
-
-    private int calcMobilityScore(OthelloGame game) {
-        // Works
-        int moves = game.getPlayerTurnNumber() == 1 ? Long.bitCount(game.getValidMoves(true)) : Long.bitCount(game.getValidMoves(false));
-        return isPlayerOne ? moves : -moves;
+        return evaluator.evaluate(game, isPlayerOne);
     }
 
-
-    private int calcFrontierDiscs(OthelloGame game) {
-        long playerOneDiscs = game.getPlayerOneBoard();
-        long playerTwoDiscs = game.getPlayerTwoBoard();
-        long empty = ~(playerOneDiscs | playerTwoDiscs);
-
-        long emptyNeighbors = shiftNorth(empty) | shiftSouth(empty) | shiftEast(empty) | shiftWest(empty) |
-                shiftNorthEast(empty) | shiftNorthWest(empty) | shiftSouthEast(empty) | shiftSouthWest(empty);
-
-        long frontierPlayerOne = playerOneDiscs & emptyNeighbors;
-        long frontierPlayerTwo = playerTwoDiscs & emptyNeighbors;
-
-        int frontierScore = Long.bitCount(frontierPlayerOne) - Long.bitCount(frontierPlayerTwo);
-        return isPlayerOne ? frontierScore : -frontierScore;
-    }
-
-    private long shiftNorth(long bitboard) {
-        return (bitboard & BitMasks.UP_MASK) >>> 8;
-    }
-
-    private long shiftSouth(long bitboard) {
-        return (bitboard & BitMasks.DOWN_MASK) << 8;
-    }
-
-    private long shiftEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK) >>> 1;
-    }
-
-    private long shiftWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK) << 1;
-    }
-
-    private long shiftNorthEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK & BitMasks.UP_MASK) >>> 9;
-    }
-
-    private long shiftNorthWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK & BitMasks.UP_MASK) >>> 7;
-    }
-
-    private long shiftSouthEast(long bitboard) {
-        return (bitboard & BitMasks.RIGHT_MASK & BitMasks.DOWN_MASK) << 7;
-    }
-
-    private long shiftSouthWest(long bitboard) {
-        return (bitboard & BitMasks.LEFT_MASK & BitMasks.DOWN_MASK) << 9;
-    }
-
-
 }
@@ -0,0 +1,337 @@
+package de.lmu.bio.ifi.players.alphabeta;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.TranspositionTable;
+import de.lmu.bio.ifi.evaluation.Evaluator;
+
+/**
+ * Iterative deepening negamax search with principal variation search (null window searches for every move after the
+ * first, re-searched when they fail high), aspiration windows around the previous iteration's score and root moves
+ * ordered by the previous iteration's scores. Inner nodes are ordered by a {@link MoveOrdering}.
+ * Positions are evaluated with an {@link Evaluator} from the point of view of the player this search
+ * plays for, negamax negates the score for the opponent's nodes.
+ */
+public class AlphaBetaSearch {
+    public static final int INFINITY = Integer.MAX_VALUE;
+    // Finished games score WIN_SCORE plus the disc difference, far outside the range of the heuristic
+    public static final int WIN_SCORE = 1_000_000;
+    private static final int ASPIRATION_WINDOW = 30;
+    // How often the clock is read, must be a power of two minus one
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private final boolean isPlayerOne;
+    private final Evaluator evaluator;
+    private final TranspositionTable transpositionTable;
+    private final MoveOrdering moveOrdering;
+
+    private OthelloGame game;
+    private long endTime;
+    private boolean stopped;
+    // Set by other threads, see stop()
+    private volatile boolean stopRequested;
+    private long nodes;
+    private int completedDepth;
+    private int bestScore;
+    private final long[] rootMoves = new long[64];
+    private final int[] rootScores = new int[64];
+    private int rootMoveCount;
+
+    public AlphaBetaSearch(boolean isPlayerOne, Evaluator evaluator, TranspositionTable transpositionTable) {
+        this(isPlayerOne, evaluator, transpositionTable, new MoveOrdering());
+    }
+
+    public AlphaBetaSearch(boolean isPlayerOne, Evaluator evaluator, TranspositionTable transpositionTable, MoveOrdering moveOrdering) {
+        this.moveOrdering = moveOrdering;
+        this.isPlayerOne = isPlayerOne;
+        this.evaluator = evaluator;
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Search until the time is used up. An iteration that is not finished in time is thrown away, and no new
+     * iteration is started once half of the time is gone.
+     *
+     * @param game      the game to search, this player has to be the side to move. It is restored before returning.
+     * @param timeLimit the time for this search in ms.
+     * @return the best move of the deepest finished iteration.
+     */
+    public long searchForTime(OthelloGame game, long timeLimit) {
+        long startTime = System.currentTimeMillis();
+        stopRequested = false;
+        if (transpositionTable != null) {
+            transpositionTable.newSearch();
+        }
+        return iterate(game, game.getRemainingMoves(), startTime + timeLimit, startTime + timeLimit / 2, 0);
+    }
+
+    /**
+     * Search to a fixed depth without a time limit.
+     *
+     * @param game  the game to search, this player has to be the side to move. It is restored before returning.
+     * @param depth the number of plies to search, including the root move.
+     * @return the best move.
+     */
+    public long searchToDepth(OthelloGame game, int depth) {
+        stopRequested = false;
+        if (transpositionTable != null) {
+            transpositionTable.newSearch();
+        }
+        return iterate(game, depth, Long.MAX_VALUE, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Let a running search return as soon as possible, can be called from any thread. The result is the one of the
+     * last finished iteration.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Clear a {@link #stop()} request before starting a search through {@link #iterate}.
+     */
+    void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Iterative deepening without starting a new transposition table search, so that several searches can work
+     * on the same table for the same move.
+     *
+     * @param depthOffset added to the depth of every iteration, lets parallel searches work on different depths.
+     */
+    long iterate(OthelloGame game, int maxDepth, long endTime, long softEndTime, int depthOffset) {
+        this.game = game;
+        this.endTime = endTime;
+        this.stopped = false;
+        this.nodes = 0;
+        this.completedDepth = 0;
+        moveOrdering.newSearch();
+        rootMoveCount = 0;
+        long possibleMoves = game.getValidMoves(isPlayerOne);
+        while (possibleMoves != 0L) {
+            long move = Long.lowestOneBit(possibleMoves);
+            possibleMoves ^= move;
+            rootMoves[rootMoveCount++] = move;
+        }
+        if (rootMoveCount == 0) {
+            return 0L;
+        }
+
+        long bestMove = rootMoves[0];
+        bestScore = 0;
+        for (int depth = 1 + depthOffset; depth <= Math.max(1, maxDepth); depth++) {
+            int score = aspirationSearch(depth, bestScore);
+            if (stopped) {
+                break;
+            }
+            sortRootMoves();
+            bestMove = rootMoves[0];
+            bestScore = score;
+            completedDepth = depth;
+            // Deeper than the remaining empties is already exact
+            if (depth >= game.getRemainingMoves() || System.currentTimeMillis() >= softEndTime) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Search the root with a window around the previous score, and widen the window on the side it failed on until
+     * the score is inside.
+     */
+    private int aspirationSearch(int depth, int previousScore) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        if (depth > 1 && Math.abs(previousScore) < WIN_SCORE) {
+            alpha = previousScore - delta;
+            beta = previousScore + delta;
+        }
+        while (true) {
+            int score = searchRoot(depth, alpha, beta);
+            if (stopped) {
+                return score;
+            }
+            if (score <= alpha && alpha > -INFINITY) {
+                delta *= 4;
+                alpha = delta > WIN_SCORE ? -INFINITY : previousScore - delta;
+            } else if (score >= beta && beta < INFINITY) {
+                delta *= 4;
+                beta = delta > WIN_SCORE ? INFINITY : previousScore + delta;
+            } else {
+                return score;
+            }
+        }
+    }
+
+    private int searchRoot(int depth, int alpha, int beta) {
+        int best = -INFINITY;
+        for (int i = 0; i < rootMoveCount; i++) {
+            rootScores[i] = -INFINITY;
+        }
+        for (int i = 0; i < rootMoveCount; i++) {
+            long move = rootMoves[i];
+            long chipsToFlip = game.makeMove(isPlayerOne, move);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, 1, -beta, -alpha);
+            } else {
+                score = -negamax(depth - 1, 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, 1, -beta, -alpha);
+                }
+            }
+            game.unmakeMove(move, chipsToFlip);
+            if (stopped) {
+                return best;
+            }
+            rootScores[i] = score;
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Fail soft negamax with principal variation search.
+     *
+     * @param ply the distance from the root.
+     * @return the score from the point of view of the side to move.
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if ((++nodes & TIME_CHECK_MASK) == 0 && (stopRequested || System.currentTimeMillis() >= endTime)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        boolean toMove = game.isPlayerOneToMove();
+        long possibleMoves = game.getValidMoves(toMove);
+        if (possibleMoves == 0L && game.getValidMoves(!toMove) == 0L) {
+            return scoreFinishedGame(toMove);
+        }
+        if (depth <= 0) {
+            int score = evaluator.evaluate(game, isPlayerOne);
+            return toMove == isPlayerOne ? score : -score;
+        }
+        if (possibleMoves == 0L) {
+            game.makeMove(toMove, 0L);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.unmakeMove(0L, 0L);
+            return score;
+        }
+
+        long key = game.getZobristKey();
+        long ttMove = 0L;
+        if (transpositionTable != null) {
+            long entry = transpositionTable.probe(key);
+            if (entry != 0L) {
+                if (TranspositionTable.getDepth(entry) >= depth) {
+                    int score = TranspositionTable.getScore(entry);
+                    int bound = TranspositionTable.getBound(entry);
+                    if (bound == TranspositionTable.BOUND_EXACT
+                            || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                            || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+                ttMove = TranspositionTable.getMove(entry) & possibleMoves;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        long bestMove = 0L;
+        int moveCount = moveOrdering.orderMoves(game, possibleMoves, ttMove, ply, depth);
+        for (int i = 0; i < moveCount; i++) {
+            long move = moveOrdering.getMove(ply, i);
+            long chipsToFlip = game.makeMove(toMove, move);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.unmakeMove(move, chipsToFlip);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        moveOrdering.recordCutoff(game, move, ply, depth, i);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (transpositionTable != null) {
+            int bound = best <= originalAlpha ? TranspositionTable.BOUND_UPPER : best >= beta ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_EXACT;
+            transpositionTable.store(key, depth, bound, best, bestMove);
+        }
+        return best;
+    }
+
+    private int scoreFinishedGame(boolean toMove) {
+        int discDifference = Long.bitCount(game.getPlayerBoard(toMove)) - Long.bitCount(game.getPlayerBoard(!toMove));
+        if (discDifference > 0) {
+            return WIN_SCORE + discDifference;
+        } else if (discDifference < 0) {
+            return -WIN_SCORE + discDifference;
+        }
+        return 0;
+    }
+
+    /**
+     * Stable insertion sort of the root moves by the scores of the last iteration, best first.
+     */
+    private void sortRootMoves() {
+        for (int i = 1; i < rootMoveCount; i++) {
+            long move = rootMoves[i];
+            int score = rootScores[i];
+            int j = i - 1;
+            while (j >= 0 && rootScores[j] < score) {
+                rootMoves[j + 1] = rootMoves[j];
+                rootScores[j + 1] = rootScores[j];
+                j--;
+            }
+            rootMoves[j + 1] = move;
+            rootScores[j + 1] = score;
+        }
+    }
+
+    public MoveOrdering getMoveOrdering() {
+        return moveOrdering;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * @return the score of the last finished iteration, from the point of view of this player.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+}
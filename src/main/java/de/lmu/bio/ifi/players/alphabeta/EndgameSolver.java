@@ -0,0 +1,445 @@
+package de.lmu.bio.ifi.players.alphabeta;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.TranspositionTable;
+
+import static de.lmu.bio.ifi.OthelloGame.getFlips;
+import static de.lmu.bio.ifi.OthelloGame.getValidMoves;
+
+/**
+ * Exact endgame solver. Searches to the end of the game with negamax over the disc difference, working directly on
+ * the two bitboards of the side to move and its opponent instead of an {@link OthelloGame}.
+ * <ul>
+ *     <li>Moves are ordered fastest-first (fewest opponent replies), ties broken by region parity: a move into a
+ *     quadrant with an odd number of empties comes first.</li>
+ *     <li>The last four empties are solved by hand-unrolled routines that only try the empty squares, ordered by
+ *     parity, without generating a move list.</li>
+ *     <li>A node whose opponent already has enough stable discs that the score cannot reach alpha is cut off.</li>
+ *     <li>Positions with {@value #TT_MIN_EMPTIES} or more empties are stored in a transposition table of their own,
+ *     the scores are disc differences and must not be mixed with the heuristic scores of {@link AlphaBetaSearch}.</li>
+ * </ul>
+ */
+public class EndgameSolver {
+    // Outside of any disc difference
+    private static final int INFINITY = 65;
+    private static final int TT_MIN_EMPTIES = 7;
+    private static final int TRANSPOSITION_TABLE_SIZE_MB = 8;
+    private static final int TIME_CHECK_INTERVAL = 4096;
+    private static final long[] QUADRANTS = {0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L};
+    private static final long CORNERS = 0x8100000000000081L;
+
+    private final TranspositionTable transpositionTable;
+    // Ordered moves and their sort keys, indexed by the number of empties of the node. A position can have more than
+    // 32 moves, so a row has room for a move on every square.
+    private final long[][] moves = new long[61][64];
+    private final int[][] sortScores = new int[61][64];
+
+    private long endTime;
+    private long nextTimeCheck;
+    private boolean stopped;
+    private long nodes;
+    private int score;
+    private long solveTime;
+
+    public EndgameSolver() {
+        this.transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_SIZE_MB);
+    }
+
+    /**
+     * Solve the game exactly for the side to move.
+     *
+     * @param game      the game to solve, it is not changed.
+     * @param timeLimit the time for the solve in ms.
+     * @return the best move, or 0 if the side to move has to pass or the time ran out, see {@link #isSolved()}.
+     */
+    public long solve(OthelloGame game, long timeLimit) {
+        long startTime = System.currentTimeMillis();
+        boolean toMove = game.isPlayerOneToMove();
+        long player = game.getPlayerBoard(toMove);
+        long opponent = game.getPlayerBoard(!toMove);
+        endTime = startTime + timeLimit;
+        nextTimeCheck = TIME_CHECK_INTERVAL;
+        stopped = false;
+        nodes = 0;
+        transpositionTable.newSearch();
+
+        long bestMove = 0L;
+        long possibleMoves = getValidMoves(player, opponent);
+        if (possibleMoves != 0L) {
+            long empty = ~(player | opponent);
+            int empties = Long.bitCount(empty);
+            int count = orderMoves(player, opponent, possibleMoves, empty, 0L, empties);
+            int alpha = -INFINITY;
+            for (int i = 0; i < count; i++) {
+                long move = moves[empties][i];
+                long chipsToFlip = getFlips(player, opponent, move);
+                long nextPlayer = opponent ^ chipsToFlip;
+                long nextOpponent = player ^ chipsToFlip ^ move;
+                int moveScore;
+                if (i == 0) {
+                    moveScore = -solve(nextPlayer, nextOpponent, -INFINITY, -alpha, false);
+                } else {
+                    moveScore = -solve(nextPlayer, nextOpponent, -alpha - 1, -alpha, false);
+                    if (moveScore > alpha) {
+                        moveScore = -solve(nextPlayer, nextOpponent, -INFINITY, -alpha, false);
+                    }
+                }
+                if (stopped) {
+                    break;
+                }
+                if (moveScore > alpha) {
+                    alpha = moveScore;
+                    bestMove = move;
+                }
+            }
+            score = alpha;
+        }
+        solveTime = System.currentTimeMillis() - startTime;
+        return stopped ? 0L : bestMove;
+    }
+
+    private int solve(long player, long opponent, int alpha, int beta, boolean passed) {
+        if (++nodes >= nextTimeCheck) {
+            nextTimeCheck = nodes + TIME_CHECK_INTERVAL;
+            if (System.currentTimeMillis() >= endTime) {
+                stopped = true;
+            }
+        }
+        if (stopped) {
+            return 0;
+        }
+        long empty = ~(player | opponent);
+        int empties = Long.bitCount(empty);
+        if (empties <= 4) {
+            return solveLastEmpties(player, opponent, alpha, beta, empty, empties);
+        }
+        long possibleMoves = getValidMoves(player, opponent);
+        if (possibleMoves == 0L) {
+            if (passed) {
+                return discDifference(player, opponent);
+            }
+            return -solve(opponent, player, -beta, -alpha, true);
+        }
+
+        // The player can at best get every square the opponent does not own for good
+        if (alpha > 0) {
+            int upperBound = 64 - 2 * Long.bitCount(OthelloGame.getStableDiscsLowerBound(opponent, player));
+            if (upperBound <= alpha) {
+                return upperBound;
+            }
+        }
+
+        long key = 0L;
+        long ttMove = 0L;
+        if (empties >= TT_MIN_EMPTIES) {
+            key = hash(player, opponent);
+            long entry = transpositionTable.probe(key);
+            if (entry != 0L) {
+                int entryScore = TranspositionTable.getScore(entry);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && entryScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && entryScore <= alpha)) {
+                    return entryScore;
+                }
+                ttMove = TranspositionTable.getMove(entry) & possibleMoves;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        long bestMove = 0L;
+        int count = orderMoves(player, opponent, possibleMoves, empty, ttMove, empties);
+        for (int i = 0; i < count; i++) {
+            long move = moves[empties][i];
+            long chipsToFlip = getFlips(player, opponent, move);
+            long nextPlayer = opponent ^ chipsToFlip;
+            long nextOpponent = player ^ chipsToFlip ^ move;
+            int moveScore;
+            if (i == 0) {
+                moveScore = -solve(nextPlayer, nextOpponent, -beta, -alpha, false);
+            } else {
+                moveScore = -solve(nextPlayer, nextOpponent, -alpha - 1, -alpha, false);
+                if (moveScore > alpha && moveScore < beta) {
+                    moveScore = -solve(nextPlayer, nextOpponent, -beta, -alpha, false);
+                }
+            }
+            if (stopped) {
+                return 0;
+            }
+            if (moveScore > best) {
+                best = moveScore;
+                bestMove = move;
+                if (moveScore > alpha) {
+                    alpha = moveScore;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (empties >= TT_MIN_EMPTIES) {
+            int bound = best <= originalAlpha ? TranspositionTable.BOUND_UPPER : best >= beta ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_EXACT;
+            transpositionTable.store(key, empties, bound, best, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * Fastest-first ordering with region parity as tie breaker, the transposition table move always comes first.
+     */
+    private int orderMoves(long player, long opponent, long possibleMoves, long empty, long ttMove, int empties) {
+        long[] nodeMoves = moves[empties];
+        int[] nodeScores = sortScores[empties];
+        int count = 0;
+        while (possibleMoves != 0L) {
+            long move = Long.lowestOneBit(possibleMoves);
+            possibleMoves ^= move;
+            int sortScore;
+            if (move == ttMove) {
+                sortScore = Integer.MAX_VALUE;
+            } else {
+                long chipsToFlip = getFlips(player, opponent, move);
+                int replies = Long.bitCount(getValidMoves(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move));
+                sortScore = -(replies << 2) + (isOddRegion(move, empty) ? 2 : 0) + ((move & CORNERS) != 0L ? 1 : 0);
+            }
+            int i = count++;
+            while (i > 0 && nodeScores[i - 1] < sortScore) {
+                nodeMoves[i] = nodeMoves[i - 1];
+                nodeScores[i] = nodeScores[i - 1];
+                i--;
+            }
+            nodeMoves[i] = move;
+            nodeScores[i] = sortScore;
+        }
+        return count;
+    }
+
+    /**
+     * Dispatch to the unrolled solvers, with the empties in odd regions first.
+     */
+    private int solveLastEmpties(long player, long opponent, int alpha, int beta, long empty, int empties) {
+        if (empties == 0) {
+            return discDifference(player, opponent);
+        }
+        // Odd regions first, then the rest, each in board order
+        long odd = 0L;
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) == 1) {
+                odd |= empty & quadrant;
+            }
+        }
+        long even = empty & ~odd;
+        int x1 = nextSquare(odd, even);
+        long rest = clearSquare(odd, even, x1);
+        odd &= rest;
+        even &= rest;
+        if (empties == 1) {
+            return solve1(player, opponent, x1);
+        }
+        int x2 = nextSquare(odd, even);
+        rest = clearSquare(odd, even, x2);
+        odd &= rest;
+        even &= rest;
+        if (empties == 2) {
+            return solve2(player, opponent, alpha, beta, x1, x2, false);
+        }
+        int x3 = nextSquare(odd, even);
+        rest = clearSquare(odd, even, x3);
+        odd &= rest;
+        even &= rest;
+        if (empties == 3) {
+            return solve3(player, opponent, alpha, beta, x1, x2, x3, false);
+        }
+        int x4 = nextSquare(odd, even);
+        return solve4(player, opponent, alpha, beta, x1, x2, x3, x4, false);
+    }
+
+    private static int nextSquare(long odd, long even) {
+        return Long.numberOfTrailingZeros(odd != 0L ? odd : even);
+    }
+
+    private static long clearSquare(long odd, long even, int square) {
+        return (odd | even) & ~(1L << square);
+    }
+
+    private int solve4(long player, long opponent, int alpha, int beta, int x1, int x2, int x3, int x4, boolean passed) {
+        nodes++;
+        int best = -INFINITY;
+        long move = 1L << x1;
+        long chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            best = -solve3(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, -beta, -alpha, x2, x3, x4, false);
+            if (best >= beta) return best;
+            if (best > alpha) alpha = best;
+        }
+        move = 1L << x2;
+        chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            int moveScore = -solve3(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, -beta, -alpha, x1, x3, x4, false);
+            if (moveScore > best) {
+                best = moveScore;
+                if (best >= beta) return best;
+                if (best > alpha) alpha = best;
+            }
+        }
+        move = 1L << x3;
+        chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            int moveScore = -solve3(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, -beta, -alpha, x1, x2, x4, false);
+            if (moveScore > best) {
+                best = moveScore;
+                if (best >= beta) return best;
+                if (best > alpha) alpha = best;
+            }
+        }
+        move = 1L << x4;
+        chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            int moveScore = -solve3(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, -beta, -alpha, x1, x2, x3, false);
+            if (moveScore > best) {
+                best = moveScore;
+            }
+        }
+        if (best == -INFINITY) {
+            if (passed) {
+                return discDifference(player, opponent);
+            }
+            return -solve4(opponent, player, -beta, -alpha, x1, x2, x3, x4, true);
+        }
+        return best;
+    }
+
+    private int solve3(long player, long opponent, int alpha, int beta, int x1, int x2, int x3, boolean passed) {
+        nodes++;
+        int best = -INFINITY;
+        long move = 1L << x1;
+        long chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            best = -solve2(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, -beta, -alpha, x2, x3, false);
+            if (best >= beta) return best;
+            if (best > alpha) alpha = best;
+        }
+        move = 1L << x2;
+        chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            int moveScore = -solve2(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, -beta, -alpha, x1, x3, false);
+            if (moveScore > best) {
+                best = moveScore;
+                if (best >= beta) return best;
+                if (best > alpha) alpha = best;
+            }
+        }
+        move = 1L << x3;
+        chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            int moveScore = -solve2(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, -beta, -alpha, x1, x2, false);
+            if (moveScore > best) {
+                best = moveScore;
+            }
+        }
+        if (best == -INFINITY) {
+            if (passed) {
+                return discDifference(player, opponent);
+            }
+            return -solve3(opponent, player, -beta, -alpha, x1, x2, x3, true);
+        }
+        return best;
+    }
+
+    private int solve2(long player, long opponent, int alpha, int beta, int x1, int x2, boolean passed) {
+        nodes++;
+        int best = -INFINITY;
+        long move = 1L << x1;
+        long chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            best = -solve1(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, x2);
+            if (best >= beta) return best;
+        }
+        move = 1L << x2;
+        chipsToFlip = getFlips(player, opponent, move);
+        if (chipsToFlip != 0L) {
+            int moveScore = -solve1(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, x1);
+            if (moveScore > best) {
+                best = moveScore;
+            }
+        }
+        if (best == -INFINITY) {
+            if (passed) {
+                return discDifference(player, opponent);
+            }
+            return -solve2(opponent, player, -beta, -alpha, x1, x2, true);
+        }
+        return best;
+    }
+
+    /**
+     * The last empty square: the player moves there if it can, else the opponent, else the game ends with it empty.
+     */
+    private int solve1(long player, long opponent, int x) {
+        nodes++;
+        long move = 1L << x;
+        int discDifference = discDifference(player, opponent);
+        int flipped = Long.bitCount(getFlips(player, opponent, move));
+        if (flipped != 0) {
+            return discDifference + 2 * flipped + 1;
+        }
+        flipped = Long.bitCount(getFlips(opponent, player, move));
+        if (flipped != 0) {
+            return discDifference - 2 * flipped - 1;
+        }
+        return discDifference;
+    }
+
+    private static int discDifference(long player, long opponent) {
+        return Long.bitCount(player) - Long.bitCount(opponent);
+    }
+
+    private static boolean isOddRegion(long move, long empty) {
+        for (long quadrant : QUADRANTS) {
+            if ((move & quadrant) != 0L) {
+                return (Long.bitCount(empty & quadrant) & 1) == 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cheaper than a Zobrist key from scratch, the solver does not keep a key up to date. The side to move does not
+     * matter to the score, only whose discs are whose.
+     */
+    private static long hash(long player, long opponent) {
+        long key = player * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opponent * 0xC2B2AE3D27D4EB4FL, 31);
+        return key ^ (key >>> 29);
+    }
+
+    /**
+     * @return true if the last call of {@link #solve(OthelloGame, long)} finished in time.
+     */
+    public boolean isSolved() {
+        return !stopped;
+    }
+
+    /**
+     * @return the exact final disc difference for the side to move of the last solved game.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the time of the last solve in ms.
+     */
+    public long getSolveTime() {
+        return solveTime;
+    }
+
+    public double getNodesPerSecond() {
+        return nodes * 1000.0 / Math.max(1L, solveTime);
+    }
+}
@@ -0,0 +1,164 @@
+package de.lmu.bio.ifi.players.alphabeta;
+
+import de.lmu.bio.ifi.OthelloGame;
+
+/**
+ * Orders the moves of a search node: the transposition table move first, then the two killer moves of the ply, then
+ * the rest by the history heuristic. Near the leaves the history score can be replaced by fastest-first ordering,
+ * which prefers the moves that leave the opponent the fewest replies.
+ * <p>
+ * All buffers are preallocated per ply, ordering a node does not allocate. The cutoff statistics tell how often the
+ * first move searched already caused the cutoff, which is the usual measure of ordering quality.
+ */
+public class MoveOrdering {
+    private static final int TT_MOVE_SCORE = Integer.MAX_VALUE;
+    private static final int FIRST_KILLER_SCORE = Integer.MAX_VALUE - 1;
+    private static final int SECOND_KILLER_SCORE = Integer.MAX_VALUE - 2;
+    // History scores are halved when they get this big, so they never reach the killer scores
+    private static final int HISTORY_LIMIT = 1 << 24;
+    // Fastest-first pays off at the last two plies, deeper the history heuristic orders better
+    private static final int DEFAULT_FASTEST_FIRST_DEPTH = 2;
+
+    private final boolean useKillers;
+    private final boolean useHistory;
+    // Fastest-first is used at nodes with at most this remaining depth, 0 turns it off
+    private final int fastestFirstDepth;
+
+    private final long[][] moves = new long[OthelloGame.MAX_SEARCH_PLY][64];
+    private final int[][] scores = new int[OthelloGame.MAX_SEARCH_PLY][64];
+    private final long[][] killers = new long[OthelloGame.MAX_SEARCH_PLY][2];
+    // Indexed by side (0 player one, 1 player two) and square
+    private final int[][] history = new int[2][64];
+
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    /**
+     * Order with the transposition table move, killers, history and fastest-first at the last two plies.
+     */
+    public MoveOrdering() {
+        this(true, true, DEFAULT_FASTEST_FIRST_DEPTH);
+    }
+
+    public MoveOrdering(boolean useKillers, boolean useHistory, int fastestFirstDepth) {
+        this.useKillers = useKillers;
+        this.useHistory = useHistory;
+        this.fastestFirstDepth = fastestFirstDepth;
+    }
+
+    /**
+     * Start a new search: reset the statistics and killers, and age the history scores.
+     */
+    public void newSearch() {
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        for (long[] killer : killers) {
+            killer[0] = 0L;
+            killer[1] = 0L;
+        }
+        for (int[] sideHistory : history) {
+            for (int i = 0; i < 64; i++) {
+                sideHistory[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Sort the moves of a node, read them back with {@link #getMove(int, int)}.
+     *
+     * @param game          the position, the side to move is the one whose moves are ordered.
+     * @param possibleMoves the moves to order, at least one.
+     * @param ttMove        the best move stored in the transposition table, 0 if there is none.
+     * @param ply           the distance from the root.
+     * @param depth         the remaining depth.
+     * @return the number of moves.
+     */
+    public int orderMoves(OthelloGame game, long possibleMoves, long ttMove, int ply, int depth) {
+        boolean toMove = game.isPlayerOneToMove();
+        long[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        long[] plyKillers = killers[ply];
+        int[] sideHistory = history[toMove ? 0 : 1];
+        boolean fastestFirst = depth <= fastestFirstDepth;
+        long playerBoard = game.getPlayerBoard(toMove);
+        long opponentBoard = game.getPlayerBoard(!toMove);
+
+        int count = 0;
+        while (possibleMoves != 0L) {
+            long move = Long.lowestOneBit(possibleMoves);
+            possibleMoves ^= move;
+            int score;
+            if (move == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (useKillers && move == plyKillers[0]) {
+                score = FIRST_KILLER_SCORE;
+            } else if (useKillers && move == plyKillers[1]) {
+                score = SECOND_KILLER_SCORE;
+            } else if (fastestFirst) {
+                long chipsToFlip = OthelloGame.getFlips(playerBoard, opponentBoard, move);
+                score = -Long.bitCount(OthelloGame.getValidMoves(opponentBoard ^ chipsToFlip, playerBoard ^ chipsToFlip ^ move));
+            } else {
+                score = useHistory ? sideHistory[Long.numberOfTrailingZeros(move)] : 0;
+            }
+            // Insertion sort, best first, equal scores keep board order
+            int i = count++;
+            while (i > 0 && plyScores[i - 1] < score) {
+                plyMoves[i] = plyMoves[i - 1];
+                plyScores[i] = plyScores[i - 1];
+                i--;
+            }
+            plyMoves[i] = move;
+            plyScores[i] = score;
+        }
+        return count;
+    }
+
+    public long getMove(int ply, int index) {
+        return moves[ply][index];
+    }
+
+    /**
+     * Record a beta cutoff, updates the killers, the history and the statistics.
+     *
+     * @param game      the position of the node, before the move.
+     * @param move      the move that caused the cutoff.
+     * @param ply       the distance from the root.
+     * @param depth     the remaining depth.
+     * @param moveIndex the position of the move in the ordered list.
+     */
+    public void recordCutoff(OthelloGame game, long move, int ply, int depth, int moveIndex) {
+        cutoffs++;
+        if (moveIndex == 0) {
+            firstMoveCutoffs++;
+        }
+        if (useKillers && killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (useHistory) {
+            int[] sideHistory = history[game.isPlayerOneToMove() ? 0 : 1];
+            int square = Long.numberOfTrailingZeros(move);
+            sideHistory[square] += depth * depth;
+            if (sideHistory[square] > HISTORY_LIMIT) {
+                for (int i = 0; i < 64; i++) {
+                    sideHistory[i] >>= 1;
+                }
+            }
+        }
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * @return the share of cutoffs caused by the first move searched, between 0 and 1.
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+    }
+}
@@ -0,0 +1,108 @@
+package de.lmu.bio.ifi.players.alphabeta;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.TranspositionTable;
+import de.lmu.bio.ifi.evaluation.Evaluator;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP: the main search and helper searches run the same iterative deepening on their own copy of the game and
+ * share one lock-free {@link TranspositionTable}. The helpers fill the table with results the main search can cut
+ * off with, every second helper is one ply ahead so they do not all search the same tree. The move of the main search
+ * is played, the helpers are stopped as soon as it is done.
+ */
+public class ParallelSearch {
+    private final AlphaBetaSearch[] searches;
+    private final TranspositionTable transpositionTable;
+    private final ExecutorService executor;
+    private final Future<?>[] helpers;
+
+    /**
+     * @param threads the number of threads, including the calling thread that runs the main search.
+     */
+    public ParallelSearch(int threads, boolean isPlayerOne, Evaluator evaluator, TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        this.searches = new AlphaBetaSearch[Math.max(1, threads)];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = new AlphaBetaSearch(isPlayerOne, evaluator, transpositionTable);
+        }
+        this.helpers = new Future<?>[searches.length];
+        this.executor = searches.length == 1 ? null : Executors.newFixedThreadPool(searches.length - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            // Do not keep the JVM alive after the game
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Search until the time is used up, see {@link AlphaBetaSearch#searchForTime(OthelloGame, long)}.
+     */
+    public long searchForTime(OthelloGame game, long timeLimit) {
+        long startTime = System.currentTimeMillis();
+        return run(game, game.getRemainingMoves(), startTime + timeLimit, startTime + timeLimit / 2);
+    }
+
+    /**
+     * Search until the main search has finished the given depth.
+     */
+    public long searchToDepth(OthelloGame game, int depth) {
+        return run(game, depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    private long run(OthelloGame game, int maxDepth, long endTime, long softEndTime) {
+        transpositionTable.newSearch();
+        for (int i = 1; i < searches.length; i++) {
+            AlphaBetaSearch helper = searches[i];
+            OthelloGame helperGame = game.copy();
+            int depthOffset = i & 1;
+            helper.resetStop();
+            // Helpers keep going until they are stopped
+            helpers[i] = executor.submit(() -> helper.iterate(helperGame, helperGame.getRemainingMoves(), endTime, Long.MAX_VALUE, depthOffset));
+        }
+        searches[0].resetStop();
+        long bestMove = searches[0].iterate(game, maxDepth, endTime, softEndTime, 0);
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+        for (int i = 1; i < searches.length; i++) {
+            try {
+                helpers[i].get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Helper search failed", e.getCause());
+            }
+        }
+        return bestMove;
+    }
+
+    public AlphaBetaSearch getMainSearch() {
+        return searches[0];
+    }
+
+    /**
+     * @return the nodes of the last search, summed over all threads.
+     */
+    public long getNodes() {
+        long nodes = 0;
+        for (AlphaBetaSearch search : searches) {
+            nodes += search.getNodes();
+        }
+        return nodes;
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
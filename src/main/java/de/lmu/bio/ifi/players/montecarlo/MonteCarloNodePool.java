@@ -0,0 +1,641 @@
+package de.lmu.bio.ifi.players.montecarlo;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.Position;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Structure of arrays store for the Monte Carlo search tree. A node is an index into parallel primitive arrays and the
+ * children of a node are one contiguous block of indices, so a node costs 46 bytes and no objects. The arrays are
+ * allocated once for a fixed node budget. Blocks of subtrees that are cut off when the root advances go to a free list
+ * per block size and are reused, split up if no block of the size is free, so searching never allocates.
+ * <p>
+ * Visits, wins and virtual losses are updated atomically and expansion is a compare and set on the first child index,
+ * so several threads can search one tree.
+ * <p>
+ * Nodes can be proven (MCTS-Solver): a proven node stores its exact game result, from the point of view of the player
+ * the search plays for, and is skipped by selection.
+ * <p>
+ * For RAVE every node also has all moves as first statistics: the playouts through its parent in which the side to
+ * move at the parent played the node's move at any later point. Together the children of a node form its AMAF table
+ * over the 64 squares, restricted to the legal moves.
+ * <p>
+ * For progressive bias the pool can store a prior for every child when it is created, the value of the position for
+ * the player who made the move according to {@link PlayoutEvaluator}.
+ */
+public class MonteCarloNodePool {
+    public static final int NO_NODE = -1;
+    // Square index that is stored for a pass
+    public static final int PASS = 64;
+    // States of firstChild before the children exist
+    private static final int UNEXPANDED = -1;
+    private static final int EXPANDING = -2;
+    // Layout of the flags byte
+    private static final int PLAYER_ONE_TO_MOVE = 1;
+    private static final int PASSES_SHIFT = 1;
+    // Stored in proofs for a node whose result is not known, proven results are stored plus PROOF_OFFSET
+    private static final int UNPROVEN = 0;
+    private static final int PROOF_OFFSET = 2;
+    // Scores of getBestChild below every win ratio, a child without visits is still better than a certain loss
+    private static final double UNVISITED_SCORE = -1.5;
+    private static final double PROVEN_LOSS_SCORE = -2;
+    // Priors between -1 and 1 are stored as shorts in these units
+    private static final double PRIOR_SCALE = Short.MAX_VALUE;
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final long[] playerOneBoards;
+    private final long[] playerTwoBoards;
+    // Square of the move that created the node, or PASS
+    private final byte[] moves;
+    // Side to move and number of consecutive passes
+    private final byte[] flags;
+    private final int[] visits;
+    private final int[] wins;
+    // Playouts that are running through the node right now, each counts as a lost visit in the UCT value
+    private final int[] virtualLosses;
+    private final int[] firstChildren;
+    private final byte[] childCounts;
+    // Proven result of the node, see PROOF_OFFSET
+    private final byte[] proofs;
+    private final int[] amafVisits;
+    private final int[] amafWins;
+    // Value of the node for the player who made its move, see PRIOR_SCALE
+    private final short[] priors;
+    private volatile boolean computePriors;
+
+    // Heads of the free lists by block size, the next block of a list is stored in firstChildren of the block
+    private final int[] freeBlocks = new int[PASS + 1];
+    private int nextUnused;
+    private int usedNodes;
+    // Work stack of release(), pairs of first child and child count
+    private int[] releaseStack = new int[256];
+
+    /**
+     * @param capacity the node budget, all memory is allocated up front.
+     */
+    public MonteCarloNodePool(int capacity) {
+        this.playerOneBoards = new long[capacity];
+        this.playerTwoBoards = new long[capacity];
+        this.moves = new byte[capacity];
+        this.flags = new byte[capacity];
+        this.visits = new int[capacity];
+        this.wins = new int[capacity];
+        this.virtualLosses = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.childCounts = new byte[capacity];
+        this.proofs = new byte[capacity];
+        this.amafVisits = new int[capacity];
+        this.amafWins = new int[capacity];
+        this.priors = new short[capacity];
+        clear();
+    }
+
+    /**
+     * Forget all nodes.
+     */
+    public synchronized void clear() {
+        Arrays.fill(freeBlocks, NO_NODE);
+        nextUnused = 0;
+        usedNodes = 0;
+    }
+
+    /**
+     * Allocate a node for the position, without a move and statistics.
+     *
+     * @return the node, or {@link #NO_NODE} if the budget is used up.
+     */
+    public int createRoot(Position position) {
+        int node = allocate(1);
+        if (node != NO_NODE) {
+            int passes = position.getConsecutivePasses();
+            init(node, position.getPlayerOneBoard(), position.getPlayerTwoBoard(), position.isPlayerOneToMove(), passes, PASS);
+        }
+        return node;
+    }
+
+    private synchronized int allocate(int count) {
+        int block = freeBlocks[count];
+        if (block != NO_NODE) {
+            freeBlocks[count] = firstChildren[block];
+        } else if (nextUnused + count <= visits.length) {
+            block = nextUnused;
+            nextUnused += count;
+        } else {
+            block = splitFreeBlock(count);
+            if (block == NO_NODE) {
+                return NO_NODE;
+            }
+        }
+        usedNodes += count;
+        return block;
+    }
+
+    // Once the unused nodes are gone, a block of the wrong size would never be reused without splitting the smallest
+    // larger free block. The rest of it goes to the free list of its size.
+    private int splitFreeBlock(int count) {
+        for (int size = count + 1; size < freeBlocks.length; size++) {
+            int block = freeBlocks[size];
+            if (block != NO_NODE) {
+                freeBlocks[size] = firstChildren[block];
+                int rest = block + count;
+                firstChildren[rest] = freeBlocks[size - count];
+                freeBlocks[size - count] = rest;
+                return block;
+            }
+        }
+        return NO_NODE;
+    }
+
+    private synchronized void free(int block, int count) {
+        firstChildren[block] = freeBlocks[count];
+        freeBlocks[count] = block;
+        usedNodes -= count;
+    }
+
+    private void init(int node, long playerOneBoard, long playerTwoBoard, boolean playerOneToMove, int passes, int move) {
+        playerOneBoards[node] = playerOneBoard;
+        playerTwoBoards[node] = playerTwoBoard;
+        flags[node] = (byte) ((playerOneToMove ? PLAYER_ONE_TO_MOVE : 0) | passes << PASSES_SHIFT);
+        moves[node] = (byte) move;
+        visits[node] = 0;
+        wins[node] = 0;
+        virtualLosses[node] = 0;
+        firstChildren[node] = UNEXPANDED;
+        childCounts[node] = 0;
+        proofs[node] = UNPROVEN;
+        amafVisits[node] = 0;
+        amafWins[node] = 0;
+        priors[node] = 0;
+    }
+
+    /**
+     * Create the children of the node, one for every valid move or a single pass child. If another thread is
+     * expanding the node at the same time, or the budget is used up, the node stays a leaf.
+     *
+     * @return true if the node has children.
+     */
+    public boolean expand(int node) {
+        int first = (int) INT_ARRAY.getAcquire(firstChildren, node);
+        if (first >= 0) {
+            return true;
+        }
+        if (first == EXPANDING || !INT_ARRAY.compareAndSet(firstChildren, node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+        long playerOneBoard = playerOneBoards[node];
+        long playerTwoBoard = playerTwoBoards[node];
+        boolean playerOneToMove = isPlayerOneToMove(node);
+        long playerBoard = playerOneToMove ? playerOneBoard : playerTwoBoard;
+        long opponentBoard = playerOneToMove ? playerTwoBoard : playerOneBoard;
+        long possibleMoves = OthelloGame.getValidMoves(playerBoard, opponentBoard);
+        int count = possibleMoves == 0L ? 1 : Long.bitCount(possibleMoves);
+        int block = allocate(count);
+        if (block == NO_NODE) {
+            INT_ARRAY.setRelease(firstChildren, node, UNEXPANDED);
+            return false;
+        }
+        if (possibleMoves == 0L) {
+            init(block, playerOneBoard, playerTwoBoard, !playerOneToMove, getConsecutivePasses(node) + 1, PASS);
+        } else {
+            int child = block;
+            while (possibleMoves != 0L) {
+                long move = Long.lowestOneBit(possibleMoves);
+                long flips = OthelloGame.getFlips(playerBoard, opponentBoard, move);
+                long newPlayerBoard = playerBoard ^ (flips | move);
+                long newOpponentBoard = opponentBoard ^ flips;
+                if (playerOneToMove) {
+                    init(child, newPlayerBoard, newOpponentBoard, false, 0, Long.numberOfTrailingZeros(move));
+                } else {
+                    init(child, newOpponentBoard, newPlayerBoard, true, 0, Long.numberOfTrailingZeros(move));
+                }
+                child++;
+                possibleMoves ^= move;
+            }
+        }
+        if (computePriors) {
+            computePriors(block, count);
+        }
+        childCounts[node] = (byte) count;
+        // Publishes the children to the threads that read firstChild with getAcquire
+        INT_ARRAY.setRelease(firstChildren, node, block);
+        return true;
+    }
+
+    /**
+     * Make a child of the root the new root. All other subtrees of the root are returned to the free lists, the
+     * subtree of the child is kept with its statistics.
+     *
+     * @return the index of the new root.
+     */
+    public int reroot(int root, int child) {
+        int first = firstChildren[root];
+        int count = childCounts[root];
+        for (int sibling = first; sibling < first + count; sibling++) {
+            if (sibling != child) {
+                release(sibling);
+            }
+        }
+        long playerOneBoard = playerOneBoards[child];
+        long playerTwoBoard = playerTwoBoards[child];
+        byte childFlags = flags[child];
+        byte move = moves[child];
+        int childVisits = visits[child];
+        int childWins = wins[child];
+        int grandchildren = firstChildren[child];
+        byte grandchildCount = childCounts[child];
+        byte proof = proofs[child];
+        int childAmafVisits = amafVisits[child];
+        int childAmafWins = amafWins[child];
+        short prior = priors[child];
+        // The child lives in the block of its siblings, move it to the single node block of the old root
+        free(first, count);
+        free(root, 1);
+        int newRoot = allocate(1);
+        playerOneBoards[newRoot] = playerOneBoard;
+        playerTwoBoards[newRoot] = playerTwoBoard;
+        flags[newRoot] = childFlags;
+        moves[newRoot] = move;
+        visits[newRoot] = childVisits;
+        wins[newRoot] = childWins;
+        virtualLosses[newRoot] = 0;
+        firstChildren[newRoot] = grandchildren;
+        childCounts[newRoot] = grandchildCount;
+        proofs[newRoot] = proof;
+        amafVisits[newRoot] = childAmafVisits;
+        amafWins[newRoot] = childAmafWins;
+        priors[newRoot] = prior;
+        return newRoot;
+    }
+
+    // Free all blocks below the node, the node itself is part of its parent's block
+    private void release(int node) {
+        if (firstChildren[node] < 0) {
+            return;
+        }
+        int top = 0;
+        releaseStack[top++] = firstChildren[node];
+        releaseStack[top++] = childCounts[node];
+        while (top > 0) {
+            int count = releaseStack[--top];
+            int first = releaseStack[--top];
+            // Read the children before free() overwrites the first one with the free list link
+            for (int child = first; child < first + count; child++) {
+                if (firstChildren[child] >= 0) {
+                    if (top + 2 > releaseStack.length) {
+                        releaseStack = Arrays.copyOf(releaseStack, releaseStack.length * 2);
+                    }
+                    releaseStack[top++] = firstChildren[child];
+                    releaseStack[top++] = childCounts[child];
+                }
+            }
+            free(first, count);
+        }
+    }
+
+    public double UCTValue(int node, int totalVisit, double C) {
+        return UCTValue(node, Math.log(totalVisit), C, 0, 0, true);
+    }
+
+    // Takes the logarithm so that selection computes it once for all children
+    private double UCTValue(int node, double logTotalVisit, double C, int raveEquivalence, double biasWeight, boolean maximizing) {
+        int loss = virtualLosses[node];
+        int nodeVisits = visits[node] + loss;
+        if (nodeVisits == 0) {
+            return Integer.MAX_VALUE;
+        }
+        // Wins are counted for the player the search plays for, the opponent picks the children with the fewest
+        int sign = maximizing ? 1 : -1;
+        double value = (double) (sign * wins[node] - loss) / (double) nodeVisits;
+        int nodeAmafVisits = amafVisits[node];
+        if (raveEquivalence > 0 && nodeAmafVisits > 0) {
+            // Hand-selected schedule of Gelly and Silver: the AMAF value has the weight 1/2 after raveEquivalence visits
+            double beta = Math.sqrt(raveEquivalence / (3.0 * nodeVisits + raveEquivalence));
+            value = (1 - beta) * value + beta * sign * amafWins[node] / (double) nodeAmafVisits;
+        }
+        if (biasWeight > 0) {
+            // Progressive bias, the prior steers the first visits and fades out with more
+            value += biasWeight * (priors[node] / PRIOR_SCALE) / (nodeVisits + 1);
+        }
+        return value + C * Math.sqrt(logTotalVisit / (double) nodeVisits);
+    }
+
+    /**
+     * @return the unproven child with the highest UCT value, or {@link #NO_NODE} if all children are proven.
+     */
+    public int findBestNodeByUCT(int node, double C) {
+        return findBestNodeByUCT(node, C, 0);
+    }
+
+    /**
+     * Same as {@link #findBestNodeByUCT(int, double)}, with the win ratio blended with the AMAF win ratio.
+     *
+     * @param raveEquivalence the number of visits at which both ratios have the same weight, 0 for plain UCT.
+     */
+    public int findBestNodeByUCT(int node, double C, int raveEquivalence) {
+        return findBestNodeByUCT(node, C, raveEquivalence, 0);
+    }
+
+    /**
+     * Same as {@link #findBestNodeByUCT(int, double, int)}, plus a progressive bias term from the priors.
+     *
+     * @param biasWeight the weight of the prior, it is divided by the visits of the child plus one.
+     */
+    public int findBestNodeByUCT(int node, double C, int raveEquivalence, double biasWeight) {
+        return findBestNodeByUCT(node, C, raveEquivalence, biasWeight, true);
+    }
+
+    /**
+     * Same as {@link #findBestNodeByUCT(int, double, int, double)}, for a node where either player can be to move.
+     *
+     * @param maximizing whether the player the search plays for is to move at the node, otherwise the win ratios are
+     *                   negated.
+     */
+    public int findBestNodeByUCT(int node, double C, int raveEquivalence, double biasWeight, boolean maximizing) {
+        int first = getFirstChild(node);
+        int count = childCounts[node];
+        if (count == 1) {
+            return proofs[first] == UNPROVEN ? first : NO_NODE;
+        }
+        // A root that other threads are still playing out from has no visits yet, log(0) would make every child NaN
+        double logParentVisit = Math.log(Math.max(1, visits[node]));
+        int bestNode = NO_NODE;
+        double bestUCT = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + count; child++) {
+            if (proofs[child] != UNPROVEN) {
+                continue;
+            }
+            double uctValue = UCTValue(child, logParentVisit, C, raveEquivalence, biasWeight, maximizing);
+            if (uctValue > bestUCT) {
+                bestUCT = uctValue;
+                bestNode = child;
+            }
+        }
+        return bestNode;
+    }
+
+    /**
+     * @return a random unproven child, or a random child if all are proven.
+     */
+    public int getRandomChild(int node, Random random) {
+        int first = getFirstChild(node);
+        int count = childCounts[node];
+        int offset = random.nextInt(count);
+        for (int i = 0; i < count; i++) {
+            int child = first + (offset + i) % count;
+            if (proofs[child] == UNPROVEN) {
+                return child;
+            }
+        }
+        return first + offset;
+    }
+
+    /**
+     * @return a proven win if there is one, otherwise the child with the best win ratio, where a proven draw counts
+     * as 0. Children without visits come after all visited ones and proven losses come last.
+     */
+    public int getBestChild(int node) {
+        int first = getFirstChild(node);
+        int bestNode = first;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + childCounts[node]; child++) {
+            double score;
+            if (proofs[child] != UNPROVEN) {
+                int result = getProvenResult(child);
+                if (result > 0) {
+                    return child;
+                }
+                score = result < 0 ? PROVEN_LOSS_SCORE : result;
+            } else if (visits[child] == 0) {
+                score = UNVISITED_SCORE;
+            } else {
+                score = wins[child] / (double) visits[child];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestNode = child;
+            }
+        }
+        return bestNode;
+    }
+
+    /**
+     * @return the child created by the move, or {@link #NO_NODE} if the node has no such child.
+     */
+    public int findChild(int node, long move) {
+        int first = getFirstChild(node);
+        if (first < 0) {
+            return NO_NODE;
+        }
+        for (int child = first; child < first + childCounts[node]; child++) {
+            if (getMove(child) == move) {
+                return child;
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * Add one visit with the result of a playout.
+     */
+    public void update(int node, int result) {
+        update(node, 1, result);
+    }
+
+    /**
+     * Add the visits and summed results of a batch of playouts.
+     */
+    public void update(int node, int playouts, int results) {
+        INT_ARRAY.getAndAdd(visits, node, playouts);
+        INT_ARRAY.getAndAdd(wins, node, results);
+    }
+
+    /**
+     * Mark the node as proven, for a node where the game is over.
+     *
+     * @param result 1 if the player the search plays for wins, 0 for a draw, -1 if it loses.
+     */
+    public void prove(int node, int result) {
+        proofs[node] = (byte) (result + PROOF_OFFSET);
+    }
+
+    /**
+     * Prove the node from its children: a node is proven if the side to move has a child that is a proven win for it,
+     * or if all children are proven.
+     *
+     * @param maximizing whether the player the search plays for is to move at the node.
+     * @return true if the node is proven.
+     */
+    public boolean updateProof(int node, boolean maximizing) {
+        if (proofs[node] != UNPROVEN) {
+            return true;
+        }
+        int first = getFirstChild(node);
+        if (first < 0) {
+            return false;
+        }
+        boolean allProven = true;
+        int best = maximizing ? -1 : 1;
+        for (int child = first; child < first + childCounts[node]; child++) {
+            if (proofs[child] == UNPROVEN) {
+                allProven = false;
+                continue;
+            }
+            int result = proofs[child] - PROOF_OFFSET;
+            if (result == (maximizing ? 1 : -1)) {
+                prove(node, result);
+                return true;
+            }
+            best = maximizing ? Math.max(best, result) : Math.min(best, result);
+        }
+        if (!allProven) {
+            return false;
+        }
+        prove(node, best);
+        return true;
+    }
+
+    public boolean isProven(int node) {
+        return proofs[node] != UNPROVEN;
+    }
+
+    /**
+     * @return the result of a proven node, 1 if the player the search plays for wins, 0 for a draw, -1 if it loses.
+     */
+    public int getProvenResult(int node) {
+        return proofs[node] - PROOF_OFFSET;
+    }
+
+    /**
+     * Add a playout to the AMAF statistics of the children whose move the side to move at the node played later.
+     *
+     * @param movesOfSideToMove the squares the side to move at the node played below it, in the tree and the playout.
+     * @param result            the result of the playout.
+     */
+    public void updateAmaf(int node, long movesOfSideToMove, int result) {
+        int first = getFirstChild(node);
+        if (first < 0 || movesOfSideToMove == 0L) {
+            return;
+        }
+        for (int child = first; child < first + childCounts[node]; child++) {
+            if (moves[child] != PASS && (movesOfSideToMove & 1L << moves[child]) != 0L) {
+                INT_ARRAY.getAndAdd(amafVisits, child, 1);
+                INT_ARRAY.getAndAdd(amafWins, child, result);
+            }
+        }
+    }
+
+    /**
+     * Compute the priors of the children of all nodes that are expanded from now on.
+     */
+    public void setComputePriors(boolean computePriors) {
+        this.computePriors = computePriors;
+    }
+
+    /**
+     * Compute the priors of the children of a node that is already expanded.
+     */
+    public void computePriors(int node) {
+        if (isExpanded(node)) {
+            computePriors(getFirstChild(node), childCounts[node]);
+        }
+    }
+
+    private void computePriors(int first, int count) {
+        for (int child = first; child < first + count; child++) {
+            // The other side is to move at the child, the prior is for the side that moved
+            long childPlayer = isPlayerOneToMove(child) ? playerOneBoards[child] : playerTwoBoards[child];
+            long childOpponent = isPlayerOneToMove(child) ? playerTwoBoards[child] : playerOneBoards[child];
+            double prior = 1 - 2 * PlayoutEvaluator.winProbability(childPlayer, childOpponent);
+            priors[child] = (short) Math.round(prior * PRIOR_SCALE);
+        }
+    }
+
+    /**
+     * @return the prior of the node between -1 and 1, for the player who made the node's move.
+     */
+    public double getPrior(int node) {
+        return priors[node] / PRIOR_SCALE;
+    }
+
+    public int getAmafVisits(int node) {
+        return amafVisits[node];
+    }
+
+    public int getAmafWins(int node) {
+        return amafWins[node];
+    }
+
+    public void addVirtualLoss(int node) {
+        INT_ARRAY.getAndAdd(virtualLosses, node, 1);
+    }
+
+    public void removeVirtualLoss(int node) {
+        INT_ARRAY.getAndAdd(virtualLosses, node, -1);
+    }
+
+    /**
+     * Copy the position of the node into a position owned by the caller.
+     *
+     * @return the target position.
+     */
+    public Position loadPosition(int node, Position target) {
+        return target.set(playerOneBoards[node], playerTwoBoards[node], isPlayerOneToMove(node), getConsecutivePasses(node));
+    }
+
+    public boolean isExpanded(int node) {
+        return getFirstChild(node) >= 0;
+    }
+
+    /**
+     * @return the first child, or a negative value if the node has not been expanded.
+     */
+    public int getFirstChild(int node) {
+        return (int) INT_ARRAY.getAcquire(firstChildren, node);
+    }
+
+    public int getChildCount(int node) {
+        return isExpanded(node) ? childCounts[node] : 0;
+    }
+
+    /**
+     * @return the move that created the node, 0 for a pass.
+     */
+    public long getMove(int node) {
+        return moves[node] == PASS ? 0L : 1L << moves[node];
+    }
+
+    public int getVisits(int node) {
+        return visits[node];
+    }
+
+    public int getWins(int node) {
+        return wins[node];
+    }
+
+    public int getVirtualLoss(int node) {
+        return virtualLosses[node];
+    }
+
+    public boolean isPlayerOneToMove(int node) {
+        return (flags[node] & PLAYER_ONE_TO_MOVE) != 0;
+    }
+
+    public int getConsecutivePasses(int node) {
+        return flags[node] >> PASSES_SHIFT;
+    }
+
+    public int getCapacity() {
+        return visits.length;
+    }
+
+    /**
+     * @return the number of nodes that are in use, not counting free blocks.
+     */
+    public synchronized int getUsedNodes() {
+        return usedNodes;
+    }
+}
@@ -1,29 +1,113 @@
 package de.lmu.bio.ifi.players.montecarlo;
 
 import de.lmu.bio.ifi.GameStatus;
-import de.lmu.bio.ifi.OthelloGame;
-import de.lmu.bio.ifi.players.montecarlo.movestrategies.CornerMoveStrategy;
-import de.lmu.bio.ifi.players.montecarlo.movestrategies.MoveStrategy;
+import de.lmu.bio.ifi.Position;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MonteCarloTreeSearch {
     public static final double EPSILON = 0.1;
+    // About 35 MB, far more nodes than a move's playouts create
+    public static final int DEFAULT_NODE_BUDGET = 1 << 20;
+    // Keeps a second of playouts within the default budget
+    public static final int DEFAULT_EXPANSION_THRESHOLD = 8;
+    private static final int MIN_HELPER_NODE_BUDGET = 1 << 16;
+    // Longer than any game, passes included
+    private static final int MAX_PATH = 128;
     // Obviously it uses time to continue one iteration of the search, so we need to reduce the time by a factor
     private final double REDUCTION_FACTOR = 0.75;
     private final Random RANDOM;
     private final boolean IS_PLAYING_AS_PLAYER_ONE;
     private final double TIME_TO_SUBTRACT_EACH_MOVE = 15;
     private final double C;
-    private MonteCarloNode rootNode;
-    private final int totalSimulations = 0;
+    private final MonteCarloNodePool pool;
+    private int rootNode;
+    private int totalSimulations = 0;
+    // Tree reuse statistics, see makeMove
+    private int reusedVisits = 0;
+    private int rebuilds = 0;
+    private PlayoutPolicy playoutPolicy = PlayoutPolicy.CORNER;
+    // State of the calling thread, the helper threads get their own for every search
+    private SearchThread mainThread;
+    private ParallelMode parallelMode = ParallelMode.NONE;
+    private int threads = 1;
+    private ExecutorService executor;
+    // Trees of the helper threads in root parallel mode
+    private MonteCarloNodePool[] helperPools;
+    private int playoutsPerLeaf = 1;
+    // Visits a leaf needs before it is expanded, the root is always expanded
+    private int expansionThreshold = DEFAULT_EXPANSION_THRESHOLD;
+    // Visits at which the win ratio and the AMAF win ratio have the same weight, 0 for UCT without RAVE
+    private int raveEquivalence = 0;
+    // Moves after which a playout is scored by the evaluator, 0 to play to the end
+    private int playoutCutoff = 0;
+    private double progressiveBias = 0;
+    private int playoutWorkers = 1;
+    // Runs the playouts of a leaf batch next to the search thread
+    private ExecutorService playoutExecutor;
 
+    /**
+     * How the search uses more than one thread.
+     */
+    public enum ParallelMode {
+        // Only the calling thread searches
+        NONE,
+        // Every thread searches its own tree from the root position, the trees are merged by the visit counts of the root moves
+        ROOT,
+        // All threads search the one tree, the statistics are updated atomically and virtual loss spreads the threads out
+        TREE
+    }
+
+
+    public MonteCarloTreeSearch(boolean IS_PLAYING_AS_PLAYER_ONE, Position rootPosition, Random rnd, double C) {
+        this(IS_PLAYING_AS_PLAYER_ONE, rootPosition, rnd, C, DEFAULT_NODE_BUDGET);
+    }
 
-    public MonteCarloTreeSearch(boolean IS_PLAYING_AS_PLAYER_ONE, MonteCarloNode rootNode, Random rnd, double C) {
+    /**
+     * @param nodeBudget the number of nodes of the tree, the memory for them is allocated here.
+     */
+    public MonteCarloTreeSearch(boolean IS_PLAYING_AS_PLAYER_ONE, Position rootPosition, Random rnd, double C, int nodeBudget) {
         this.IS_PLAYING_AS_PLAYER_ONE = IS_PLAYING_AS_PLAYER_ONE;
-        this.rootNode = rootNode;
+        this.pool = new MonteCarloNodePool(nodeBudget);
+        this.rootNode = pool.createRoot(rootPosition);
         this.RANDOM = rnd;
         this.C = C;
+        this.mainThread = new SearchThread(RANDOM, playoutPolicy, playoutsPerLeaf, playoutCutoff);
+        pool.expand(rootNode);
+    }
+
+    /**
+     * Per thread state of the search, so that the threads only share the tree.
+     */
+    private static final class SearchThread {
+        private final Random random;
+        private final PlayoutKernel kernel;
+        // Nodes are loaded into it to check whether the game is over
+        private final Position position = new Position();
+        // Nodes from the root to the node the playout starts from
+        private final int[] path = new int[MAX_PATH];
+        // Result and squares played by each player of every playout of the current batch
+        private final int[] batchResults;
+        private final long[] batchPlayerOneMoves;
+        private final long[] batchPlayerTwoMoves;
+        // Selections of the current search and the depths of their leaves
+        private long iterations;
+        private long depthSum;
+        private int maxDepth;
+
+        private SearchThread(Random random, PlayoutPolicy policy, int playoutsPerLeaf, int playoutCutoff) {
+            this.random = random;
+            this.kernel = new PlayoutKernel(policy, random.nextLong(), playoutCutoff);
+            this.batchResults = new int[playoutsPerLeaf];
+            this.batchPlayerOneMoves = new long[playoutsPerLeaf];
+            this.batchPlayerTwoMoves = new long[playoutsPerLeaf];
+        }
     }
 
     /*
@@ -33,107 +117,316 @@ public class MonteCarloTreeSearch {
         Backpropagation: Use the result of the playout to update information in the nodes on the path from C to R.
         */
     public long findNextMove(long timetoCalcThisMove) {
-        long startTimeForMove = System.currentTimeMillis();
-        expandNode(rootNode);
-        while ((System.currentTimeMillis() - startTimeForMove) < timetoCalcThisMove - TIME_TO_SUBTRACT_EACH_MOVE) {
-            MonteCarloNode promisingNode = selectPromisingNode(rootNode);
-            if (promisingNode.getGame().gameStatus() == GameStatus.RUNNING) {
-                expandNode(promisingNode);
+        long endTime = System.currentTimeMillis() + timetoCalcThisMove - (long) TIME_TO_SUBTRACT_EACH_MOVE;
+        if (!pool.expand(rootNode)) {
+            // The free blocks are all too small for the children of the root, start over with an empty pool
+            setRootPosition(pool.loadPosition(rootNode, new Position()));
+        }
+        mainThread.iterations = 0;
+        mainThread.depthSum = 0;
+        mainThread.maxDepth = 0;
+        if (threads == 1 || parallelMode == ParallelMode.NONE) {
+            totalSimulations = runPlayouts(pool, rootNode, endTime, mainThread, false);
+            return pool.getMove(pool.getBestChild(rootNode));
+        }
+        if (parallelMode == ParallelMode.TREE) {
+            List<Future<Integer>> helpers = new ArrayList<>(threads - 1);
+            for (int i = 1; i < threads; i++) {
+                SearchThread helper = new SearchThread(new Random(RANDOM.nextLong()), playoutPolicy, playoutsPerLeaf, playoutCutoff);
+                helpers.add(executor.submit(() -> runPlayouts(pool, rootNode, endTime, helper, true)));
             }
-            MonteCarloNode nodeToExplore = promisingNode;
-            if (!promisingNode.getChildren().isEmpty()) {
-                nodeToExplore = promisingNode.getRandomChildNode();
+            totalSimulations = runPlayouts(pool, rootNode, endTime, mainThread, true) + joinHelpers(helpers);
+            return pool.getMove(pool.getBestChild(rootNode));
+        }
+        // Root parallel: the helper trees are thrown away after the move, only this tree is kept for the next move
+        Position rootPosition = pool.loadPosition(rootNode, new Position());
+        int[] helperRoots = new int[threads - 1];
+        List<Future<Integer>> helpers = new ArrayList<>(threads - 1);
+        for (int i = 0; i < helperPools.length; i++) {
+            MonteCarloNodePool helperPool = helperPools[i];
+            helperPool.clear();
+            int helperRoot = helperPool.createRoot(rootPosition);
+            helperPool.expand(helperRoot);
+            helperRoots[i] = helperRoot;
+            SearchThread helper = new SearchThread(new Random(RANDOM.nextLong()), playoutPolicy, playoutsPerLeaf, playoutCutoff);
+            helpers.add(executor.submit(() -> runPlayouts(helperPool, helperRoot, endTime, helper, false)));
+        }
+        totalSimulations = runPlayouts(pool, rootNode, endTime, mainThread, false) + joinHelpers(helpers);
+        if (pool.isProven(rootNode)) {
+            return pool.getMove(pool.getBestChild(rootNode));
+        }
+        return mostVisitedMove(helperRoots);
+    }
+
+    /**
+     * Run selection, expansion, simulation and backpropagation on the tree until the end time.
+     *
+     * @param pool            the tree to search.
+     * @param root            the root node of the search.
+     * @param endTime         the time in ms at which to stop.
+     * @param thread          state of the thread that runs the playouts.
+     * @param virtualLoss     whether other threads search the same tree.
+     * @return the number of playouts.
+     */
+    private int runPlayouts(MonteCarloNodePool pool, int root, long endTime, SearchThread thread, boolean virtualLoss) {
+        int[] path = thread.path;
+        Position position = thread.position;
+        int playouts = 0;
+        // A proven root has an exact result, searching on cannot change the move
+        while (System.currentTimeMillis() < endTime && !pool.isProven(root)) {
+            int pathLength = 0;
+            path[pathLength++] = root;
+            int node = root;
+            boolean allChildrenProven = false;
+            // Selection: descend by UCT through the expanded nodes down to a leaf
+            while (pool.isExpanded(node)) {
+                int child = pool.findBestNodeByUCT(node, C, raveEquivalence, progressiveBias, isMaximizing(pool, node));
+                if (child == MonteCarloNodePool.NO_NODE) {
+                    allChildrenProven = true;
+                    break;
+                }
+                path[pathLength++] = child;
+                if (virtualLoss) {
+                    pool.addVirtualLoss(child);
+                }
+                node = child;
+            }
+            if (allChildrenProven) {
+                // Threads proved the last children at the same time and each missed the proof of the other
+                if (pool.updateProof(node, isMaximizing(pool, node))) {
+                    propagateProof(pool, path, pathLength);
+                }
+                removeVirtualLosses(pool, path, pathLength, virtualLoss);
+                continue;
+            }
+            // Expansion: a leaf gets its children once it has been visited often enough
+            GameStatus gameStatus = pool.loadPosition(node, position).gameStatus();
+            if (gameStatus == GameStatus.RUNNING && (node == root || pool.getVisits(node) >= expansionThreshold) && pool.expand(node)) {
+                int leaf = pool.getRandomChild(node, thread.random);
+                path[pathLength++] = leaf;
+                if (virtualLoss) {
+                    pool.addVirtualLoss(leaf);
+                }
+                gameStatus = pool.loadPosition(leaf, position).gameStatus();
             }
-            // 1: My player won, 0: Draw, -1: My player lost
-            int simulatedGameResult = simulateGameUntilEnd(nodeToExplore);
-            recursiveUpdateScore(nodeToExplore, simulatedGameResult);
-            //totalSimulations++;
-        }
-        return rootNode.getBestChildNode().getMoveThatCreatedThisNode();
-    }
-
-    // Expansion
-    public void expandNode(MonteCarloNode nodeToExpand) {
-        if (!nodeToExpand.hasBeenExpanded()) {
-            OthelloGame nodeGame = nodeToExpand.getGame();
-            boolean isPlayerOne = nodeGame.getPlayerTurnNumber() == 1;
-            long possibleMovesLong = nodeGame.getValidMoves(isPlayerOne);
-            if (possibleMovesLong == 0L) {
-                OthelloGame newGame = nodeGame.copy();
-                newGame.forceMakeMove(isPlayerOne, possibleMovesLong);
-                MonteCarloNode newNode = new MonteCarloNode(nodeToExpand, newGame, possibleMovesLong, C);
-                nodeToExpand.getChildren().add(newNode);
+            thread.depthSum += pathLength - 1;
+            thread.maxDepth = Math.max(thread.maxDepth, pathLength - 1);
+            // Sum of the batch, per playout 1: My player won, 0: Draw, -1: My player lost
+            int simulatedGameResult;
+            if (gameStatus == GameStatus.RUNNING) {
+                simulatedGameResult = simulateBatch(position, thread);
             } else {
-                // iterate over the set bits in possibleMovesLong
-                while (possibleMovesLong != 0L) {
-                    // find the index of the next set bit
-                    int i = Long.numberOfTrailingZeros(possibleMovesLong);
-                    // create a long value with only that bit set
-                    long bit = Long.lowestOneBit(possibleMovesLong);
-                    // make the move corresponding to that bit
-                    OthelloGame newGame = nodeGame.copy();
-                    newGame.forceMakeMove(isPlayerOne, bit);
-                    MonteCarloNode newNode = new MonteCarloNode(nodeToExpand, newGame, bit, C);
-                    nodeToExpand.getChildren().add(newNode);
-                    // clear that bit from possibleMovesLong
-                    possibleMovesLong ^= bit;
+                // The game is over at the leaf, its result is exact
+                int result = scoreGameStatus(gameStatus);
+                simulatedGameResult = result * playoutsPerLeaf;
+                pool.prove(path[pathLength - 1], result);
+                propagateProof(pool, path, pathLength);
+                for (int i = 0; i < playoutsPerLeaf; i++) {
+                    thread.batchResults[i] = result;
+                    thread.batchPlayerOneMoves[i] = 0L;
+                    thread.batchPlayerTwoMoves[i] = 0L;
+                }
+            }
+            if (raveEquivalence > 0) {
+                for (int i = 0; i < playoutsPerLeaf; i++) {
+                    backpropagateAmaf(pool, path, pathLength, thread.batchPlayerOneMoves[i], thread.batchPlayerTwoMoves[i], thread.batchResults[i]);
                 }
+            }
+            backpropagate(pool, path, pathLength, playoutsPerLeaf, simulatedGameResult);
+            removeVirtualLosses(pool, path, pathLength, virtualLoss);
+            thread.iterations++;
+            playouts += playoutsPerLeaf;
+        }
+        return playouts;
+    }
+
+    // Whether the player the search plays for chooses the child at the node
+    private boolean isMaximizing(MonteCarloNodePool pool, int node) {
+        return pool.isPlayerOneToMove(node) == IS_PLAYING_AS_PLAYER_ONE;
+    }
 
+    private static void removeVirtualLosses(MonteCarloNodePool pool, int[] path, int pathLength, boolean virtualLoss) {
+        if (virtualLoss) {
+            // The root is never given a virtual loss
+            for (int i = 1; i < pathLength; i++) {
+                pool.removeVirtualLoss(path[i]);
             }
-            nodeToExpand.nowExpanded();
-        }
-    }
-
-    // Selection
-    private MonteCarloNode selectPromisingNode(MonteCarloNode rootNode) {
-        MonteCarloNode bestNode;
-        bestNode = rootNode.findBestNodeByUCT();
-        return bestNode;
-    }
-
-    private int simulateGameUntilEnd(MonteCarloNode nodeToExplore) {
-        OthelloGame tempGame = nodeToExplore.getGame().copy();
-        boolean isPlayerOne = tempGame.getPlayerTurnNumber() == 1;
-        GameStatus gameStatus = GameStatus.RUNNING;
-        //  MoveStrategy randomMoveStrategy = new RandomMoveStrategy();
-        MoveStrategy cornerMoveStrategy = new CornerMoveStrategy();
-//        MoveStrategy matrixMoveStrategy = new MatrixMoveStrategy();
-//        MoveStrategy matrixChanceMoveStrategy = new MatrixChanceMoveStrategy();
-//        AlphaBetaStrategy alphaBetaStrategy = new AlphaBetaStrategy();
-//        TemporalMoveStrategy temporalMoveStrategy = new TemporalMoveStrategy();
-        while (gameStatus == GameStatus.RUNNING) {
-            long move;
-            // epsilon so that it doesn't always choose the best move
-//            if (RANDOM.nextDouble() < EPSILON) {
-//                move = randomMoveStrategy.getMove(tempGame, isPlayerOne, RANDOM);
-//            } else {
-            move = cornerMoveStrategy.getMove(tempGame, isPlayerOne, RANDOM);
-//           }
-//            move = cornerMoveStrategy.getMove(tempGame, isPlayerOne, RANDOM);
-//            move = alphaBetaStrategy.getMove(tempGame, isPlayerOne, RANDOM);
-            tempGame.forceMakeMove(isPlayerOne, move);
-            isPlayerOne = !isPlayerOne;
-            gameStatus = tempGame.gameStatus();
-            int myPlayerDiscs = IS_PLAYING_AS_PLAYER_ONE ? Long.bitCount(tempGame.getPlayerOneBoard()) : Long.bitCount(tempGame.getPlayerTwoBoard());
-            int opponentDiscs = IS_PLAYING_AS_PLAYER_ONE ? Long.bitCount(tempGame.getPlayerTwoBoard()) : Long.bitCount(tempGame.getPlayerOneBoard());
-            int diff = Math.abs(myPlayerDiscs - opponentDiscs);
-            if (diff > 38) {
-                return myPlayerDiscs > opponentDiscs ? 1 : -1;
+        }
+    }
+
+    /**
+     * Play the batch of playouts of a leaf and record every playout in the batch arrays of the thread. With playout
+     * workers the batch is split evenly between the workers and the search thread.
+     *
+     * @return the summed results of the playouts.
+     */
+    private int simulateBatch(Position position, SearchThread thread) {
+        // The position is reused by the search thread, so the workers get its primitives
+        long playerOneBoard = position.getPlayerOneBoard();
+        long playerTwoBoard = position.getPlayerTwoBoard();
+        boolean playerOneToMove = position.isPlayerOneToMove();
+        boolean passed = position.getConsecutivePasses() > 0;
+        int chunks = playoutExecutor == null ? 1 : Math.min(playoutWorkers, playoutsPerLeaf);
+        List<Future<Integer>> workers = new ArrayList<>(chunks - 1);
+        for (int i = 1; i < chunks; i++) {
+            int from = playoutsPerLeaf * i / chunks;
+            int to = playoutsPerLeaf * (i + 1) / chunks;
+            PlayoutKernel kernel = new PlayoutKernel(playoutPolicy, thread.kernel.nextRandom(), playoutCutoff);
+            // Every worker writes its own part of the batch arrays, get() makes the writes visible
+            workers.add(playoutExecutor.submit(() -> playChunk(kernel, thread, from, to, playerOneBoard, playerTwoBoard, playerOneToMove, passed)));
+        }
+        int result = playChunk(thread.kernel, thread, 0, playoutsPerLeaf / chunks, playerOneBoard, playerTwoBoard, playerOneToMove, passed);
+        return result + joinHelpers(workers);
+    }
+
+    private int playChunk(PlayoutKernel kernel, SearchThread thread, int from, int to, long playerOneBoard, long playerTwoBoard, boolean playerOneToMove, boolean passed) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int playoutResult = scorePlayerOneLead(kernel.playout(playerOneBoard, playerTwoBoard, playerOneToMove, passed));
+            thread.batchResults[i] = playoutResult;
+            thread.batchPlayerOneMoves[i] = kernel.getPlayerOneMoves();
+            thread.batchPlayerTwoMoves[i] = kernel.getPlayerTwoMoves();
+            result += playoutResult;
+        }
+        return result;
+    }
+
+    private static int joinHelpers(List<Future<Integer>> helpers) {
+        int playouts = 0;
+        for (Future<Integer> helper : helpers) {
+            try {
+                playouts += helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
             }
         }
-        return scoreGameStatus(gameStatus);
+        return playouts;
     }
 
-    // Backpropagate
-    private void recursiveUpdateScore(MonteCarloNode nodeToExplore, int endOfGameResult) {
-        MonteCarloNode nodeToUpdate = nodeToExplore;
-        while (nodeToUpdate != null) {
-            nodeToUpdate.incrementVisitCount();
-            nodeToUpdate.addWinScore(endOfGameResult);
-            nodeToUpdate = nodeToUpdate.getParent();
+    /**
+     * Merge the root moves of this tree and the helper trees by summing their visit counts.
+     *
+     * @return the move with the most visits over all trees.
+     */
+    private long mostVisitedMove(int[] helperRoots) {
+        long bestMove = 0L;
+        long bestVisits = -1;
+        int first = pool.getFirstChild(rootNode);
+        for (int child = first; child < first + pool.getChildCount(rootNode); child++) {
+            long move = pool.getMove(child);
+            long visits = pool.getVisits(child);
+            for (int i = 0; i < helperRoots.length; i++) {
+                int helperChild = helperPools[i].findChild(helperRoots[i], move);
+                if (helperChild != MonteCarloNodePool.NO_NODE) {
+                    visits += helperPools[i].getVisits(helperChild);
+                }
+            }
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Search with more than one thread from the next move on. The extra threads are daemon threads of a pool that is
+     * kept for the whole game.
+     *
+     * @param parallelMode how the threads share the work.
+     * @param threads      the number of threads, including the calling thread.
+     */
+    public void setParallelism(ParallelMode parallelMode, int threads) {
+        shutdownSearchThreads();
+        this.parallelMode = parallelMode;
+        this.threads = Math.max(1, threads);
+        if (this.threads > 1 && parallelMode == ParallelMode.ROOT) {
+            // The helper trees share the budget so that more threads do not need more memory
+            this.helperPools = new MonteCarloNodePool[this.threads - 1];
+            for (int i = 0; i < helperPools.length; i++) {
+                helperPools[i] = new MonteCarloNodePool(Math.max(MIN_HELPER_NODE_BUDGET, pool.getCapacity() / this.threads));
+                helperPools[i].setComputePriors(progressiveBias > 0);
+            }
+        }
+        if (this.threads > 1 && parallelMode != ParallelMode.NONE) {
+            this.executor = Executors.newFixedThreadPool(this.threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "mcts-helper");
+                // Do not keep the JVM alive after the game
+                thread.setDaemon(true);
+                return thread;
+            });
         }
     }
 
+    /**
+     * Play a batch of playouts from every leaf and backpropagate them together, which saves a selection and a
+     * backpropagation per playout.
+     *
+     * @param playoutsPerLeaf the number of playouts per leaf.
+     * @param playoutWorkers  the number of threads that play a batch, including the search thread. Every search thread
+     *                        shares the same extra workers.
+     */
+    public void setPlayoutsPerLeaf(int playoutsPerLeaf, int playoutWorkers) {
+        shutdownPlayoutWorkers();
+        this.playoutsPerLeaf = Math.max(1, playoutsPerLeaf);
+        this.playoutWorkers = Math.max(1, playoutWorkers);
+        this.mainThread = new SearchThread(RANDOM, playoutPolicy, this.playoutsPerLeaf, playoutCutoff);
+        if (this.playoutWorkers > 1) {
+            this.playoutExecutor = Executors.newFixedThreadPool(this.playoutWorkers - 1, runnable -> {
+                Thread thread = new Thread(runnable, "mcts-playout");
+                // Do not keep the JVM alive after the game
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Stop the helper threads and playout workers, the search continues with one thread.
+     */
+    public void shutdown() {
+        shutdownSearchThreads();
+        shutdownPlayoutWorkers();
+    }
+
+    private void shutdownPlayoutWorkers() {
+        if (playoutExecutor != null) {
+            playoutExecutor.shutdownNow();
+            playoutExecutor = null;
+        }
+        playoutWorkers = 1;
+    }
+
+    private void shutdownSearchThreads() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        helperPools = null;
+        parallelMode = ParallelMode.NONE;
+        threads = 1;
+    }
+
+    /**
+     * Play one game from the position to the end with the playout policy.
+     *
+     * @param position the position to start the playout from.
+     * @return 1 if this player won, 0 for a draw, -1 if this player lost.
+     */
+    public int simulateGameUntilEnd(Position position) {
+        return simulateGameUntilEnd(position, mainThread.kernel);
+    }
+
+    private int simulateGameUntilEnd(Position position, PlayoutKernel kernel) {
+        return scorePlayerOneLead(kernel.playout(position.getPlayerOneBoard(), position.getPlayerTwoBoard(), position.isPlayerOneToMove(), position.getConsecutivePasses() > 0));
+    }
+
+    private int scorePlayerOneLead(int playerOneLead) {
+        return Integer.signum(IS_PLAYING_AS_PLAYER_ONE ? playerOneLead : -playerOneLead);
+    }
+
     private int scoreGameStatus(GameStatus status) {
         if (status == GameStatus.PLAYER_1_WON) {
             return IS_PLAYING_AS_PLAYER_ONE ? 1 : -1;
@@ -144,30 +437,218 @@ public class MonteCarloTreeSearch {
         }
     }
 
+    // Prove the ancestors of a proven leaf until one of them stays unproven
+    private void propagateProof(MonteCarloNodePool pool, int[] path, int pathLength) {
+        for (int i = pathLength - 2; i >= 0; i--) {
+            int node = path[i];
+            if (!pool.updateProof(node, isMaximizing(pool, node))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add one playout to the AMAF statistics along the path. Going up from the leaf, the moves of the tree are added to
+     * the squares of the playout, so every node sees the moves that were played below it.
+     */
+    private static void backpropagateAmaf(MonteCarloNodePool pool, int[] path, int pathLength, long playerOneMoves, long playerTwoMoves, int result) {
+        for (int i = pathLength - 1; i >= 0; i--) {
+            int node = path[i];
+            boolean playerOneToMove = pool.isPlayerOneToMove(node);
+            pool.updateAmaf(node, playerOneToMove ? playerOneMoves : playerTwoMoves, result);
+            // The move that created the node was played by the other side
+            if (playerOneToMove) {
+                playerTwoMoves |= pool.getMove(node);
+            } else {
+                playerOneMoves |= pool.getMove(node);
+            }
+        }
+    }
+
+    // Backpropagate
+    private static void backpropagate(MonteCarloNodePool pool, int[] path, int pathLength, int playouts, int endOfGameResult) {
+        for (int i = pathLength - 1; i >= 0; i--) {
+            pool.update(path[i], playouts, endOfGameResult);
+        }
+    }
+
     // Simulate
 
+    /**
+     * Advance the root by a move. The subtree of the move is kept with its statistics and the rest of the tree goes
+     * back to the pool. If the root has no node for the move, because the budget was used up when it was expanded,
+     * the tree is rebuilt from the position after the move.
+     *
+     * @param move a long with exactly the bit of the move set, or 0 for a pass.
+     * @return false if the move is not valid in the root position, the tree is unchanged then.
+     */
     public boolean makeMove(long move) {
         // Search through root node's children to find the one that matches the move;
-        if (rootNode.getChildren() == null || rootNode.getChildren().isEmpty()) {
-            expandNode(rootNode);
-        }
-        for (MonteCarloNode child : rootNode.getChildren()) {
-            long childMove = child.getMoveThatCreatedThisNode();
-            if (childMove == move) {
-                // Remove the parent node and make the child the new root node
-                child.makeOrphan();
-                rootNode = child;
-                return true;
-            }
+        pool.expand(rootNode);
+        int child = pool.findChild(rootNode, move);
+        if (child != MonteCarloNodePool.NO_NODE) {
+            reusedVisits = pool.getVisits(child);
+            rootNode = pool.reroot(rootNode, child);
+            return true;
+        }
+        Position position = pool.loadPosition(rootNode, new Position());
+        long possibleMoves = position.getValidMoves();
+        boolean isValid = possibleMoves == 0L ? move == 0L : Long.bitCount(move) == 1 && (move & possibleMoves) != 0L;
+        if (!isValid) {
+            return false;
         }
-        return false;
+        position.play(move);
+        setRootPosition(position);
+        return true;
+    }
+
+    /**
+     * Throw the tree away and search from the position from now on, for when the game and the tree are out of step.
+     *
+     * @param position the new root position.
+     */
+    public void setRootPosition(Position position) {
+        pool.clear();
+        rootNode = pool.createRoot(position);
+        pool.expand(rootNode);
+        reusedVisits = 0;
+        rebuilds++;
     }
 
-    public MonteCarloNode getRootNode() {
+    public int getRootNode() {
         return rootNode;
     }
 
+    public MonteCarloNodePool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return the visits of the subtree that the last {@link #makeMove(long)} kept, 0 if the tree was rebuilt.
+     */
+    public int getReusedVisits() {
+        return reusedVisits;
+    }
+
+    /**
+     * @return how often the tree was thrown away and rebuilt from a position.
+     */
+    public int getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * @return the number of playouts of the last search, over all threads.
+     */
     public int getTotalSimulations() {
         return totalSimulations;
     }
+
+    /**
+     * Choose the moves of the playouts with another policy, from the next search on.
+     */
+    public void setPlayoutPolicy(PlayoutPolicy playoutPolicy) {
+        this.playoutPolicy = playoutPolicy;
+        this.mainThread = new SearchThread(RANDOM, playoutPolicy, playoutsPerLeaf, playoutCutoff);
+    }
+
+    public PlayoutPolicy getPlayoutPolicy() {
+        return playoutPolicy;
+    }
+
+    /**
+     * Blend the AMAF win ratio into selection (RAVE). Its weight is sqrt(k / (3n + k)) for a node with n visits, so it
+     * guides the search while a node has few visits and fades out with more.
+     *
+     * @param raveEquivalence the number of visits k at which both ratios have the same weight, 0 switches RAVE off.
+     */
+    public void setRaveEquivalence(int raveEquivalence) {
+        this.raveEquivalence = Math.max(0, raveEquivalence);
+    }
+
+    /**
+     * Stop playouts after a number of moves and score them with {@link PlayoutEvaluator}: the winner is drawn with the
+     * evaluator's win probability, so the result stays a win or a loss and the expected result is unbiased.
+     *
+     * @param playoutCutoff the number of moves of a playout, 0 to play to the end.
+     */
+    public void setPlayoutCutoff(int playoutCutoff) {
+        this.playoutCutoff = Math.max(0, playoutCutoff);
+        this.mainThread = new SearchThread(RANDOM, playoutPolicy, playoutsPerLeaf, this.playoutCutoff);
+    }
+
+    public int getPlayoutCutoff() {
+        return playoutCutoff;
+    }
+
+    /**
+     * Add weight * prior / (visits + 1) to the UCT value, where the prior is the value of the child according to
+     * {@link PlayoutEvaluator}. Applies to nodes that are expanded from now on.
+     *
+     * @param progressiveBias the weight of the prior, 0 switches it off.
+     */
+    public void setProgressiveBias(double progressiveBias) {
+        this.progressiveBias = Math.max(0, progressiveBias);
+        pool.setComputePriors(this.progressiveBias > 0);
+        if (this.progressiveBias > 0) {
+            pool.computePriors(rootNode);
+        }
+        if (helperPools != null) {
+            for (MonteCarloNodePool helperPool : helperPools) {
+                helperPool.setComputePriors(this.progressiveBias > 0);
+            }
+        }
+    }
+
+    public double getProgressiveBias() {
+        return progressiveBias;
+    }
+
+    public int getRaveEquivalence() {
+        return raveEquivalence;
+    }
+
+    /**
+     * Expand a leaf only after it has been visited a number of times. Until then its playouts start from the leaf
+     * itself, which keeps the tree to the nodes that are worth the memory.
+     *
+     * @param expansionThreshold the visits a leaf needs to be expanded, 0 to expand every leaf on its first visit.
+     */
+    public void setExpansionThreshold(int expansionThreshold) {
+        this.expansionThreshold = Math.max(0, expansionThreshold);
+    }
+
+    public int getExpansionThreshold() {
+        return expansionThreshold;
+    }
+
+    /**
+     * @return the average depth below the root of the leaves that the calling thread reached in the last search.
+     */
+    public double getAverageDepth() {
+        return mainThread.iterations == 0 ? 0 : mainThread.depthSum / (double) mainThread.iterations;
+    }
+
+    /**
+     * @return the deepest leaf below the root that the calling thread reached in the last search.
+     */
+    public int getMaxDepth() {
+        return mainThread.maxDepth;
+    }
+
+    public int getPlayoutsPerLeaf() {
+        return playoutsPerLeaf;
+    }
+
+    public int getPlayoutWorkers() {
+        return playoutWorkers;
+    }
+
+    public ParallelMode getParallelMode() {
+        return parallelMode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
 }
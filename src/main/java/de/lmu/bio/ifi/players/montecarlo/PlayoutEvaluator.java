@@ -0,0 +1,47 @@
+package de.lmu.bio.ifi.players.montecarlo;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater;
+
+/**
+ * Fast bitboard evaluation for the Monte Carlo tree search: the weighted piece count of {@link MatrixEvaluater} plus
+ * mobility and frontier discs, mapped to a win probability with a logistic function. The weights and the scale were
+ * picked by a grid search on 48k positions after 15 to 50 moves of the dataset, as the grid values under which the game
+ * results of those positions are most likely.
+ */
+public class PlayoutEvaluator {
+    private static final int MOBILITY_WEIGHT = 64;
+    private static final int FRONTIER_WEIGHT = 48;
+    // An evaluation of this many points is a win probability of 1 / (1 + e^-1), about 73%
+    private static final double WIN_PROBABILITY_SCALE = 340;
+    private static final long NOT_A_FILE = 0xFEFEFEFEFEFEFEFEL;
+    private static final long NOT_H_FILE = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * @param player   the discs of the side to move.
+     * @param opponent the discs of the other side.
+     * @return the evaluation for the side to move.
+     */
+    public static int evaluate(long player, long opponent) {
+        int mobility = Long.bitCount(OthelloGame.getValidMoves(player, opponent)) - Long.bitCount(OthelloGame.getValidMoves(opponent, player));
+        long frontierSquares = neighbours(~(player | opponent));
+        int frontier = Long.bitCount(player & frontierSquares) - Long.bitCount(opponent & frontierSquares);
+        return MatrixEvaluater.getWeightedPieceCount(player, opponent) + MOBILITY_WEIGHT * mobility - FRONTIER_WEIGHT * frontier;
+    }
+
+    /**
+     * @param player   the discs of the side to move.
+     * @param opponent the discs of the other side.
+     * @return the probability that the side to move wins.
+     */
+    public static double winProbability(long player, long opponent) {
+        return 1.0 / (1.0 + Math.exp(-evaluate(player, opponent) / WIN_PROBABILITY_SCALE));
+    }
+
+    // Squares next to any of the squares in all eight directions
+    private static long neighbours(long squares) {
+        return ((squares << 1 | squares << 9 | squares >>> 7) & NOT_A_FILE)
+                | ((squares >>> 1 | squares >>> 9 | squares << 7) & NOT_H_FILE)
+                | squares << 8 | squares >>> 8;
+    }
+}
@@ -0,0 +1,128 @@
+package de.lmu.bio.ifi.players.montecarlo;
+
+import de.lmu.bio.ifi.OthelloGame;
+
+/**
+ * Plays random games to the end on two bitboards and a pass flag. It generates the moves once per ply, the end of the
+ * game is two passes in a row, and it has its own xorshift random generator, so a playout does not allocate and does
+ * not touch any shared state. Every thread needs its own kernel.
+ */
+public class PlayoutKernel {
+    // A playout stops once one side leads by more than this many discs, the leader is very likely to win
+    public static final int DECISIVE_LEAD = 38;
+
+    private final PlayoutPolicy policy;
+    // Number of moves after which a playout is stopped and scored by the evaluator
+    private final int cutoffPlies;
+    private long randomState;
+    // Squares each player played in the last playout, for the all moves as first statistics
+    private long playerOneMoves;
+    private long playerTwoMoves;
+
+    /**
+     * @param policy the move choice.
+     * @param seed   seed of the random generator.
+     */
+    public PlayoutKernel(PlayoutPolicy policy, long seed) {
+        this(policy, seed, 0);
+    }
+
+    /**
+     * @param policy      the move choice.
+     * @param seed        seed of the random generator.
+     * @param cutoffPlies the number of moves after which a playout is scored with {@link PlayoutEvaluator}, 0 to
+     *                    always play to the end.
+     */
+    public PlayoutKernel(PlayoutPolicy policy, long seed, int cutoffPlies) {
+        this.policy = policy;
+        this.cutoffPlies = cutoffPlies > 0 ? cutoffPlies : Integer.MAX_VALUE;
+        // xorshift must not start at 0
+        this.randomState = seed == 0L ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    /**
+     * Play the position to the end, or until the cutoff.
+     *
+     * @param playerOneBoard  discs of player one.
+     * @param playerTwoBoard  discs of player two.
+     * @param playerOneToMove whether player one is to move.
+     * @param passed          whether the last move was a pass.
+     * @return the disc difference of player one minus player two at the end, or when one side had a decisive lead. At
+     * the cutoff the winner is drawn with the win probability of the evaluator and the result is 1 or -1 for player one.
+     */
+    public int playout(long playerOneBoard, long playerTwoBoard, boolean playerOneToMove, boolean passed) {
+        long player = playerOneToMove ? playerOneBoard : playerTwoBoard;
+        long opponent = playerOneToMove ? playerTwoBoard : playerOneBoard;
+        boolean playerIsPlayerOne = playerOneToMove;
+        long playerMoves = 0L;
+        long opponentMoves = 0L;
+        int plies = 0;
+        int playerLead;
+        while (true) {
+            long moves = OthelloGame.getValidMoves(player, opponent);
+            if (moves == 0L) {
+                if (passed) {
+                    playerLead = Long.bitCount(player) - Long.bitCount(opponent);
+                    break;
+                }
+                passed = true;
+            } else if (plies == cutoffPlies) {
+                // Uniform double in [0, 1) from the upper 53 random bits
+                double random = (nextRandom() >>> 11) * 0x1.0p-53;
+                playerLead = random < PlayoutEvaluator.winProbability(player, opponent) ? 1 : -1;
+                break;
+            } else {
+                passed = false;
+                long move = policy.pickMove(moves, player, opponent, nextRandom());
+                long flips = OthelloGame.getFlips(player, opponent, move);
+                player ^= flips | move;
+                opponent ^= flips;
+                playerMoves |= move;
+                plies++;
+                // The mover gained discs, so only its lead can have become decisive
+                playerLead = Long.bitCount(player) - Long.bitCount(opponent);
+                if (playerLead > DECISIVE_LEAD) {
+                    break;
+                }
+            }
+            long swap = player;
+            player = opponent;
+            opponent = swap;
+            swap = playerMoves;
+            playerMoves = opponentMoves;
+            opponentMoves = swap;
+            playerIsPlayerOne = !playerIsPlayerOne;
+        }
+        playerOneMoves = playerIsPlayerOne ? playerMoves : opponentMoves;
+        playerTwoMoves = playerIsPlayerOne ? opponentMoves : playerMoves;
+        return playerIsPlayerOne ? playerLead : -playerLead;
+    }
+
+    /**
+     * @return the next 64 random bits of the xorshift64* generator.
+     */
+    public long nextRandom() {
+        randomState ^= randomState >>> 12;
+        randomState ^= randomState << 25;
+        randomState ^= randomState >>> 27;
+        return randomState * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * @return the squares player one played in the last playout.
+     */
+    public long getPlayerOneMoves() {
+        return playerOneMoves;
+    }
+
+    /**
+     * @return the squares player two played in the last playout.
+     */
+    public long getPlayerTwoMoves() {
+        return playerTwoMoves;
+    }
+
+    public PlayoutPolicy getPolicy() {
+        return policy;
+    }
+}
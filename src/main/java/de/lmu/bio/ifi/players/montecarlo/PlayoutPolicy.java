@@ -0,0 +1,49 @@
+package de.lmu.bio.ifi.players.montecarlo;
+
+import de.lmu.bio.ifi.BitMasks;
+
+/**
+ * Move choice of the {@link PlayoutKernel}. A policy only sees primitives, so playing a playout does not allocate.
+ */
+@FunctionalInterface
+public interface PlayoutPolicy {
+    // Uniformly random move
+    PlayoutPolicy RANDOM = (moves, player, opponent, random) -> randomMove(moves, random);
+    // Random corner move if there is one, otherwise a random move, like CornerMoveStrategy
+    PlayoutPolicy CORNER = (moves, player, opponent, random) -> {
+        long cornerMoves = moves & BitMasks.ALL_CORNER_POSITIONS;
+        return randomMove(cornerMoves != 0L ? cornerMoves : moves, random);
+    };
+    // Like CORNER, but moves next to a corner diagonally are only played if there is nothing else
+    PlayoutPolicy CORNER_AVOID_X = (moves, player, opponent, random) -> {
+        long cornerMoves = moves & BitMasks.ALL_CORNER_POSITIONS;
+        if (cornerMoves != 0L) {
+            return randomMove(cornerMoves, random);
+        }
+        long safeMoves = moves & ~BitMasks.B2_POSITIONS;
+        return randomMove(safeMoves != 0L ? safeMoves : moves, random);
+    };
+
+    /**
+     * @param moves    the valid moves of the side to move, at least one.
+     * @param player   the discs of the side to move.
+     * @param opponent the discs of the other side.
+     * @param random   64 random bits.
+     * @return one of the moves.
+     */
+    long pickMove(long moves, long player, long opponent, long random);
+
+    /**
+     * @param moves  the moves to pick from, at least one.
+     * @param random 64 random bits, the upper half is used.
+     * @return a uniformly random move of the moves.
+     */
+    static long randomMove(long moves, long random) {
+        // Maps the upper 32 random bits onto [0, number of moves) without a division
+        int index = (int) (((random >>> 32) * Long.bitCount(moves)) >>> 32);
+        for (; index > 0; index--) {
+            moves &= moves - 1;
+        }
+        return Long.lowestOneBit(moves);
+    }
+}
@@ -1,43 +1,34 @@
 package de.lmu.bio.ifi.players.montecarlo.movestrategies;
 
 import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.evaluation.Evaluator;
 import de.lmu.bio.ifi.players.AlphaBetaPlayer;
 
-import java.util.HashMap;
 import java.util.Random;
 
 public class AlphaBetaStrategy implements MoveStrategy {
-    private final HashMap<String, Integer> FIRST_PHASE_WEIGHTS;
-    private final HashMap<String, Integer> SECOND_PHASE_WEIGHTS;
-    private final HashMap<String, Integer> THIRD_PHASE_WEIGHTS;
+    private final Evaluator evaluator;
 
     public AlphaBetaStrategy() {
-        FIRST_PHASE_WEIGHTS = new HashMap<>();
-        FIRST_PHASE_WEIGHTS.put("MATRIX", 1);
-        FIRST_PHASE_WEIGHTS.put("MOBILITY", 3);
-        FIRST_PHASE_WEIGHTS.put("STABILITY", 0);
-        FIRST_PHASE_WEIGHTS.put("DISCS", 0);
-        FIRST_PHASE_WEIGHTS.put("FRONTIER", 3);
-        FIRST_PHASE_WEIGHTS.put("CORNER", 50);
-        FIRST_PHASE_WEIGHTS.put("PARITY", 2);
-
-        SECOND_PHASE_WEIGHTS = new HashMap<>();
-        SECOND_PHASE_WEIGHTS.put("MATRIX", 1);
-        SECOND_PHASE_WEIGHTS.put("MOBILITY", 2);
-        SECOND_PHASE_WEIGHTS.put("STABILITY", 0);
-        SECOND_PHASE_WEIGHTS.put("DISCS", 0);
-        SECOND_PHASE_WEIGHTS.put("FRONTIER", 3);
-        SECOND_PHASE_WEIGHTS.put("CORNER", 50);
-        SECOND_PHASE_WEIGHTS.put("PARITY", 2);
-
-        THIRD_PHASE_WEIGHTS = new HashMap<>();
-        THIRD_PHASE_WEIGHTS.put("MATRIX", 0);
-        THIRD_PHASE_WEIGHTS.put("MOBILITY", 0);
-        THIRD_PHASE_WEIGHTS.put("STABILITY", 0);
-        THIRD_PHASE_WEIGHTS.put("DISCS", 5);
-        THIRD_PHASE_WEIGHTS.put("FRONTIER", 0);
-        THIRD_PHASE_WEIGHTS.put("CORNER", 5);
-        THIRD_PHASE_WEIGHTS.put("PARITY", 2);
+        int[] firstPhaseWeights = Evaluator.emptyWeights();
+        firstPhaseWeights[Evaluator.MATRIX] = 1;
+        firstPhaseWeights[Evaluator.MOBILITY_LOOKAHEAD] = 3;
+        firstPhaseWeights[Evaluator.FRONTIER] = 3;
+        firstPhaseWeights[Evaluator.CORNER] = 50;
+        firstPhaseWeights[Evaluator.PARITY] = 2;
+
+        int[] secondPhaseWeights = Evaluator.emptyWeights();
+        secondPhaseWeights[Evaluator.MATRIX] = 1;
+        secondPhaseWeights[Evaluator.MOBILITY_LOOKAHEAD] = 2;
+        secondPhaseWeights[Evaluator.FRONTIER] = 3;
+        secondPhaseWeights[Evaluator.CORNER] = 50;
+        secondPhaseWeights[Evaluator.PARITY] = 2;
+
+        int[] thirdPhaseWeights = Evaluator.emptyWeights();
+        thirdPhaseWeights[Evaluator.DISCS] = 5;
+        thirdPhaseWeights[Evaluator.CORNER] = 5;
+        thirdPhaseWeights[Evaluator.PARITY] = 2;
+        evaluator = AlphaBetaPlayer.createEvaluator(firstPhaseWeights, secondPhaseWeights, thirdPhaseWeights);
     }
 
     /**
@@ -53,7 +44,7 @@ public class AlphaBetaStrategy implements MoveStrategy {
         if (numberOfSetBits <= 1) {
             return possibleMoves;
         } else {
-            return AlphaBetaPlayer.findBestMove(game, possibleMoves, 0, isPlayerOne, FIRST_PHASE_WEIGHTS, SECOND_PHASE_WEIGHTS, THIRD_PHASE_WEIGHTS, 1);
+            return AlphaBetaPlayer.findBestMove(game, possibleMoves, 0, isPlayerOne, evaluator, 1);
         }
 
     }
@@ -2,13 +2,22 @@ package de.lmu.bio.ifi.players.montecarlo.movestrategies;
 
 import de.lmu.bio.ifi.BitMasks;
 import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.Position;
 
 import java.util.Random;
 
 public class CornerMoveStrategy implements MoveStrategy{
     @Override
     public long getMove(OthelloGame game, boolean isPlayerOne, Random random) {
-        long possibleMoves = game.getValidMoves(isPlayerOne);
+        return pickMove(game.getValidMoves(isPlayerOne), random);
+    }
+
+    @Override
+    public long getMove(Position position, Random random) {
+        return pickMove(position.getValidMoves(), random);
+    }
+
+    private static long pickMove(long possibleMoves, Random random) {
         int numberOfSetBits = Long.bitCount(possibleMoves);
         if (numberOfSetBits <= 1) {
             return possibleMoves;
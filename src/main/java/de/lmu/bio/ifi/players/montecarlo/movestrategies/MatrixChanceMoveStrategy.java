@@ -4,7 +4,7 @@ import de.lmu.bio.ifi.OthelloGame;
 
 import java.util.Random;
 
-import static de.lmu.bio.ifi.OthelloGame.forceTempMakeMove;
+import static de.lmu.bio.ifi.OthelloGame.getFlips;
 import static de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater.getWeightedPieceCount;
 
 public class MatrixChanceMoveStrategy implements MoveStrategy {
@@ -25,9 +25,9 @@ public class MatrixChanceMoveStrategy implements MoveStrategy {
                 long testMove = Long.lowestOneBit(moves); // get the lowest set bit
                 moves ^= testMove; // unset the lowest bit
                 if (testMove != 0L) {
-                    long[] discs = forceTempMakeMove(isPlayerOne, playerBoard, opponentBoard, testMove);
-                    long tempPlayerBoard = discs[0];
-                    long tempOpponentBoard = discs[1];
+                    long chipsToFlip = getFlips(playerBoard, opponentBoard, testMove);
+                    long tempPlayerBoard = playerBoard ^ chipsToFlip ^ testMove;
+                    long tempOpponentBoard = opponentBoard ^ chipsToFlip;
                     double Wi = getWeightedPieceCount(tempPlayerBoard, tempOpponentBoard);
                     double Di = Wi - W;
                     if (Di > bestScore) {
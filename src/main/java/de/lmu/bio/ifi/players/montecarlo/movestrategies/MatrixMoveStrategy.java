@@ -4,7 +4,7 @@ import de.lmu.bio.ifi.OthelloGame;
 
 import java.util.Random;
 
-import static de.lmu.bio.ifi.OthelloGame.forceTempMakeMove;
+import static de.lmu.bio.ifi.OthelloGame.getFlips;
 import static de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater.getWeightedPieceCount;
 
 
@@ -27,14 +27,13 @@ public class MatrixMoveStrategy implements MoveStrategy {
                 long testMove = Long.lowestOneBit(moves); // get the lowest set bit
                 moves ^= testMove; // unset the lowest
                 if (testMove != 0L) {
-                    OthelloGame tempGameMove = game.copy();
                     int score = 0;
                     // Make the move
-                    long playerDiscs = isPlayerOne ? tempGameMove.getPlayerOneBoard() : tempGameMove.getPlayerTwoBoard();
-                    long opponentDiscs = isPlayerOne ? tempGameMove.getPlayerTwoBoard() : tempGameMove.getPlayerOneBoard();
-                    long[] discs = forceTempMakeMove(isPlayerOne, playerDiscs, opponentDiscs, testMove);
-                    playerDiscs = discs[0];
-                    opponentDiscs = discs[1];
+                    long playerDiscs = game.getPlayerBoard(isPlayerOne);
+                    long opponentDiscs = game.getPlayerBoard(!isPlayerOne);
+                    long chipsToFlip = getFlips(playerDiscs, opponentDiscs, testMove);
+                    playerDiscs ^= chipsToFlip | testMove;
+                    opponentDiscs ^= chipsToFlip;
                     // Get the score
                     score = getWeightedPieceCount(playerDiscs, opponentDiscs);
                     // Check if it is the best move
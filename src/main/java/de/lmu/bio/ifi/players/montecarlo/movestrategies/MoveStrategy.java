@@ -1,9 +1,22 @@
 package de.lmu.bio.ifi.players.montecarlo.movestrategies;
 
 import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.Position;
 
 import java.util.Random;
 
 public interface MoveStrategy {
     long getMove(OthelloGame game, boolean isPlayerOne, Random random);
-}
\ No newline at end of file
+
+    /**
+     * Get a move for the side to move of a position. Strategies that only need the bitboards should override this,
+     * the default converts the position into a game first.
+     *
+     * @param position the position to pick a move in
+     * @param random   source of randomness
+     * @return the move, or 0 if the side to move has to pass
+     */
+    default long getMove(Position position, Random random) {
+        return getMove(OthelloGame.fromPosition(position), position.isPlayerOneToMove(), random);
+    }
+}
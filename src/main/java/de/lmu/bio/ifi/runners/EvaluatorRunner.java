@@ -0,0 +1,97 @@
+package de.lmu.bio.ifi.runners;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.evaluation.Evaluator;
+import de.lmu.bio.ifi.players.AlphaBetaPlayer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Leaf evaluations per second of {@link Evaluator} with the weights of {@link AlphaBetaPlayer}, which count the
+ * mobility after each move, and with the weights of CombinedAlphaBetaMCTS, which only count the moves. The positions
+ * are every fourth position of games from the dataset. Time is the CPU time of this thread, the median of the rounds
+ * after the warm up is reported. Arguments: number of games (default 200) and rounds (default 30).
+ */
+public class EvaluatorRunner {
+    private static final String DATASET = "src/main/java/de/lmu/bio/ifi/data/othello_dataset.csv";
+    private static final int WARM_UP_ROUNDS = 10;
+    private static final int REPETITIONS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        List<OthelloGame> positions = loadPositions(games);
+
+        int[] firstPhaseWeights = Evaluator.emptyWeights();
+        firstPhaseWeights[Evaluator.MATRIX] = 1;
+        firstPhaseWeights[Evaluator.MOBILITY_LOOKAHEAD] = 1;
+        firstPhaseWeights[Evaluator.FRONTIER] = 3;
+        firstPhaseWeights[Evaluator.CORNER] = 50;
+        firstPhaseWeights[Evaluator.PARITY] = 1;
+        firstPhaseWeights[Evaluator.CORNER_CLOSENESS] = 20;
+        int[] thirdPhaseWeights = Evaluator.emptyWeights();
+        thirdPhaseWeights[Evaluator.DISCS] = 5;
+        thirdPhaseWeights[Evaluator.CORNER] = 5;
+        thirdPhaseWeights[Evaluator.PARITY] = 1;
+        thirdPhaseWeights[Evaluator.CORNER_CLOSENESS] = 3;
+        Evaluator alphaBetaEvaluator = AlphaBetaPlayer.createEvaluator(firstPhaseWeights, firstPhaseWeights, thirdPhaseWeights);
+
+        int[] mobilityWeights = firstPhaseWeights.clone();
+        mobilityWeights[Evaluator.MOBILITY_LOOKAHEAD] = 0;
+        mobilityWeights[Evaluator.MOBILITY] = 3;
+        mobilityWeights[Evaluator.CORNER_CLOSENESS] = 0;
+        thirdPhaseWeights[Evaluator.CORNER_CLOSENESS] = 0;
+        Evaluator combinedEvaluator = AlphaBetaPlayer.createEvaluator(mobilityWeights, mobilityWeights, thirdPhaseWeights);
+
+        System.out.printf("%d positions from %d games%n", positions.size(), games);
+        System.out.printf("AlphaBetaPlayer weights: %.0f evaluations/s%n", measure(alphaBetaEvaluator, positions, rounds));
+        System.out.printf("CombinedAlphaBetaMCTS weights: %.0f evaluations/s%n", measure(combinedEvaluator, positions, rounds));
+    }
+
+    private static double measure(Evaluator evaluator, List<OthelloGame> positions, int rounds) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        double[] evaluationsPerSecond = new double[rounds];
+        long checksum = 0;
+        for (int round = 0; round < WARM_UP_ROUNDS + rounds; round++) {
+            long startTime = threadMXBean.getCurrentThreadCpuTime();
+            for (int i = 0; i < REPETITIONS; i++) {
+                for (OthelloGame game : positions) {
+                    checksum += evaluator.evaluate(game, true);
+                }
+            }
+            long time = threadMXBean.getCurrentThreadCpuTime() - startTime;
+            if (round >= WARM_UP_ROUNDS) {
+                evaluationsPerSecond[round - WARM_UP_ROUNDS] = (double) REPETITIONS * positions.size() * 1_000_000_000L / time;
+            }
+        }
+        // Keeps the evaluations from being optimized away
+        if (checksum == Long.MIN_VALUE) {
+            System.out.println(checksum);
+        }
+        Arrays.sort(evaluationsPerSecond);
+        return evaluationsPerSecond[rounds / 2];
+    }
+
+    private static List<OthelloGame> loadPositions(int count) throws IOException {
+        List<OthelloGame> positions = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(DATASET))) {
+            // skip header
+            String line = reader.readLine();
+            for (int games = 0; games < count && (line = reader.readLine()) != null; games++) {
+                String moves = line.split(",")[2];
+                for (int played = 4; played < moves.length() / 2 - 1; played += 4) {
+                    positions.add(OthelloGame.fromMoveString(moves, played));
+                }
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,127 @@
+package de.lmu.bio.ifi.runners;
+
+import de.lmu.bio.ifi.GameStatus;
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.players.AlphaBetaPlayer;
+import de.lmu.bio.ifi.players.MonteCarloPlayer;
+import de.lmu.bio.ifi.players.montecarlo.MonteCarloTreeSearch;
+import szte.mi.Move;
+import szte.mi.Player;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Report for the tree descent of the Monte Carlo tree search at several expansion thresholds: the average and deepest
+ * leaf of the selections on midgame positions from the dataset, and the score of {@link MonteCarloPlayer} against
+ * {@link AlphaBetaPlayer} when both get the same time. Arguments: time per position in ms (default 1000), time per
+ * game and player in ms (default 8000) and number of games per threshold (default 4), the colours alternate.
+ */
+public class MonteCarloDepthRunner {
+    private static final String DATASET = "src/main/java/de/lmu/bio/ifi/data/othello_dataset.csv";
+    private static final int MOVES = 20;
+    private static final int POSITIONS = 5;
+    private static final double C = 1.52;
+    private static final int[] EXPANSION_THRESHOLDS = {0, 1, 8, 32};
+
+    public static void main(String[] args) throws IOException {
+        long time = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        long gameTime = args.length > 1 ? Long.parseLong(args[1]) : 8000;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        List<OthelloGame> positions = loadPositions();
+
+        // Warm up the JIT so the first threshold is not measured in the interpreter
+        new MonteCarloTreeSearch(true, new OthelloGame().toPosition(), new Random(0), C).findNextMove(time);
+        System.out.printf("%d positions after %d moves, %d ms each%n", positions.size(), MOVES, time);
+        for (int threshold : EXPANSION_THRESHOLDS) {
+            double depthSum = 0;
+            int maxDepth = 0;
+            long playouts = 0;
+            long nodes = 0;
+            for (OthelloGame game : positions) {
+                MonteCarloTreeSearch search = new MonteCarloTreeSearch(game.isPlayerOneToMove(), game.toPosition(), new Random(1), C);
+                search.setExpansionThreshold(threshold);
+                search.findNextMove(time);
+                depthSum += search.getAverageDepth();
+                maxDepth = Math.max(maxDepth, search.getMaxDepth());
+                playouts += search.getTotalSimulations();
+                nodes += search.getPool().getUsedNodes();
+            }
+            System.out.printf("threshold %2d: average depth %.2f, max depth %2d, %d playouts, %d nodes per position%n",
+                    threshold, depthSum / positions.size(), maxDepth, playouts / positions.size(), nodes / positions.size());
+        }
+
+        for (int threshold : EXPANSION_THRESHOLDS) {
+            int wins = 0;
+            int draws = 0;
+            for (int game = 0; game < games; game++) {
+                boolean monteCarloIsPlayerOne = game % 2 == 0;
+                MonteCarloPlayer monteCarloPlayer = new MonteCarloPlayer();
+                AlphaBetaPlayer alphaBetaPlayer = new AlphaBetaPlayer();
+                Player playerOne = monteCarloIsPlayerOne ? monteCarloPlayer : alphaBetaPlayer;
+                Player playerTwo = monteCarloIsPlayerOne ? alphaBetaPlayer : monteCarloPlayer;
+                playerOne.init(0, gameTime, new Random(game));
+                playerTwo.init(1, gameTime, new Random(game + games));
+                monteCarloPlayer.getMonteCarloTreeSearch().setExpansionThreshold(threshold);
+                GameStatus result = playGame(playerOne, playerTwo, gameTime);
+                if (result == GameStatus.DRAW) {
+                    draws++;
+                } else if ((result == GameStatus.PLAYER_1_WON) == monteCarloIsPlayerOne) {
+                    wins++;
+                }
+            }
+            System.out.printf("threshold %2d: MonteCarloPlayer won %d, drew %d of %d games against AlphaBetaPlayer%n", threshold, wins, draws, games);
+        }
+    }
+
+    // Plays a game where each player has the same total time, a player that runs out of time loses
+    private static GameStatus playGame(Player playerOne, Player playerTwo, long gameTime) {
+        OthelloGame othelloGame = new OthelloGame();
+        long playerOneTime = gameTime;
+        long playerTwoTime = gameTime;
+        boolean isPlayerOneTurn = true;
+        Move prevMove = null;
+        while (othelloGame.gameStatus() == GameStatus.RUNNING) {
+            Player player = isPlayerOneTurn ? playerOne : playerTwo;
+            long startTime = System.currentTimeMillis();
+            Move move = player.nextMove(prevMove, isPlayerOneTurn ? playerTwoTime : playerOneTime, isPlayerOneTurn ? playerOneTime : playerTwoTime);
+            long elapsed = System.currentTimeMillis() - startTime;
+            if (isPlayerOneTurn) {
+                playerOneTime -= elapsed;
+            } else {
+                playerTwoTime -= elapsed;
+            }
+            if (playerOneTime <= 0 || playerTwoTime <= 0) {
+                return playerOneTime <= 0 ? GameStatus.PLAYER_2_WON : GameStatus.PLAYER_1_WON;
+            }
+            if (move == null) {
+                othelloGame.makeMove(isPlayerOneTurn, -1, -1);
+            } else if (!othelloGame.makeMove(isPlayerOneTurn, move.x, move.y)) {
+                return isPlayerOneTurn ? GameStatus.PLAYER_2_WON : GameStatus.PLAYER_1_WON;
+            }
+            prevMove = move;
+            isPlayerOneTurn = !isPlayerOneTurn;
+        }
+        return othelloGame.gameStatus();
+    }
+
+    private static List<OthelloGame> loadPositions() throws IOException {
+        List<OthelloGame> games = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(DATASET))) {
+            // skip header
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null && games.size() < POSITIONS) {
+                OthelloGame game = OthelloGame.fromMoveString(line.split(",")[2], MOVES);
+                if (game.getValidMoves(game.isPlayerOneToMove()) != 0L) {
+                    games.add(game);
+                }
+            }
+        }
+        return games;
+    }
+}
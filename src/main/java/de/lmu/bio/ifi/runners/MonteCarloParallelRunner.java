@@ -0,0 +1,90 @@
+package de.lmu.bio.ifi.runners;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.Position;
+import de.lmu.bio.ifi.players.montecarlo.MonteCarloTreeSearch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scaling report for the parallel Monte Carlo tree search: playouts per second at 1, 2, 4, 8 and 16 threads for root
+ * and tree parallelisation, and for batches of playouts per leaf with and without playout workers, on midgame
+ * positions from the dataset. Arguments: time per position in ms (default 1000)
+ * and number of positions (default 5).
+ */
+public class MonteCarloParallelRunner {
+    private static final String DATASET = "src/main/java/de/lmu/bio/ifi/data/othello_dataset.csv";
+    private static final int MOVES = 20;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+    private static final double C = 1.52;
+    private static final int[] PLAYOUTS_PER_LEAF = {1, 8, 32};
+    private static final int[] PLAYOUT_WORKERS = {1, 4};
+
+    public static void main(String[] args) throws IOException {
+        long time = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int positions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<OthelloGame> games = loadPositions(positions);
+
+        // Warm up the JIT so the first thread count is not measured in the interpreter
+        new MonteCarloTreeSearch(true, new Position(), new Random(0), C).findNextMove(time);
+        System.out.printf("%d positions after %d moves, %d ms each, %d cores%n", games.size(), MOVES, time, Runtime.getRuntime().availableProcessors());
+        for (MonteCarloTreeSearch.ParallelMode mode : new MonteCarloTreeSearch.ParallelMode[]{MonteCarloTreeSearch.ParallelMode.ROOT, MonteCarloTreeSearch.ParallelMode.TREE}) {
+            double basePlayoutsPerSecond = 0;
+            for (int threads : THREADS) {
+                long playouts = 0;
+                long elapsed = 0;
+                for (OthelloGame game : games) {
+                    MonteCarloTreeSearch search = new MonteCarloTreeSearch(game.isPlayerOneToMove(), game.toPosition(), new Random(1), C);
+                    search.setParallelism(mode, threads);
+                    long startTime = System.nanoTime();
+                    search.findNextMove(time);
+                    elapsed += System.nanoTime() - startTime;
+                    playouts += search.getTotalSimulations();
+                    search.shutdown();
+                }
+                double playoutsPerSecond = playouts / (elapsed / 1_000_000_000.0);
+                if (threads == 1) {
+                    basePlayoutsPerSecond = playoutsPerSecond;
+                }
+                System.out.printf("%s threads %2d: %.0f playouts/s (speedup %.2f)%n", mode, threads, playoutsPerSecond, playoutsPerSecond / basePlayoutsPerSecond);
+            }
+        }
+        for (int workers : PLAYOUT_WORKERS) {
+            for (int playoutsPerLeaf : PLAYOUTS_PER_LEAF) {
+                long playouts = 0;
+                long elapsed = 0;
+                for (OthelloGame game : games) {
+                    MonteCarloTreeSearch search = new MonteCarloTreeSearch(game.isPlayerOneToMove(), game.toPosition(), new Random(1), C);
+                    search.setPlayoutsPerLeaf(playoutsPerLeaf, workers);
+                    long startTime = System.nanoTime();
+                    search.findNextMove(time);
+                    elapsed += System.nanoTime() - startTime;
+                    playouts += search.getTotalSimulations();
+                    search.shutdown();
+                }
+                System.out.printf("%2d playouts per leaf, %d workers: %.0f playouts/s%n", playoutsPerLeaf, workers, playouts / (elapsed / 1_000_000_000.0));
+            }
+        }
+    }
+
+    private static List<OthelloGame> loadPositions(int count) throws IOException {
+        List<OthelloGame> games = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(DATASET))) {
+            // skip header
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null && games.size() < count) {
+                OthelloGame game = OthelloGame.fromMoveString(line.split(",")[2], MOVES);
+                if (game.getValidMoves(game.isPlayerOneToMove()) != 0L) {
+                    games.add(game);
+                }
+            }
+        }
+        return games;
+    }
+}
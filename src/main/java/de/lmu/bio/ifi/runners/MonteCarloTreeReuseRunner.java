@@ -0,0 +1,69 @@
+package de.lmu.bio.ifi.runners;
+
+import de.lmu.bio.ifi.GameStatus;
+import de.lmu.bio.ifi.Position;
+import de.lmu.bio.ifi.players.montecarlo.MonteCarloTreeSearch;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tree reuse report for the Monte Carlo tree search: two searches play against each other and for every move the
+ * runner prints the share of the root's visits that were kept from the previous move, the nodes in use and the garbage
+ * collections that ran during the search. Arguments: time per move in ms (default 200) and number of games (default 1).
+ */
+public class MonteCarloTreeReuseRunner {
+    private static final double C = 1.52;
+
+    public static void main(String[] args) {
+        long time = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+        long reusedVisits = 0;
+        long visits = 0;
+        long collections = 0;
+        int moves = 0;
+        for (int game = 0; game < games; game++) {
+            Position position = new Position();
+            MonteCarloTreeSearch playerOne = new MonteCarloTreeSearch(true, position, new Random(game), C);
+            MonteCarloTreeSearch playerTwo = new MonteCarloTreeSearch(false, position, new Random(game + games), C);
+            while (position.gameStatus() == GameStatus.RUNNING) {
+                MonteCarloTreeSearch search = position.isPlayerOneToMove() ? playerOne : playerTwo;
+                long move = 0L;
+                if (position.getValidMoves() != 0L) {
+                    int kept = search.getReusedVisits();
+                    long collectionsBefore = countCollections(collectors);
+                    move = search.findNextMove(time);
+                    long collectionsDuringMove = countCollections(collectors) - collectionsBefore;
+                    int rootVisits = search.getPool().getVisits(search.getRootNode());
+                    System.out.printf("move %2d: kept %7d of %8d visits (%5.1f%%), %8d nodes in use, %d collections%n",
+                            moves, kept, rootVisits, 100.0 * kept / Math.max(1, rootVisits), search.getPool().getUsedNodes(), collectionsDuringMove);
+                    reusedVisits += kept;
+                    visits += rootVisits;
+                    collections += collectionsDuringMove;
+                    moves++;
+                }
+                position.play(move);
+                playerOne.makeMove(move);
+                playerTwo.makeMove(move);
+            }
+            System.out.printf("game %d: %d rebuilds%n", game, playerOne.getRebuilds() + playerTwo.getRebuilds());
+        }
+        System.out.printf("%d moves: %.1f%% of the visits reused, %d collections during the searches%n",
+                moves, 100.0 * reusedVisits / Math.max(1, visits), collections);
+        for (GarbageCollectorMXBean collector : collectors) {
+            System.out.printf("%s: %d collections, %d ms%n", collector.getName(), collector.getCollectionCount(), collector.getCollectionTime());
+        }
+    }
+
+    private static long countCollections(List<GarbageCollectorMXBean> collectors) {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+}
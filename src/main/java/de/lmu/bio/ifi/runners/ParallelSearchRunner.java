@@ -0,0 +1,74 @@
+package de.lmu.bio.ifi.runners;
+
+import de.lmu.bio.ifi.OthelloGame;
+import de.lmu.bio.ifi.TranspositionTable;
+import de.lmu.bio.ifi.evaluation.Evaluator;
+import de.lmu.bio.ifi.players.AlphaBetaPlayer;
+import de.lmu.bio.ifi.players.alphabeta.ParallelSearch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scaling report for the Lazy SMP search: time to depth and nodes per second at 1, 2, 4, 8 and 16 threads, on
+ * midgame positions from the dataset. Arguments: depth (default 9) and number of positions (default 10).
+ */
+public class ParallelSearchRunner {
+    private static final String DATASET = "src/main/java/de/lmu/bio/ifi/data/othello_dataset.csv";
+    private static final int MOVES = 24;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws IOException {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int positions = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        List<OthelloGame> games = loadPositions(positions);
+        int[] weights = Evaluator.emptyWeights();
+        weights[Evaluator.MATRIX] = 1;
+        weights[Evaluator.MOBILITY_LOOKAHEAD] = 1;
+        weights[Evaluator.FRONTIER] = 3;
+        weights[Evaluator.CORNER] = 50;
+        weights[Evaluator.PARITY] = 1;
+        weights[Evaluator.CORNER_CLOSENESS] = 20;
+        Evaluator evaluator = AlphaBetaPlayer.createEvaluator(weights, weights, weights);
+
+        System.out.printf("%d positions after %d moves, depth %d, %d cores%n", games.size(), MOVES, depth, Runtime.getRuntime().availableProcessors());
+        double baseTime = 0;
+        for (int threads : THREADS) {
+            long nodes = 0;
+            long time = 0;
+            for (OthelloGame game : games) {
+                // Same table size and a fresh table for every position, so the thread counts are comparable
+                ParallelSearch search = new ParallelSearch(threads, game.isPlayerOneToMove(), evaluator, new TranspositionTable(64));
+                long startTime = System.nanoTime();
+                search.searchToDepth(game, depth);
+                time += System.nanoTime() - startTime;
+                nodes += search.getNodes();
+                search.shutdown();
+            }
+            double seconds = time / 1_000_000_000.0;
+            if (threads == 1) {
+                baseTime = seconds;
+            }
+            System.out.printf("threads %2d: time to depth %.3f s (speedup %.2f), %.0f nodes/s%n", threads, seconds / games.size(), baseTime / seconds, nodes / seconds);
+        }
+    }
+
+    private static List<OthelloGame> loadPositions(int count) throws IOException {
+        List<OthelloGame> games = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(DATASET))) {
+            // skip header
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null && games.size() < count) {
+                OthelloGame game = OthelloGame.fromMoveString(line.split(",")[2], MOVES);
+                if (game.getValidMoves(game.isPlayerOneToMove()) != 0L) {
+                    games.add(game);
+                }
+            }
+        }
+        return games;
+    }
+}
@@ -0,0 +1,20 @@
+package de.lmu.bio.ifi.runners;
+
+import de.lmu.bio.ifi.Perft;
+
+/**
+ * Run perft from the starting position for every depth up to the given one (default 11) and print the node counts
+ * and nodes per second.
+ */
+public class PerftRunner {
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 11;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long startTime = System.nanoTime();
+            long nodes = Perft.perft(depth);
+            long elapsed = System.nanoTime() - startTime;
+            double seconds = elapsed / 1_000_000_000.0;
+            System.out.printf("perft(%d) = %d in %.3f s (%.0f nodes/s)%n", depth, nodes, seconds, nodes / Math.max(seconds, 1e-9));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.lmu.bio.ifi.training;
+
+import de.lmu.bio.ifi.GameStatus;
+import de.lmu.bio.ifi.OthelloGame;
+import szte.mi.Move;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Replays the games of the dataset (eOthello_game_id, winner, game_moves) through {@link OthelloGame} and turns every
+ * position into a training sample labelled with the final disc difference of the game.
+ */
+public final class GameReplay {
+
+    private GameReplay() {
+    }
+
+    /**
+     * A position seen from the side to move and the disc difference the game ended with, for the side to move.
+     */
+    public static final class Sample {
+        public final long player;
+        public final long opponent;
+        public final int discDifference;
+
+        public Sample(long player, long opponent, int discDifference) {
+            this.player = player;
+            this.opponent = opponent;
+            this.discDifference = discDifference;
+        }
+    }
+
+    /**
+     * Stream the lines of the dataset without its header, the stream has to be closed.
+     */
+    public static Stream<String> lines(Path dataset) throws IOException {
+        return Files.lines(dataset).skip(1);
+    }
+
+    /**
+     * @return the id of the game of a dataset line.
+     */
+    public static long gameId(String line) {
+        return Long.parseLong(line.substring(0, line.indexOf(',')));
+    }
+
+    /**
+     * Replay the game of a dataset line.
+     *
+     * @param line a line of the dataset.
+     * @return the samples of all positions of the game in which a move is made, passes are skipped, or no samples if
+     * the moves are not a legal game that ends after the last move.
+     */
+    public static List<Sample> replay(String line) {
+        String moves = line.substring(line.lastIndexOf(',') + 1).trim();
+        OthelloGame game = new OthelloGame();
+        long[] playerOneBoards = new long[moves.length() / 2];
+        long[] playerTwoBoards = new long[moves.length() / 2];
+        boolean[] playerOneToMove = new boolean[moves.length() / 2];
+        for (int i = 0; i < moves.length() / 2; i++) {
+            boolean isPlayerOne = game.isPlayerOneToMove();
+            if (game.getValidMoves(isPlayerOne) == 0L) {
+                game.makeMove(isPlayerOne, -1, -1);
+                isPlayerOne = !isPlayerOne;
+            }
+            playerOneBoards[i] = game.getPlayerOneBoard();
+            playerTwoBoards[i] = game.getPlayerTwoBoard();
+            playerOneToMove[i] = isPlayerOne;
+            Move move = OthelloGame.convertMove(moves.substring(2 * i, 2 * i + 2));
+            if (!game.makeMove(isPlayerOne, move.x, move.y)) {
+                return Collections.emptyList();
+            }
+        }
+        if (game.gameStatus() == GameStatus.RUNNING) {
+            return Collections.emptyList();
+        }
+        int playerOneLead = Long.bitCount(game.getPlayerOneBoard()) - Long.bitCount(game.getPlayerTwoBoard());
+        List<Sample> samples = new ArrayList<>(playerOneBoards.length);
+        for (int i = 0; i < playerOneBoards.length; i++) {
+            if (playerOneToMove[i]) {
+                samples.add(new Sample(playerOneBoards[i], playerTwoBoards[i], playerOneLead));
+            } else {
+                samples.add(new Sample(playerTwoBoards[i], playerOneBoards[i], -playerOneLead));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Replay all games of the dataset in parallel.
+     *
+     * @param dataset    the dataset file.
+     * @param validation whether to return the held out games, every tenth game by id, or the other games.
+     * @return the samples of the games.
+     */
+    public static List<Sample> replayAll(Path dataset, boolean validation) {
+        try (Stream<String> lines = lines(dataset)) {
+            return lines.parallel()
+                    .filter(line -> (gameId(line) % 10 == 0) == validation)
+                    .flatMap(line -> replay(line).stream())
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package de.lmu.bio.ifi.training;
+
+import de.lmu.bio.ifi.evaluation.PatternEvaluator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Fits the weights of {@link PatternEvaluator} to the final disc differences of the games in the dataset and writes
+ * them to a weight file. Each phase is fitted on its own by least squares with gradient descent, where the step of a
+ * weight is its summed error divided by how often its configuration occurs, as in Buro's training of Logistello. The
+ * samples of a phase are split into chunks whose gradients are computed on all cores. Every tenth game is held out to
+ * report the error on games that were not trained on.
+ * <p>
+ * Arguments: dataset (default the dataset in the data package), weight file (default
+ * {@link PatternEvaluator#DEFAULT_WEIGHTS}) and number of epochs (default 100).
+ */
+public class PatternTrainer {
+    private static final String DATASET = "src/main/java/de/lmu/bio/ifi/data/othello_dataset.csv";
+    private static final int EPOCHS = 100;
+    // Fraction of the error of a weight that is corrected per epoch, a sample has PatternEvaluator.INSTANCES weights
+    private static final double LEARNING_RATE = 2.0 / PatternEvaluator.INSTANCES;
+    // Added to the occurrences of a configuration, so that rare ones move slowly
+    private static final int MIN_OCCURRENCES = 128;
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    public static void main(String[] args) throws IOException {
+        Path dataset = Paths.get(args.length > 0 ? args[0] : DATASET);
+        Path weightFile = args.length > 1 ? Paths.get(args[1]) : PatternEvaluator.DEFAULT_WEIGHTS;
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : EPOCHS;
+
+        long startTime = System.currentTimeMillis();
+        List<GameReplay.Sample> training = GameReplay.replayAll(dataset, false);
+        List<GameReplay.Sample> validation = GameReplay.replayAll(dataset, true);
+        System.out.printf("%d training and %d validation samples in %d ms%n", training.size(), validation.size(), System.currentTimeMillis() - startTime);
+
+        int[][] weights = new int[PatternEvaluator.PHASES][];
+        for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+            PhaseSamples trainingSamples = new PhaseSamples(training, phase);
+            PhaseSamples validationSamples = new PhaseSamples(validation, phase);
+            double[] phaseWeights = fit(trainingSamples, epochs);
+            weights[phase] = quantize(phaseWeights);
+            System.out.printf("phase %d: %d samples, error %.2f discs, validation error %.2f discs%n", phase, trainingSamples.size,
+                    rootMeanSquaredError(trainingSamples, phaseWeights), rootMeanSquaredError(validationSamples, phaseWeights));
+        }
+        PatternEvaluator.write(weights, weightFile);
+        System.out.printf("Wrote %s after %d s%n", weightFile, (System.currentTimeMillis() - startTime) / 1000);
+    }
+
+    /**
+     * The samples of one phase with their pattern indices, computed once for all epochs.
+     */
+    static final class PhaseSamples {
+        final int size;
+        final int[] indices;
+        final int[] discDifferences;
+
+        PhaseSamples(List<GameReplay.Sample> samples, int phase) {
+            GameReplay.Sample[] phaseSamples = samples.parallelStream()
+                    .filter(sample -> PatternEvaluator.getPhase(Long.bitCount(sample.player | sample.opponent)) == phase)
+                    .toArray(GameReplay.Sample[]::new);
+            this.size = phaseSamples.length;
+            this.indices = new int[size * PatternEvaluator.INSTANCES];
+            this.discDifferences = new int[size];
+            IntStream.range(0, size).parallel().forEach(i -> {
+                int[] sampleIndices = new int[PatternEvaluator.INSTANCES];
+                PatternEvaluator.computeIndices(phaseSamples[i].player, phaseSamples[i].opponent, sampleIndices);
+                System.arraycopy(sampleIndices, 0, indices, i * PatternEvaluator.INSTANCES, PatternEvaluator.INSTANCES);
+                discDifferences[i] = phaseSamples[i].discDifference;
+            });
+        }
+
+        double predict(double[] weights, int sample) {
+            double prediction = 0;
+            for (int i = sample * PatternEvaluator.INSTANCES; i < (sample + 1) * PatternEvaluator.INSTANCES; i++) {
+                prediction += weights[indices[i]];
+            }
+            return prediction;
+        }
+    }
+
+    /**
+     * Fit the weights of one phase by gradient descent on the squared error.
+     *
+     * @return the weights in discs.
+     */
+    static double[] fit(PhaseSamples samples, int epochs) {
+        double[] weights = new double[PatternEvaluator.WEIGHTS_PER_PHASE];
+        int[] occurrences = new int[PatternEvaluator.WEIGHTS_PER_PHASE];
+        for (int index : samples.indices) {
+            occurrences[index]++;
+        }
+        int chunks = (samples.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            // Every chunk sums the errors of its samples per weight, the sums are added up afterwards
+            double[] errors = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> chunkErrors(samples, weights, chunk))
+                    .reduce(PatternTrainer::add)
+                    .orElseGet(() -> new double[PatternEvaluator.WEIGHTS_PER_PHASE]);
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] += LEARNING_RATE * errors[i] / (occurrences[i] + MIN_OCCURRENCES);
+            }
+        }
+        return weights;
+    }
+
+    private static double[] chunkErrors(PhaseSamples samples, double[] weights, int chunk) {
+        double[] errors = new double[PatternEvaluator.WEIGHTS_PER_PHASE];
+        int end = Math.min(samples.size, (chunk + 1) * CHUNK_SIZE);
+        for (int sample = chunk * CHUNK_SIZE; sample < end; sample++) {
+            double error = samples.discDifferences[sample] - samples.predict(weights, sample);
+            for (int i = sample * PatternEvaluator.INSTANCES; i < (sample + 1) * PatternEvaluator.INSTANCES; i++) {
+                errors[samples.indices[i]] += error;
+            }
+        }
+        return errors;
+    }
+
+    private static double[] add(double[] sum, double[] other) {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += other[i];
+        }
+        return sum;
+    }
+
+    static double rootMeanSquaredError(PhaseSamples samples, double[] weights) {
+        double squaredError = IntStream.range(0, samples.size).parallel()
+                .mapToDouble(sample -> {
+                    double error = samples.discDifferences[sample] - samples.predict(weights, sample);
+                    return error * error;
+                })
+                .sum();
+        return Math.sqrt(squaredError / Math.max(1, samples.size));
+    }
+
+    // Weights in discs to the units of the weight file
+    private static int[] quantize(double[] weights) {
+        int[] quantized = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            long weight = Math.round(weights[i] * PatternEvaluator.DISC_SCALE);
+            quantized[i] = (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, weight));
+        }
+        return quantized;
+    }
+}
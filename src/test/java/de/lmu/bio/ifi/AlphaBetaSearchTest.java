@@ -0,0 +1,145 @@
+package de.lmu.bio.ifi;
+
+import de.lmu.bio.ifi.evaluation.Evaluator;
+import de.lmu.bio.ifi.players.AlphaBetaPlayer;
+import de.lmu.bio.ifi.players.alphabeta.AlphaBetaSearch;
+import de.lmu.bio.ifi.players.alphabeta.MoveOrdering;
+import de.lmu.bio.ifi.players.alphabeta.ParallelSearch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class AlphaBetaSearchTest {
+	private static final Evaluator EVALUATOR;
+
+	static {
+		int[] weights = Evaluator.emptyWeights();
+		weights[Evaluator.MATRIX] = 1;
+		weights[Evaluator.MOBILITY_LOOKAHEAD] = 1;
+		weights[Evaluator.DISCS] = 1;
+		weights[Evaluator.FRONTIER] = 3;
+		weights[Evaluator.CORNER] = 50;
+		weights[Evaluator.PARITY] = 1;
+		weights[Evaluator.CORNER_CLOSENESS] = 20;
+		EVALUATOR = AlphaBetaPlayer.createEvaluator(weights, weights, weights);
+	}
+
+	// Plain minimax with the same scoring as AlphaBetaSearch, without any pruning
+	private static int negamax(OthelloGame game, int depth, boolean isPlayerOne) {
+		boolean toMove = game.isPlayerOneToMove();
+		long possibleMoves = game.getValidMoves(toMove);
+		if (possibleMoves == 0L && game.getValidMoves(!toMove) == 0L) {
+			int discDifference = Long.bitCount(game.getPlayerBoard(toMove)) - Long.bitCount(game.getPlayerBoard(!toMove));
+			return discDifference == 0 ? 0 : Integer.signum(discDifference) * AlphaBetaSearch.WIN_SCORE + discDifference;
+		}
+		if (depth == 0) {
+			int score = AlphaBetaPlayer.scoreGame(game, GameStatus.RUNNING, isPlayerOne, EVALUATOR);
+			return toMove == isPlayerOne ? score : -score;
+		}
+		if (possibleMoves == 0L) {
+			game.makeMove(toMove, 0L);
+			int score = -negamax(game, depth - 1, isPlayerOne);
+			game.unmakeMove(0L, 0L);
+			return score;
+		}
+		int best = -AlphaBetaSearch.INFINITY;
+		while (possibleMoves != 0L) {
+			long move = Long.lowestOneBit(possibleMoves);
+			possibleMoves ^= move;
+			long chipsToFlip = game.makeMove(toMove, move);
+			best = Math.max(best, -negamax(game, depth - 1, isPlayerOne));
+			game.unmakeMove(move, chipsToFlip);
+		}
+		return best;
+	}
+
+	/**
+	 * PVS with aspiration windows and a transposition table has to find the same score as plain minimax.
+	 */
+	@Test
+	@DisplayName("fixed depth search score matches plain minimax")
+	public void searchMatchesMinimax() {
+		Random random = new Random(3);
+		for (int i = 0; i < 30; i++) {
+			OthelloGame game = new OthelloGame();
+			int plies = 10 + random.nextInt(45);
+			for (int j = 0; j < plies && game.gameStatus() == GameStatus.RUNNING; j++) {
+				long possibleMoves = game.getValidMoves(game.isPlayerOneToMove());
+				for (int k = random.nextInt(Math.max(1, Long.bitCount(possibleMoves))); k > 0; k--) {
+					possibleMoves &= possibleMoves - 1;
+				}
+				game.forceMakeMove(game.isPlayerOneToMove(), Long.lowestOneBit(possibleMoves));
+			}
+			boolean isPlayerOne = game.isPlayerOneToMove();
+			if (game.gameStatus() != GameStatus.RUNNING || game.getValidMoves(isPlayerOne) == 0L) {
+				continue;
+			}
+			Position before = game.toPosition();
+			for (int depth = 1; depth <= 4; depth++) {
+				int expected = negamax(game, depth, isPlayerOne);
+				for (MoveOrdering moveOrdering : new MoveOrdering[]{new MoveOrdering(false, false, 0), new MoveOrdering(), new MoveOrdering(true, true, 4)}) {
+					AlphaBetaSearch search = new AlphaBetaSearch(isPlayerOne, EVALUATOR, new TranspositionTable(1), moveOrdering);
+					search.searchToDepth(game, depth);
+					Assertions.assertEquals(expected, search.getBestScore(), "depth " + depth + "\n" + game);
+					Assertions.assertEquals(before, game.toPosition());
+				}
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("move ordering puts the table move first, then the killers")
+	public void tableMoveAndKillersFirst() {
+		OthelloGame game = new OthelloGame();
+		long possibleMoves = game.getValidMoves(true);
+		long[] moves = new long[4];
+		for (int i = 0; i < 4; i++) {
+			moves[i] = Long.lowestOneBit(possibleMoves);
+			possibleMoves ^= moves[i];
+		}
+		MoveOrdering moveOrdering = new MoveOrdering();
+		moveOrdering.recordCutoff(game, moves[1], 3, 5, 2);
+		moveOrdering.recordCutoff(game, moves[2], 3, 5, 0);
+		int count = moveOrdering.orderMoves(game, game.getValidMoves(true), moves[3], 3, 5);
+		Assertions.assertEquals(4, count);
+		Assertions.assertEquals(moves[3], moveOrdering.getMove(3, 0));
+		Assertions.assertEquals(moves[2], moveOrdering.getMove(3, 1));
+		Assertions.assertEquals(moves[1], moveOrdering.getMove(3, 2));
+		Assertions.assertEquals(moves[0], moveOrdering.getMove(3, 3));
+		Assertions.assertEquals(0.5, moveOrdering.getFirstMoveCutoffRate());
+	}
+
+	@Test
+	@DisplayName("parallel search returns a legal move and leaves the game unchanged")
+	public void parallelSearchReturnsLegalMove() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7d7g6", 12);
+		Position before = game.toPosition();
+		ParallelSearch search = new ParallelSearch(4, game.isPlayerOneToMove(), EVALUATOR, new TranspositionTable(1));
+		for (int depth = 1; depth <= 6; depth++) {
+			long move = search.searchToDepth(game, depth);
+			Assertions.assertEquals(1, Long.bitCount(move));
+			Assertions.assertNotEquals(0L, move & game.getValidMoves(game.isPlayerOneToMove()));
+			Assertions.assertEquals(depth, search.getMainSearch().getCompletedDepth());
+			Assertions.assertEquals(before, game.toPosition());
+		}
+		long move = search.searchForTime(game, 50);
+		Assertions.assertNotEquals(0L, move & game.getValidMoves(game.isPlayerOneToMove()));
+		search.shutdown();
+	}
+
+	@Test
+	@DisplayName("a player with the trained patterns plays legal moves")
+	public void patternPlayerPlaysLegalMoves() {
+		AlphaBetaPlayer player = new AlphaBetaPlayer();
+		player.setUsePatterns(true);
+		player.init(0, 10000, new Random(1));
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7d7g6", 12);
+		Position before = game.toPosition();
+		long move = player.findBestMove(game, 3);
+		Assertions.assertEquals(1, Long.bitCount(move));
+		Assertions.assertNotEquals(0L, move & game.getValidMoves(game.isPlayerOneToMove()));
+		Assertions.assertEquals(before, game.toPosition());
+	}
+}
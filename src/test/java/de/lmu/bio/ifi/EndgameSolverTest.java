@@ -0,0 +1,76 @@
+package de.lmu.bio.ifi;
+
+import de.lmu.bio.ifi.players.alphabeta.EndgameSolver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class EndgameSolverTest {
+
+	// Plain negamax over the final disc difference
+	private static int solve(long player, long opponent, boolean passed) {
+		long possibleMoves = OthelloGame.getValidMoves(player, opponent);
+		if (possibleMoves == 0L) {
+			if (passed) {
+				return Long.bitCount(player) - Long.bitCount(opponent);
+			}
+			return -solve(opponent, player, true);
+		}
+		int best = Integer.MIN_VALUE;
+		while (possibleMoves != 0L) {
+			long move = Long.lowestOneBit(possibleMoves);
+			possibleMoves ^= move;
+			long chipsToFlip = OthelloGame.getFlips(player, opponent, move);
+			best = Math.max(best, -solve(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, false));
+		}
+		return best;
+	}
+
+	@Test
+	@DisplayName("solver finds the exact score and a move that reaches it")
+	public void solverMatchesNegamax() {
+		Random random = new Random(11);
+		EndgameSolver solver = new EndgameSolver();
+		int solved = 0;
+		while (solved < 60) {
+			int empties = 1 + random.nextInt(10);
+			OthelloGame game = new OthelloGame();
+			while (game.getRemainingMoves() > empties && game.gameStatus() == GameStatus.RUNNING) {
+				long possibleMoves = game.getValidMoves(game.isPlayerOneToMove());
+				for (int k = random.nextInt(Math.max(1, Long.bitCount(possibleMoves))); k > 0; k--) {
+					possibleMoves &= possibleMoves - 1;
+				}
+				game.forceMakeMove(game.isPlayerOneToMove(), Long.lowestOneBit(possibleMoves));
+			}
+			boolean toMove = game.isPlayerOneToMove();
+			long player = game.getPlayerBoard(toMove);
+			long opponent = game.getPlayerBoard(!toMove);
+			if (game.gameStatus() != GameStatus.RUNNING || OthelloGame.getValidMoves(player, opponent) == 0L) {
+				continue;
+			}
+			Position before = game.toPosition();
+			long move = solver.solve(game, 10_000);
+			Assertions.assertTrue(solver.isSolved());
+			int expected = solve(player, opponent, false);
+			Assertions.assertEquals(expected, solver.getScore(), game.toString());
+			long chipsToFlip = OthelloGame.getFlips(player, opponent, move);
+			Assertions.assertNotEquals(0L, chipsToFlip);
+			Assertions.assertEquals(expected, -solve(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, false));
+			Assertions.assertEquals(before, game.toPosition());
+			solved++;
+		}
+	}
+
+	@Test
+	@DisplayName("solver handles a position with more than 32 moves")
+	public void solverHandlesManyMoves() {
+		long player = 0x12812108423C2001L;
+		long opponent = 0x0072940124425400L;
+		Assertions.assertEquals(34, Long.bitCount(OthelloGame.getValidMoves(player, opponent)));
+		OthelloGame game = OthelloGame.fromPosition(new Position(player, opponent, true, 0));
+		// Far too many empties to finish, the time only has to run out without an error
+		new EndgameSolver().solve(game, 20);
+	}
+}
@@ -0,0 +1,113 @@
+package de.lmu.bio.ifi;
+
+import de.lmu.bio.ifi.evaluation.Evaluator;
+import de.lmu.bio.ifi.evaluation.PatternEvaluator;
+import de.lmu.bio.ifi.players.AlphaBetaPlayer;
+import de.lmu.bio.ifi.players.montecarlo.movestrategies.MatrixEvaluater;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorTest {
+
+	// Every feature computed on its own, the way scoreGame computed them before the evaluator
+	private static int reference(OthelloGame game, boolean isPlayerOne, int[] weights, PatternEvaluator patterns) {
+		long me = game.getPlayerBoard(isPlayerOne);
+		long opponent = game.getPlayerBoard(!isPlayerOne);
+		int sign = isPlayerOne ? 1 : -1;
+		long mover = game.getPlayerBoard(game.isPlayerOneToMove());
+		long waiting = game.getPlayerBoard(!game.isPlayerOneToMove());
+		long possibleMoves = OthelloGame.getValidMoves(mover, waiting);
+		int lookahead = Long.bitCount(possibleMoves);
+		for (long moves = possibleMoves; moves != 0L; moves &= moves - 1) {
+			long move = Long.lowestOneBit(moves);
+			long flips = OthelloGame.getFlips(mover, waiting, move);
+			lookahead -= Long.bitCount(OthelloGame.getValidMoves(mover ^ flips ^ move, waiting ^ flips));
+		}
+		// The shifts the players always used, the masks of the horizontal shifts are swapped so they wrap around
+		long empty = ~(me | opponent);
+		long emptyNeighbors = (empty & BitMasks.UP_MASK) >>> 8 | (empty & BitMasks.DOWN_MASK) << 8
+				| (empty & BitMasks.RIGHT_MASK) >>> 1 | (empty & BitMasks.LEFT_MASK) << 1
+				| (empty & BitMasks.RIGHT_MASK & BitMasks.UP_MASK) >>> 9 | (empty & BitMasks.LEFT_MASK & BitMasks.UP_MASK) >>> 7
+				| (empty & BitMasks.RIGHT_MASK & BitMasks.DOWN_MASK) << 7 | (empty & BitMasks.LEFT_MASK & BitMasks.DOWN_MASK) << 9;
+		int frontier = Long.bitCount(me & emptyNeighbors) - Long.bitCount(opponent & emptyNeighbors);
+		int closeness = 0;
+		for (int i = 0; i < BitMasks.CORNERS.length; i++) {
+			int close = Long.bitCount((me | opponent) & BitMasks.CORNERS_CLOSE_POSITIONS[i]);
+			closeness += (me & BitMasks.CORNERS[i]) != 0 ? close : (opponent & BitMasks.CORNERS[i]) != 0 ? -close : 0;
+		}
+		int discs = Long.bitCount(me | opponent);
+		return MatrixEvaluater.getWeightedPieceCount(me, opponent) * weights[Evaluator.MATRIX]
+				+ sign * Long.bitCount(possibleMoves) * weights[Evaluator.MOBILITY]
+				+ (Long.bitCount(OthelloGame.getStableDiscs(me, opponent)) - Long.bitCount(OthelloGame.getStableDiscs(opponent, me))) * weights[Evaluator.STABILITY]
+				+ (Long.bitCount(me) - Long.bitCount(opponent)) * weights[Evaluator.DISCS]
+				- frontier * weights[Evaluator.FRONTIER]
+				+ ((discs % 2 == 0) == isPlayerOne ? 1 : -1) * weights[Evaluator.PARITY]
+				+ (Long.bitCount(me & BitMasks.ALL_CORNER_POSITIONS) - Long.bitCount(opponent & BitMasks.ALL_CORNER_POSITIONS)) * weights[Evaluator.CORNER]
+				+ closeness * weights[Evaluator.CORNER_CLOSENESS]
+				+ (int) (sign * lookahead * weights[Evaluator.MOBILITY_LOOKAHEAD] * 0.4)
+				+ (game.isPlayerOneToMove() == isPlayerOne ? 1 : -1) * patterns.evaluate(mover, waiting) * weights[Evaluator.PATTERN];
+	}
+
+	@Test
+	@DisplayName("Evaluation matches the features computed one by one")
+	public void testMatchesReference() throws IOException {
+		PatternEvaluator patterns = PatternEvaluator.loadDefault();
+		Random random = new Random(7);
+		for (int i = 0; i < 200; i++) {
+			int[] weights = Evaluator.emptyWeights();
+			for (int feature = 0; feature < Evaluator.FEATURES; feature++) {
+				// Mostly zero, so the skipped features are covered too
+				weights[feature] = random.nextInt(3) == 0 ? 0 : random.nextInt(101) - 50;
+			}
+			Evaluator evaluator = new Evaluator(new int[][]{weights}, patterns);
+			OthelloGame game = new OthelloGame();
+			int plies = random.nextInt(60);
+			for (int j = 0; j < plies && game.gameStatus() == GameStatus.RUNNING; j++) {
+				long possibleMoves = game.getValidMoves(game.isPlayerOneToMove());
+				for (int k = random.nextInt(Math.max(1, Long.bitCount(possibleMoves))); k > 0; k--) {
+					possibleMoves &= possibleMoves - 1;
+				}
+				game.forceMakeMove(game.isPlayerOneToMove(), Long.lowestOneBit(possibleMoves));
+			}
+			for (boolean isPlayerOne : new boolean[]{true, false}) {
+				assertEquals(reference(game, isPlayerOne, weights, patterns), evaluator.evaluate(game, isPlayerOne), game.toString());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Phases follow the remaining moves per player")
+	public void testPhases() {
+		int[][] weights = new int[3][];
+		for (int phase = 0; phase < 3; phase++) {
+			weights[phase] = Evaluator.emptyWeights();
+			weights[phase][Evaluator.PARITY] = phase + 1;
+		}
+		Evaluator evaluator = new Evaluator(weights, 20, 9);
+		// Player one gets the last move on an even number of discs, so parity scores the phase weight for it
+		assertEquals(1, evaluator.evaluate(-1L >>> 40, 0L, true, true));
+		assertEquals(2, evaluator.evaluate(-1L >>> 38, 0L, true, true));
+		assertEquals(2, evaluator.evaluate(-1L >>> 18, 0L, true, true));
+		assertEquals(3, evaluator.evaluate(-1L >>> 16, 0L, true, true));
+		assertThrows(IllegalArgumentException.class, () -> new Evaluator(weights, 9));
+		weights[0][Evaluator.PATTERN] = 1;
+		assertThrows(IllegalArgumentException.class, () -> new Evaluator(weights, 20, 9));
+	}
+
+	@Test
+	@DisplayName("The weights are copied when the evaluator is created")
+	public void testWeightsCopied() {
+		int[] weights = Evaluator.emptyWeights();
+		weights[Evaluator.DISCS] = 1;
+		Evaluator evaluator = AlphaBetaPlayer.createEvaluator(weights, weights, weights);
+		OthelloGame game = OthelloGame.fromMoveString("f5", 1);
+		int score = evaluator.evaluate(game, true);
+		weights[Evaluator.DISCS] = 100;
+		assertEquals(score, evaluator.evaluate(game, true));
+	}
+}
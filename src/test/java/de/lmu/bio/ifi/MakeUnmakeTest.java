@@ -0,0 +1,52 @@
+package de.lmu.bio.ifi;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MakeUnmakeTest {
+
+	/**
+	 * Plays random games and checks at every ply that making and unmaking each legal move (or the pass)
+	 * restores the boards, the side to move and the pass state exactly.
+	 */
+	@Test
+	@DisplayName("unmakeMove restores the position after every legal move")
+	public void unmakeRestoresPosition() {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 200; i++) {
+			OthelloGame game = new OthelloGame();
+			boolean playerOne = true;
+
+			while (game.gameStatus() == GameStatus.RUNNING) {
+				Position before = game.toPosition();
+				long possibleMoves = game.getValidMoves(playerOne);
+
+				long moves = possibleMoves;
+				do {
+					long move = Long.lowestOneBit(moves);
+					moves ^= move;
+					long chipsToFlip = game.makeMove(playerOne, move);
+					Assertions.assertEquals(move == 0L ? 0L : OthelloGame.getFlips(before.getPlayerBoard(playerOne), before.getPlayerBoard(!playerOne), move), chipsToFlip);
+					Assertions.assertNotEquals(playerOne, game.isPlayerOneToMove());
+					game.unmakeMove(move, chipsToFlip);
+					Assertions.assertEquals(before, game.toPosition());
+				} while (moves != 0L);
+
+				long move = 0L;
+				if (possibleMoves != 0L) {
+					int index = random.nextInt(Long.bitCount(possibleMoves));
+					for (int j = 0; j <= index; j++) {
+						move = Long.lowestOneBit(possibleMoves);
+						possibleMoves ^= move;
+					}
+				}
+				game.forceMakeMove(playerOne, move);
+				playerOne = !playerOne;
+			}
+		}
+	}
+}
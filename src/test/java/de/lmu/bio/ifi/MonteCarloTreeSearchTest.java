@@ -0,0 +1,389 @@
+package de.lmu.bio.ifi;
+
+import de.lmu.bio.ifi.players.montecarlo.MonteCarloNodePool;
+import de.lmu.bio.ifi.players.montecarlo.MonteCarloTreeSearch;
+import de.lmu.bio.ifi.players.montecarlo.PlayoutEvaluator;
+import de.lmu.bio.ifi.players.montecarlo.PlayoutKernel;
+import de.lmu.bio.ifi.players.montecarlo.PlayoutPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloTreeSearchTest {
+	private static final double C = 1.52;
+
+	private static MonteCarloTreeSearch createSearch(OthelloGame game, MonteCarloTreeSearch.ParallelMode mode, int threads) {
+		MonteCarloTreeSearch search = new MonteCarloTreeSearch(game.isPlayerOneToMove(), game.toPosition(), new Random(1), C);
+		search.setParallelism(mode, threads);
+		return search;
+	}
+
+	@Test
+	@DisplayName("Every parallel mode returns a valid move and counts its playouts")
+	public void testParallelModesReturnValidMoves() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		long validMoves = game.getValidMoves(game.isPlayerOneToMove());
+		for (MonteCarloTreeSearch.ParallelMode mode : MonteCarloTreeSearch.ParallelMode.values()) {
+			MonteCarloTreeSearch search = createSearch(game, mode, 3);
+			long move = search.findNextMove(215);
+			search.shutdown();
+			assertEquals(1, Long.bitCount(move), mode.toString());
+			assertNotEquals(0L, move & validMoves, mode.toString());
+			assertTrue(search.getTotalSimulations() > 0, mode.toString());
+		}
+	}
+
+	@Test
+	@DisplayName("Tree parallel search keeps the statistics of the shared tree consistent")
+	public void testTreeParallelStatistics() {
+		OthelloGame game = new OthelloGame();
+		MonteCarloTreeSearch search = createSearch(game, MonteCarloTreeSearch.ParallelMode.TREE, 4);
+		search.findNextMove(215);
+		search.shutdown();
+		MonteCarloNodePool pool = search.getPool();
+		int root = search.getRootNode();
+		assertEquals(search.getTotalSimulations(), pool.getVisits(root));
+		int childVisits = 0;
+		int first = pool.getFirstChild(root);
+		for (int child = first; child < first + pool.getChildCount(root); child++) {
+			childVisits += pool.getVisits(child);
+			// No playout is running any more, so all virtual losses have been removed
+			assertEquals(0, pool.getVirtualLoss(child));
+		}
+		assertEquals(pool.getVisits(root), childVisits);
+	}
+
+	@Test
+	@DisplayName("Children of a node are the positions after each valid move")
+	public void testPoolExpansion() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		MonteCarloNodePool pool = new MonteCarloNodePool(64);
+		int root = pool.createRoot(game.toPosition());
+		assertTrue(pool.expand(root));
+		long validMoves = game.getValidMoves(game.isPlayerOneToMove());
+		assertEquals(Long.bitCount(validMoves), pool.getChildCount(root));
+		Position position = new Position();
+		int first = pool.getFirstChild(root);
+		for (int child = first; child < first + pool.getChildCount(root); child++) {
+			long move = pool.getMove(child);
+			assertNotEquals(0L, move & validMoves);
+			Position expected = game.toPosition();
+			expected.play(move);
+			assertEquals(expected, pool.loadPosition(child, position));
+		}
+	}
+
+	@Test
+	@DisplayName("UCT picks a child of an unvisited node whose children only have virtual losses")
+	public void testUCTWithoutParentVisits() {
+		MonteCarloNodePool pool = new MonteCarloNodePool(64);
+		int root = pool.createRoot(new OthelloGame().toPosition());
+		assertTrue(pool.expand(root));
+		int first = pool.getFirstChild(root);
+		for (int child = first; child < first + pool.getChildCount(root); child++) {
+			pool.addVirtualLoss(child);
+		}
+		int child = pool.findBestNodeByUCT(root, C);
+		assertTrue(child >= first && child < first + pool.getChildCount(root));
+	}
+
+	@Test
+	@DisplayName("The best child is a proven win before any ratio, unvisited children come before proven losses")
+	public void testBestChildRanking() {
+		MonteCarloNodePool pool = new MonteCarloNodePool(64);
+		int root = pool.createRoot(new OthelloGame().toPosition());
+		assertTrue(pool.expand(root));
+		int first = pool.getFirstChild(root);
+		// Won every playout, the same score as a proven win
+		pool.update(first, 3, 3);
+		pool.prove(first + 2, 1);
+		assertEquals(first + 2, pool.getBestChild(root));
+
+		root = pool.createRoot(new OthelloGame().toPosition());
+		assertTrue(pool.expand(root));
+		first = pool.getFirstChild(root);
+		pool.prove(first, -1);
+		pool.prove(first + 1, -1);
+		assertEquals(first + 2, pool.getBestChild(root));
+		pool.update(first + 3, 2, -2);
+		assertEquals(first + 3, pool.getBestChild(root));
+	}
+
+	@Test
+	@DisplayName("Advancing the root keeps the chosen subtree and reuses the slots of the others")
+	public void testRerootReusesSlots() {
+		MonteCarloTreeSearch search = new MonteCarloTreeSearch(true, new Position(), new Random(1), C, 4096);
+		MonteCarloNodePool pool = search.getPool();
+		long bestMove = search.findNextMove(115);
+		int root = search.getRootNode();
+		int child = pool.findChild(root, bestMove);
+		int keptVisits = pool.getVisits(child);
+		int keptChildren = pool.getChildCount(child);
+		int usedBefore = pool.getUsedNodes();
+
+		assertTrue(search.makeMove(bestMove));
+		int newRoot = search.getRootNode();
+		assertEquals(keptVisits, pool.getVisits(newRoot));
+		assertEquals(keptChildren, pool.getChildCount(newRoot));
+		assertTrue(pool.getUsedNodes() < usedBefore);
+		assertFalse(search.makeMove(bestMove));
+
+		// Keep playing until the game is over, the small budget only works if freed slots are reused
+		Position position = pool.loadPosition(newRoot, new Position());
+		while (position.gameStatus() == GameStatus.RUNNING) {
+			long move = search.findNextMove(25);
+			assertTrue(search.makeMove(move));
+			position.play(move);
+			assertEquals(position, pool.loadPosition(search.getRootNode(), new Position()));
+		}
+	}
+
+	@Test
+	@DisplayName("Random move picks every move of the set and nothing else")
+	public void testRandomMoveCoversAllMoves() {
+		long moves = 0x8100_0042_1800_0081L;
+		long picked = 0L;
+		Random random = new Random(3);
+		for (int i = 0; i < 1000; i++) {
+			long move = PlayoutPolicy.randomMove(moves, random.nextLong());
+			assertEquals(1, Long.bitCount(move));
+			assertNotEquals(0L, move & moves);
+			picked |= move;
+		}
+		assertEquals(moves, picked);
+	}
+
+	@Test
+	@DisplayName("Playout kernel returns the disc difference of finished games and stays within the rules")
+	public void testPlayoutKernel() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		Position position = game.toPosition();
+		PlayoutKernel kernel = new PlayoutKernel(PlayoutPolicy.RANDOM, 7);
+		for (int i = 0; i < 1000; i++) {
+			int playerOneLead = kernel.playout(position.getPlayerOneBoard(), position.getPlayerTwoBoard(), position.isPlayerOneToMove(), false);
+			assertTrue(Math.abs(playerOneLead) <= 64);
+		}
+		// Both sides have to pass, so the game is over and the lead is the final disc difference
+		long playerOneBoard = 0xFFFF_FFFF_FFFF_0000L;
+		long playerTwoBoard = 0x0000_0000_0000_FFFFL;
+		assertEquals(32, kernel.playout(playerOneBoard, playerTwoBoard, false, false));
+		assertEquals(32, kernel.playout(playerOneBoard, playerTwoBoard, true, true));
+	}
+
+	@Test
+	@DisplayName("Batches of playouts per leaf are backpropagated together")
+	public void testPlayoutsPerLeaf() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		for (int workers = 1; workers <= 3; workers += 2) {
+			MonteCarloTreeSearch search = createSearch(game, MonteCarloTreeSearch.ParallelMode.NONE, 1);
+			search.setPlayoutsPerLeaf(8, workers);
+			long move = search.findNextMove(215);
+			search.shutdown();
+			assertNotEquals(0L, move & game.getValidMoves(game.isPlayerOneToMove()));
+			MonteCarloNodePool pool = search.getPool();
+			int root = search.getRootNode();
+			assertEquals(search.getTotalSimulations(), pool.getVisits(root));
+			assertEquals(0, pool.getVisits(root) % 8);
+			assertTrue(Math.abs(pool.getWins(root)) <= pool.getVisits(root));
+		}
+	}
+
+	// Plain negamax over the final disc difference
+	private static int solve(long player, long opponent, boolean passed) {
+		long possibleMoves = OthelloGame.getValidMoves(player, opponent);
+		if (possibleMoves == 0L) {
+			if (passed) {
+				return Long.bitCount(player) - Long.bitCount(opponent);
+			}
+			return -solve(opponent, player, true);
+		}
+		int best = Integer.MIN_VALUE;
+		while (possibleMoves != 0L) {
+			long move = Long.lowestOneBit(possibleMoves);
+			possibleMoves ^= move;
+			long chipsToFlip = OthelloGame.getFlips(player, opponent, move);
+			best = Math.max(best, -solve(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, false));
+		}
+		return best;
+	}
+
+	@Test
+	@DisplayName("Solver proves positions near the end, stops early and plays a move with the proven result")
+	public void testSolverProvesEndgames() {
+		Random random = new Random(5);
+		int proven = 0;
+		for (int i = 0; i < 20; i++) {
+			OthelloGame game = new OthelloGame();
+			while (game.getRemainingMoves() > 2 && game.gameStatus() == GameStatus.RUNNING) {
+				long possibleMoves = game.getValidMoves(game.isPlayerOneToMove());
+				long move = 0L;
+				for (int index = possibleMoves == 0L ? -1 : random.nextInt(Long.bitCount(possibleMoves)); index >= 0; index--) {
+					move = Long.lowestOneBit(possibleMoves);
+					possibleMoves ^= move;
+				}
+				game.makeMove(game.isPlayerOneToMove(), move);
+			}
+			boolean playerOne = game.isPlayerOneToMove();
+			long player = game.getPlayerBoard(playerOne);
+			long opponent = game.getPlayerBoard(!playerOne);
+			if (game.gameStatus() != GameStatus.RUNNING || Long.bitCount(OthelloGame.getValidMoves(player, opponent)) < 2) {
+				continue;
+			}
+			MonteCarloTreeSearch search = new MonteCarloTreeSearch(playerOne, game.toPosition(), new Random(i), C);
+			long startTime = System.currentTimeMillis();
+			long move = search.findNextMove(500);
+			long elapsed = System.currentTimeMillis() - startTime;
+			MonteCarloNodePool pool = search.getPool();
+			int root = search.getRootNode();
+			if (!pool.isProven(root)) {
+				continue;
+			}
+			proven++;
+			assertTrue(elapsed < 250);
+			int expected = Integer.signum(solve(player, opponent, false));
+			assertEquals(expected, pool.getProvenResult(root));
+			long chipsToFlip = OthelloGame.getFlips(player, opponent, move);
+			assertEquals(expected, Integer.signum(-solve(opponent ^ chipsToFlip, player ^ chipsToFlip ^ move, false)));
+		}
+		assertTrue(proven > 0);
+	}
+
+	@Test
+	@DisplayName("RAVE fills the AMAF statistics of the root moves and still plays a valid move")
+	public void testRaveStatistics() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		MonteCarloTreeSearch search = createSearch(game, MonteCarloTreeSearch.ParallelMode.NONE, 1);
+		search.setRaveEquivalence(300);
+		long move = search.findNextMove(215);
+		assertNotEquals(0L, move & game.getValidMoves(game.isPlayerOneToMove()));
+		MonteCarloNodePool pool = search.getPool();
+		int root = search.getRootNode();
+		int first = pool.getFirstChild(root);
+		for (int child = first; child < first + pool.getChildCount(root); child++) {
+			// A move is counted when it is played first and when it is played later in the playout
+			assertTrue(pool.getAmafVisits(child) >= pool.getVisits(child));
+			assertTrue(pool.getAmafVisits(child) <= pool.getVisits(root));
+			assertTrue(Math.abs(pool.getAmafWins(child)) <= pool.getAmafVisits(child));
+		}
+	}
+
+	@Test
+	@DisplayName("Cut off playouts return a sampled win or loss that follows the evaluator")
+	public void testPlayoutCutoff() {
+		// Player one owns three corners and has a far better position
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		long playerOneBoard = game.getPlayerBoard(true) | 0x8100_0000_0000_0081L & ~0x8000_0000_0000_0000L;
+		long playerTwoBoard = game.getPlayerBoard(false) & ~playerOneBoard;
+		double probability = PlayoutEvaluator.winProbability(playerOneBoard, playerTwoBoard);
+		assertTrue(probability > 0.5);
+		assertEquals(1 - probability, PlayoutEvaluator.winProbability(playerTwoBoard, playerOneBoard), 1e-9);
+
+		// With a cutoff of one move, player one plays a random move and player two's evaluation decides the winner
+		long moves = OthelloGame.getValidMoves(playerOneBoard, playerTwoBoard);
+		double expected = 0;
+		for (long remaining = moves; remaining != 0L; remaining &= remaining - 1) {
+			Position position = new Position(playerOneBoard, playerTwoBoard, true, 0);
+			position.play(Long.lowestOneBit(remaining));
+			expected += 1 - PlayoutEvaluator.winProbability(position.getPlayerTwoBoard(), position.getPlayerOneBoard());
+		}
+		expected /= Long.bitCount(moves);
+
+		PlayoutKernel kernel = new PlayoutKernel(PlayoutPolicy.RANDOM, 3, 1);
+		int wins = 0;
+		int playouts = 10000;
+		for (int i = 0; i < playouts; i++) {
+			int result = kernel.playout(playerOneBoard, playerTwoBoard, true, false);
+			assertEquals(1, Math.abs(result));
+			wins += result > 0 ? 1 : 0;
+		}
+		assertEquals(expected, (double) wins / playouts, 0.03);
+	}
+
+	@Test
+	@DisplayName("Progressive bias gives the root moves the evaluator's priors")
+	public void testProgressiveBiasPriors() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		MonteCarloTreeSearch search = createSearch(game, MonteCarloTreeSearch.ParallelMode.NONE, 1);
+		search.setProgressiveBias(1.0);
+		search.setPlayoutCutoff(10);
+		MonteCarloNodePool pool = search.getPool();
+		int root = search.getRootNode();
+		boolean playerOne = game.isPlayerOneToMove();
+		int first = pool.getFirstChild(root);
+		for (int child = first; child < first + pool.getChildCount(root); child++) {
+			Position position = pool.loadPosition(child, new Position());
+			double expected = 1 - 2 * PlayoutEvaluator.winProbability(position.getPlayerBoard(!playerOne), position.getPlayerBoard(playerOne));
+			assertEquals(expected, pool.getPrior(child), 0.001);
+		}
+		long move = search.findNextMove(215);
+		assertNotEquals(0L, move & game.getValidMoves(playerOne));
+	}
+
+	@Test
+	@DisplayName("Making a move keeps the subtree of the move and its visits")
+	public void testMakeMoveReusesSubtree() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		MonteCarloTreeSearch search = createSearch(game, MonteCarloTreeSearch.ParallelMode.NONE, 1);
+		long move = search.findNextMove(215);
+		MonteCarloNodePool pool = search.getPool();
+		int child = pool.findChild(search.getRootNode(), move);
+		int childVisits = pool.getVisits(child);
+		int usedNodes = pool.getUsedNodes();
+
+		assertTrue(search.makeMove(move));
+		assertEquals(childVisits, search.getReusedVisits());
+		assertEquals(childVisits, pool.getVisits(search.getRootNode()));
+		assertTrue(pool.getUsedNodes() < usedNodes);
+		assertEquals(0, search.getRebuilds());
+	}
+
+	@Test
+	@DisplayName("A move the tree has no node for rebuilds the tree, an invalid move is rejected")
+	public void testMakeMoveRebuildsTree() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		// The budget only holds the root, so it cannot be expanded
+		MonteCarloTreeSearch search = new MonteCarloTreeSearch(game.isPlayerOneToMove(), game.toPosition(), new Random(1), C, 1);
+		long move = Long.lowestOneBit(game.getValidMoves(game.isPlayerOneToMove()));
+		long invalidMove = Long.lowestOneBit(~game.getValidMoves(game.isPlayerOneToMove()));
+
+		assertFalse(search.makeMove(invalidMove));
+		assertFalse(search.makeMove(0L));
+		assertEquals(0, search.getRebuilds());
+		assertTrue(search.makeMove(move));
+		assertEquals(1, search.getRebuilds());
+		assertEquals(0, search.getReusedVisits());
+		Position expected = game.toPosition();
+		expected.play(move);
+		assertEquals(expected, search.getPool().loadPosition(search.getRootNode(), new Position()));
+	}
+
+	@Test
+	@DisplayName("Selection descends below the root's children and leaves are expanded after the threshold")
+	public void testSelectionDescendsTree() {
+		OthelloGame game = OthelloGame.fromMoveString("f5d6c3d3c4f4f6f3e6e7", 10);
+		MonteCarloTreeSearch search = createSearch(game, MonteCarloTreeSearch.ParallelMode.NONE, 1);
+		search.setExpansionThreshold(4);
+		search.findNextMove(215);
+		assertTrue(search.getMaxDepth() > 2);
+		assertTrue(search.getAverageDepth() >= 1);
+
+		// Every expanded node below the root had enough visits, the visits of the children add up to the parent
+		MonteCarloNodePool pool = search.getPool();
+		int root = search.getRootNode();
+		int first = pool.getFirstChild(root);
+		for (int child = first; child < first + pool.getChildCount(root); child++) {
+			if (pool.isExpanded(child)) {
+				assertTrue(pool.getVisits(child) > 4);
+				int childVisits = 0;
+				int grandchild = pool.getFirstChild(child);
+				for (int i = 0; i < pool.getChildCount(child); i++) {
+					childVisits += pool.getVisits(grandchild + i);
+				}
+				assertEquals(pool.getVisits(child) - 4, childVisits);
+			}
+		}
+	}
+}
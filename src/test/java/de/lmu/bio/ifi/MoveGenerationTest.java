@@ -0,0 +1,123 @@
+package de.lmu.bio.ifi;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import szte.mi.Move;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class MoveGenerationTest {
+
+	private static final String DATASET = "src/main/java/de/lmu/bio/ifi/data/othello_dataset.csv";
+
+	/**
+	 * The move generator before the Kogge-Stone rewrite, one ray walk per direction.
+	 */
+	private static long getValidMovesByRayWalk(long playerBoard, long opponentBoard) {
+		long emptyCells = ~(playerBoard | opponentBoard);
+		long validMoves = 0L;
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, OthelloGame.BOARD_SIZE, BitMasks.DOWN_MASK);
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -OthelloGame.BOARD_SIZE, BitMasks.UP_MASK);
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, 1, BitMasks.RIGHT_MASK);
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -1, BitMasks.LEFT_MASK);
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, OthelloGame.BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, OthelloGame.BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -(OthelloGame.BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
+		validMoves |= OthelloGame.getValidMovesInDirection(playerBoard, opponentBoard, emptyCells, -(OthelloGame.BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
+		return validMoves;
+	}
+
+	private static void assertSameMoves(long playerBoard, long opponentBoard) {
+		Assertions.assertEquals(getValidMovesByRayWalk(playerBoard, opponentBoard), OthelloGame.getValidMoves(playerBoard, opponentBoard));
+	}
+
+	/**
+	 * Replays every game of the dataset and compares the new move generator with the ray walk for both players
+	 * at every ply. The move that was actually played must be among the generated moves.
+	 */
+	@Test
+	@DisplayName("Kogge-Stone move generation matches the ray walk on all dataset games")
+	public void datasetGamesMatchRayWalk() throws IOException {
+		int games = 0;
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(DATASET))) {
+			// skip header
+			String line = reader.readLine();
+			while ((line = reader.readLine()) != null) {
+				String moves = line.split(",")[2];
+				OthelloGame game = new OthelloGame();
+				boolean playerOne = true;
+
+				for (int i = 0; i < moves.length(); i += 2) {
+					long playerOneBoard = game.getPlayerOneBoard();
+					long playerTwoBoard = game.getPlayerTwoBoard();
+					assertSameMoves(playerOneBoard, playerTwoBoard);
+					assertSameMoves(playerTwoBoard, playerOneBoard);
+
+					if (game.getValidMoves(playerOne) == 0L) {
+						game.forceMakeMove(playerOne, 0L);
+						playerOne = !playerOne;
+					}
+					Move move = OthelloGame.convertMove(moves.substring(i, i + 2));
+					Assertions.assertTrue(game.makeMove(playerOne, move.x, move.y), "illegal move in game " + line);
+					playerOne = !playerOne;
+				}
+				assertSameMoves(game.getPlayerOneBoard(), game.getPlayerTwoBoard());
+				assertSameMoves(game.getPlayerTwoBoard(), game.getPlayerOneBoard());
+				games++;
+			}
+		}
+		Assertions.assertTrue(games > 25000);
+	}
+
+	/**
+	 * Edge wrapping is the easiest thing to get wrong, so random boards with many discs on the edges are checked too.
+	 */
+	@Test
+	@DisplayName("Kogge-Stone move generation matches the ray walk on random boards")
+	public void randomBoardsMatchRayWalk() {
+		Random random = new Random(7);
+		for (int i = 0; i < 200000; i++) {
+			long occupied = random.nextLong() | random.nextLong();
+			long playerBoard = random.nextLong() & occupied;
+			long opponentBoard = occupied & ~playerBoard;
+			assertSameMoves(playerBoard, opponentBoard);
+			assertSameMoves(opponentBoard, playerBoard);
+		}
+	}
+
+	/**
+	 * The flip lookup must flip exactly the discs the ray walk flips, for every legal move on random boards.
+	 */
+	@Test
+	@DisplayName("table driven flips match the ray walk on random boards")
+	public void flipsMatchRayWalk() {
+		Random random = new Random(11);
+		for (int i = 0; i < 200000; i++) {
+			long occupied = random.nextLong() | random.nextLong();
+			long playerBoard = random.nextLong() & occupied;
+			long opponentBoard = occupied & ~playerBoard;
+			long moves = OthelloGame.getValidMoves(playerBoard, opponentBoard);
+			while (moves != 0L) {
+				long move = Long.lowestOneBit(moves);
+				moves ^= move;
+				long expected = 0L;
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, OthelloGame.BOARD_SIZE, BitMasks.DOWN_MASK);
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -OthelloGame.BOARD_SIZE, BitMasks.UP_MASK);
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, 1, BitMasks.RIGHT_MASK);
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -1, BitMasks.LEFT_MASK);
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, OthelloGame.BOARD_SIZE + 1, BitMasks.DOWN_RIGHT_MASK);
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, OthelloGame.BOARD_SIZE - 1, BitMasks.DOWN_LEFT_MASK);
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -(OthelloGame.BOARD_SIZE - 1), BitMasks.UP_RIGHT_MASK);
+				expected |= OthelloGame.getTempChipsToFlipInDirection(playerBoard, opponentBoard, move, -(OthelloGame.BOARD_SIZE + 1), BitMasks.UP_LEFT_MASK);
+				Assertions.assertEquals(expected, OthelloGame.getFlips(playerBoard, opponentBoard, move));
+			}
+			// A pass flips nothing
+			Assertions.assertEquals(0L, OthelloGame.getFlips(playerBoard, opponentBoard, 0L));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package de.lmu.bio.ifi;
+
+import de.lmu.bio.ifi.evaluation.PatternEvaluator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternEvaluatorTest {
+
+	// Positions of random games, as player to move and opponent
+	private static List<long[]> randomPositions(int games) {
+		Random random = new Random(11);
+		List<long[]> positions = new ArrayList<>();
+		for (int i = 0; i < games; i++) {
+			OthelloGame game = new OthelloGame();
+			while (game.gameStatus() == GameStatus.RUNNING) {
+				boolean playerOne = game.isPlayerOneToMove();
+				positions.add(new long[]{game.getPlayerBoard(playerOne), game.getPlayerBoard(!playerOne)});
+				long possibleMoves = game.getValidMoves(playerOne);
+				long move = 0L;
+				for (int index = possibleMoves == 0L ? -1 : random.nextInt(Long.bitCount(possibleMoves)); index >= 0; index--) {
+					move = Long.lowestOneBit(possibleMoves);
+					possibleMoves ^= move;
+				}
+				game.makeMove(playerOne, move);
+			}
+		}
+		return positions;
+	}
+
+	@Test
+	@DisplayName("Pattern instances are distinct and together cover every square")
+	public void testInstancesCoverBoard() {
+		assertEquals(34, PatternEvaluator.INSTANCES);
+		Set<Long> instances = new HashSet<>();
+		long covered = 0L;
+		for (int[] squares : PatternEvaluator.INSTANCE_SQUARES) {
+			long mask = 0L;
+			for (int square : squares) {
+				mask |= 1L << square;
+			}
+			assertEquals(squares.length, Long.bitCount(mask));
+			assertTrue(instances.add(mask));
+			covered |= mask;
+		}
+		assertEquals(-1L, covered);
+	}
+
+	@Test
+	@DisplayName("Board symmetries match their definition on squares")
+	public void testSymmetries() {
+		for (int square = 0; square < 64; square++) {
+			int x = square % 8;
+			int y = square / 8;
+			assertEquals(1L << (7 - x + 8 * y), PatternEvaluator.mirrorFiles(1L << square));
+			assertEquals(1L << (y + 8 * x), PatternEvaluator.swapFilesAndRanks(1L << square));
+		}
+	}
+
+	@Test
+	@DisplayName("Evaluation sums the weights of the indices computed square by square")
+	public void testEvaluateMatchesIndices() {
+		Random random = new Random(3);
+		int[][] weights = new int[PatternEvaluator.PHASES][PatternEvaluator.WEIGHTS_PER_PHASE];
+		for (int[] phaseWeights : weights) {
+			for (int i = 0; i < phaseWeights.length; i++) {
+				phaseWeights[i] = random.nextInt(2001) - 1000;
+			}
+		}
+		PatternEvaluator evaluator = new PatternEvaluator(weights);
+		int[] indices = new int[PatternEvaluator.INSTANCES];
+		for (long[] position : randomPositions(50)) {
+			PatternEvaluator.computeIndices(position[0], position[1], indices);
+			int[] phaseWeights = weights[PatternEvaluator.getPhase(Long.bitCount(position[0] | position[1]))];
+			int expected = 0;
+			for (int index : indices) {
+				expected += phaseWeights[index];
+			}
+			assertEquals(expected, evaluator.evaluate(position[0], position[1]));
+		}
+	}
+}
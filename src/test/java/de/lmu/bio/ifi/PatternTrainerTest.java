@@ -0,0 +1,97 @@
+package de.lmu.bio.ifi;
+
+import de.lmu.bio.ifi.evaluation.PatternEvaluator;
+import de.lmu.bio.ifi.training.GameReplay;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternTrainerTest {
+	private static final String GAME = "1056798,1,f5d6c4d3e6f4e3f6c5b4e7f3c6d7b5a5c3b3g5h5g4h4e2g6b6d8c7c8a4a6a7f1a3c2d2"
+			+ "b2e1b7g3h3f2d1a1a2b1a8c1g1f7g8e8f8b8g7h8h7h6h2g2h1";
+
+	@Test
+	@DisplayName("Replaying a game labels every position with the result for the side to move")
+	public void testReplay() {
+		List<GameReplay.Sample> samples = GameReplay.replay(GAME);
+		assertEquals(60, samples.size());
+		GameReplay.Sample first = samples.get(0);
+		OthelloGame game = new OthelloGame();
+		assertEquals(game.getPlayerOneBoard(), first.player);
+		assertEquals(game.getPlayerTwoBoard(), first.opponent);
+		// Player one won this game
+		assertTrue(first.discDifference > 0);
+		assertEquals(-first.discDifference, samples.get(1).discDifference);
+		assertEquals(1056798L, GameReplay.gameId(GAME));
+	}
+
+	@Test
+	@DisplayName("Illegal or unfinished games give no samples")
+	public void testReplayRejectsBrokenGames() {
+		assertTrue(GameReplay.replay("1,1,f5a1").isEmpty());
+		assertTrue(GameReplay.replay("1,1,f5d6c4").isEmpty());
+	}
+
+	@Test
+	@DisplayName("Weights survive writing and loading the weight file")
+	public void testWeightFileRoundTrip(@TempDir Path directory) throws IOException {
+		Random random = new Random(5);
+		int[][] weights = new int[PatternEvaluator.PHASES][PatternEvaluator.WEIGHTS_PER_PHASE];
+		for (int[] phaseWeights : weights) {
+			for (int i = 0; i < phaseWeights.length; i++) {
+				phaseWeights[i] = random.nextInt(65536) + Short.MIN_VALUE;
+			}
+		}
+		Path file = directory.resolve("weights.bin");
+		PatternEvaluator.write(weights, file);
+		PatternEvaluator loaded = PatternEvaluator.load(file);
+		PatternEvaluator expected = new PatternEvaluator(weights);
+		OthelloGame game = new OthelloGame();
+		assertEquals(expected.evaluate(game.getPlayerOneBoard(), game.getPlayerTwoBoard()),
+				loaded.evaluate(game.getPlayerOneBoard(), game.getPlayerTwoBoard()));
+		for (int i = 0; i < 1000; i++) {
+			long player = random.nextLong();
+			long opponent = random.nextLong() & ~player;
+			assertEquals(expected.evaluate(player, opponent), loaded.evaluate(player, opponent));
+		}
+
+		Files.write(file, new byte[]{1, 2, 3, 4});
+		assertThrows(IOException.class, () -> PatternEvaluator.load(file));
+	}
+
+	@Test
+	@DisplayName("The system property replaces the weights on the classpath")
+	public void testWeightFileProperty(@TempDir Path directory) throws IOException {
+		int[][] weights = new int[PatternEvaluator.PHASES][PatternEvaluator.WEIGHTS_PER_PHASE];
+		weights[0][0] = 1;
+		Path file = directory.resolve("weights.bin");
+		PatternEvaluator.write(weights, file);
+		OthelloGame game = new OthelloGame();
+		System.setProperty(PatternEvaluator.WEIGHTS_PROPERTY, file.toString());
+		try {
+			// Only the empty configurations of the first table have a weight, the start position has none of them
+			assertEquals(0, PatternEvaluator.loadDefault().evaluate(game.getPlayerOneBoard(), game.getPlayerTwoBoard()));
+		} finally {
+			System.clearProperty(PatternEvaluator.WEIGHTS_PROPERTY);
+		}
+		assertNotEquals(0, PatternEvaluator.loadDefault().evaluate(game.getPlayerOneBoard(), game.getPlayerTwoBoard()));
+	}
+
+	@Test
+	@DisplayName("Trained weights predict the winner of an endgame")
+	public void testDefaultWeights() throws IOException {
+		PatternEvaluator evaluator = PatternEvaluator.loadDefault();
+		List<GameReplay.Sample> samples = GameReplay.replay(GAME);
+		for (GameReplay.Sample sample : samples.subList(samples.size() - 10, samples.size())) {
+			assertEquals(Integer.signum(sample.discDifference), Integer.signum(evaluator.evaluate(sample.player, sample.opponent)));
+		}
+	}
+}
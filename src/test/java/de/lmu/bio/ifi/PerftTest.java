@@ -0,0 +1,27 @@
+package de.lmu.bio.ifi;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PerftTest {
+	// Known leaf counts from the starting position, indexed by depth
+	private static final long[] PERFT_COUNTS = {1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L, 212258800L};
+
+	@Test
+	@DisplayName("perft from the starting position matches the known counts up to depth 11")
+	public void perftMatchesKnownCounts() {
+		for (int depth = 0; depth < PERFT_COUNTS.length; depth++) {
+			Assertions.assertEquals(PERFT_COUNTS[depth], Perft.perft(depth), "perft(" + depth + ")");
+		}
+	}
+
+	@Test
+	@DisplayName("perft leaves the game unchanged")
+	public void perftRestoresGame() {
+		OthelloGame game = new OthelloGame();
+		Position start = game.toPosition();
+		Perft.perft(game, 8);
+		Assertions.assertEquals(start, game.toPosition());
+	}
+}
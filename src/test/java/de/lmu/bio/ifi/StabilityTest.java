@@ -0,0 +1,111 @@
+package de.lmu.bio.ifi;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StabilityTest {
+
+	private static OthelloGame randomGame(Random random, int plies) {
+		OthelloGame game = new OthelloGame();
+		for (int i = 0; i < plies && game.gameStatus() == GameStatus.RUNNING; i++) {
+			long possibleMoves = game.getValidMoves(game.isPlayerOneToMove());
+			for (int k = random.nextInt(Math.max(1, Long.bitCount(possibleMoves))); k > 0; k--) {
+				possibleMoves &= possibleMoves - 1;
+			}
+			game.forceMakeMove(game.isPlayerOneToMove(), Long.lowestOneBit(possibleMoves));
+		}
+		return game;
+	}
+
+	// Turns the board by 90 degrees, square (x, y) goes to (7 - y, x)
+	private static long rotate(long board) {
+		long rotated = 0L;
+		for (int square = 0; square < 64; square++) {
+			if ((board & 1L << square) != 0) {
+				rotated |= 1L << (7 - square / 8 + (square % 8) * 8);
+			}
+		}
+		return rotated;
+	}
+
+	@Test
+	@DisplayName("Stable discs are never flipped until the end of the game")
+	public void testStableDiscsStay() {
+		Random random = new Random(11);
+		for (int i = 0; i < 500; i++) {
+			OthelloGame game = randomGame(random, random.nextInt(60));
+			long playerOneStable = OthelloGame.getStableDiscs(game.getPlayerOneBoard(), game.getPlayerTwoBoard());
+			long playerTwoStable = OthelloGame.getStableDiscs(game.getPlayerTwoBoard(), game.getPlayerOneBoard());
+			String position = game.toString();
+			for (int j = 0; j < 20; j++) {
+				OthelloGame continuation = game.copy();
+				while (continuation.gameStatus() == GameStatus.RUNNING) {
+					long possibleMoves = continuation.getValidMoves(continuation.isPlayerOneToMove());
+					for (int k = random.nextInt(Math.max(1, Long.bitCount(possibleMoves))); k > 0; k--) {
+						possibleMoves &= possibleMoves - 1;
+					}
+					continuation.forceMakeMove(continuation.isPlayerOneToMove(), Long.lowestOneBit(possibleMoves));
+				}
+				assertEquals(playerOneStable, continuation.getPlayerOneBoard() & playerOneStable, position);
+				assertEquals(playerTwoStable, continuation.getPlayerTwoBoard() & playerTwoStable, position);
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("The lower bound is a subset of the stable discs, which are a subset of the player's discs")
+	public void testLowerBound() {
+		Random random = new Random(3);
+		for (int i = 0; i < 2000; i++) {
+			OthelloGame game = randomGame(random, random.nextInt(61));
+			long player = game.getPlayerOneBoard();
+			long opponent = game.getPlayerTwoBoard();
+			long stable = OthelloGame.getStableDiscs(player, opponent);
+			long lowerBound = OthelloGame.getStableDiscsLowerBound(player, opponent);
+			assertEquals(0L, stable & ~player);
+			assertEquals(0L, lowerBound & ~stable);
+		}
+	}
+
+	@Test
+	@DisplayName("Turning the board turns the stable discs")
+	public void testRotation() {
+		Random random = new Random(5);
+		for (int i = 0; i < 2000; i++) {
+			OthelloGame game = randomGame(random, random.nextInt(61));
+			long player = game.getPlayerOneBoard();
+			long opponent = game.getPlayerTwoBoard();
+			assertEquals(rotate(OthelloGame.getStableDiscs(player, opponent)), OthelloGame.getStableDiscs(rotate(player), rotate(opponent)));
+			assertEquals(rotate(OthelloGame.getStableDiscsLowerBound(player, opponent)),
+					OthelloGame.getStableDiscsLowerBound(rotate(player), rotate(opponent)));
+		}
+	}
+
+	@Test
+	@DisplayName("Known positions")
+	public void testKnownPositions() {
+		OthelloGame game = new OthelloGame();
+		assertEquals(0L, OthelloGame.getStableDiscs(game.getPlayerOneBoard(), game.getPlayerTwoBoard()));
+		// A corner is always stable, and so are the discs connected to it along the edge
+		assertEquals(0x7L, OthelloGame.getStableDiscsLowerBound(0x7L, 0x8L));
+		assertEquals(0x7L, OthelloGame.getStableDiscs(0x7L, 0x8L));
+		// On a full board every disc is stable
+		long player = new Random(1).nextLong();
+		assertEquals(player, OthelloGame.getStableDiscs(player, ~player));
+		assertEquals(player, OthelloGame.getStableDiscsLowerBound(player, ~player));
+		// b1 between a1 and c1 to g1 of the opponent can not be flipped, only the edge table knows that. The discs on
+		// c1 to g1 are flipped when the player takes h1.
+		assertEquals(0x2L, OthelloGame.getStableDiscs(0x2L, 0x7DL));
+		assertEquals(0L, OthelloGame.getStableDiscsLowerBound(0x2L, 0x7DL));
+		assertEquals(0x1L, OthelloGame.getStableDiscs(0x7DL, 0x2L));
+		// With d1 to g1 empty, the player takes d1 and then the opponent e1, which flips b1 to d1
+		assertEquals(0L, OthelloGame.getStableDiscs(0x2L, 0x5L));
+		// Stability spreads inwards from the stable edge discs
+		long edges = 0xFFL | 0x0101010101010101L;
+		assertEquals(edges | 0x2L << 8, OthelloGame.getStableDiscs(edges | 0x2L << 8, 0L));
+	}
+}
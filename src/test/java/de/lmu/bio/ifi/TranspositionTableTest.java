@@ -0,0 +1,61 @@
+package de.lmu.bio.ifi;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+
+	@Test
+	@DisplayName("stored entries are unpacked unchanged")
+	public void storeAndProbe() {
+		TranspositionTable table = new TranspositionTable(1);
+		long key = new OthelloGame().getZobristKey();
+		Assertions.assertEquals(0L, table.probe(key));
+
+		table.store(key, 7, TranspositionTable.BOUND_LOWER, Integer.MIN_VALUE, 1L << 63);
+		long entry = table.probe(key);
+		Assertions.assertEquals(7, TranspositionTable.getDepth(entry));
+		Assertions.assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.getBound(entry));
+		Assertions.assertEquals(Integer.MIN_VALUE, TranspositionTable.getScore(entry));
+		Assertions.assertEquals(1L << 63, TranspositionTable.getMove(entry));
+
+		table.store(key, 3, TranspositionTable.BOUND_EXACT, -42, 0L);
+		entry = table.probe(key);
+		Assertions.assertEquals(-42, TranspositionTable.getScore(entry));
+		Assertions.assertEquals(0L, TranspositionTable.getMove(entry));
+	}
+
+	@Test
+	@DisplayName("a deeper entry is kept when a shallower one collides in its bucket")
+	public void depthPreferredReplacement() {
+		TranspositionTable table = new TranspositionTable(1);
+		// Same bucket, different keys
+		long deepKey = 0x1234_0000_0000_0001L;
+		long shallowKey = 0x5678_0000_0000_0001L;
+		long otherKey = 0x9ABC_0000_0000_0001L;
+		table.store(deepKey, 10, TranspositionTable.BOUND_EXACT, 1, 0L);
+		table.store(shallowKey, 2, TranspositionTable.BOUND_EXACT, 2, 0L);
+		table.store(otherKey, 2, TranspositionTable.BOUND_EXACT, 3, 0L);
+		Assertions.assertEquals(1, TranspositionTable.getScore(table.probe(deepKey)));
+		Assertions.assertEquals(0L, table.probe(shallowKey));
+		Assertions.assertEquals(3, TranspositionTable.getScore(table.probe(otherKey)));
+
+		// A newer search may replace the deep entry
+		table.newSearch();
+		table.store(shallowKey, 2, TranspositionTable.BOUND_EXACT, 2, 0L);
+		Assertions.assertEquals(0L, table.probe(deepKey));
+		Assertions.assertEquals(2, TranspositionTable.getScore(table.probe(shallowKey)));
+	}
+
+	@Test
+	@DisplayName("an entry is only returned for its own key")
+	public void otherKeysMiss() {
+		TranspositionTable table = new TranspositionTable(1);
+		long key = 0x0F0F_0000_0000_0005L;
+		table.store(key, 4, TranspositionTable.BOUND_UPPER, 9, 1L);
+		Assertions.assertEquals(0L, table.probe(key ^ (1L << 40)));
+		table.clear();
+		Assertions.assertEquals(0L, table.probe(key));
+	}
+}
@@ -0,0 +1,88 @@
+package de.lmu.bio.ifi;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import szte.mi.Move;
+
+import java.util.Random;
+
+public class ZobristTest {
+
+	private static long expectedKey(OthelloGame game) {
+		return Zobrist.hash(game.getPlayerOneBoard(), game.getPlayerTwoBoard(), game.isPlayerOneToMove());
+	}
+
+	/**
+	 * Plays random games with forceMakeMove and checks after every move, and after making and unmaking every legal
+	 * move, that the incremental key matches the key computed from scratch.
+	 */
+	@Test
+	@DisplayName("incremental Zobrist key matches the key computed from scratch")
+	public void incrementalKeyMatchesHash() {
+		Random random = new Random(7);
+
+		for (int i = 0; i < 200; i++) {
+			OthelloGame game = new OthelloGame();
+			Assertions.assertEquals(expectedKey(game), game.getZobristKey());
+
+			while (game.gameStatus() == GameStatus.RUNNING) {
+				boolean playerOne = game.isPlayerOneToMove();
+				long key = game.getZobristKey();
+				long possibleMoves = game.getValidMoves(playerOne);
+
+				long moves = possibleMoves;
+				do {
+					long move = Long.lowestOneBit(moves);
+					moves ^= move;
+					long chipsToFlip = game.makeMove(playerOne, move);
+					Assertions.assertEquals(expectedKey(game), game.getZobristKey());
+					game.unmakeMove(move, chipsToFlip);
+					Assertions.assertEquals(key, game.getZobristKey());
+				} while (moves != 0L);
+
+				long move = 0L;
+				if (possibleMoves != 0L) {
+					int index = random.nextInt(Long.bitCount(possibleMoves));
+					for (int j = 0; j < index; j++) {
+						possibleMoves &= possibleMoves - 1;
+					}
+					move = Long.lowestOneBit(possibleMoves);
+				}
+				game.forceMakeMove(playerOne, move);
+				Assertions.assertEquals(expectedKey(game), game.getZobristKey());
+				Assertions.assertEquals(game.getZobristKey(), game.copy().getZobristKey());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("transpositions have the same key and are equal")
+	public void transpositionsHaveSameKey() {
+		// d3 c3 c4 e3 and c4 c3 d3 e3 reach the same position
+		OthelloGame first = new OthelloGame();
+		first.forceMakeMove(true, new Move(3, 2));
+		first.forceMakeMove(false, new Move(2, 2));
+		first.forceMakeMove(true, new Move(2, 3));
+		first.forceMakeMove(false, new Move(4, 2));
+		OthelloGame second = new OthelloGame();
+		second.forceMakeMove(true, new Move(2, 3));
+		second.forceMakeMove(false, new Move(2, 2));
+		second.forceMakeMove(true, new Move(3, 2));
+		second.forceMakeMove(false, new Move(4, 2));
+
+		Assertions.assertEquals(first.getPlayerOneBoard(), second.getPlayerOneBoard());
+		Assertions.assertEquals(first.getZobristKey(), second.getZobristKey());
+		Assertions.assertEquals(first, second);
+		Assertions.assertEquals(first.hashCode(), second.hashCode());
+	}
+
+	@Test
+	@DisplayName("hashCode and equals work without a move history")
+	public void hashCodeWithoutHistory() {
+		OthelloGame game = new OthelloGame();
+		Assertions.assertEquals(new OthelloGame().hashCode(), game.hashCode());
+		Assertions.assertEquals(new OthelloGame(), game);
+		Assertions.assertNotEquals(expectedKey(game), Zobrist.hash(game.getPlayerOneBoard(), game.getPlayerTwoBoard(), false));
+	}
+}